@@ -30,16 +30,12 @@ public class CastlingDecorator extends PieceDecorator{
         if(piece.hasMoved()){
             return validCells;
         }
-        BiMap<Position, Cell> cells = board.getCells();
         Cell pieceCell = piece.getCell();
 
         for (Directions direction : new Directions[]{Directions.LEFT, Directions.RIGHT}) {
             Cell currCell = board.getNextCell(pieceCell, direction);
-            while (cells.containsReverse(currCell)) {
-                // Check if the cell exists
-                if (currCell == null) {
-                    break;
-                }
+            // Check if the cell exists
+            while (currCell != null) {
                 Piece actualPiece = currCell.getPiece();
                 if (actualPiece != null && actualPiece.getType() == castleWith
                     && actualPiece.getColor() == piece.getColor() && !piece.hasMoved() && !actualPiece.hasMoved()) {
@@ -21,23 +21,19 @@ public class EnPassantDecorator extends PieceDecorator {
     @Override
     public ArrayList<Cell> getValidCells() {
         ArrayList<Cell> validCells = pieceDecorator == null ? new ArrayList<>() : pieceDecorator.getValidCells();
-        BiMap<Position, Cell> cells = this.board.getCells();
-        Position piecePosition = cells.getReverse(this.piece.getCell());
+        int pieceIndex = this.piece.getCell().getIndex();
 
         Move lastMove = this.board.getLastMove();
-        if(lastMove != null && cells.get(lastMove.to()).getPiece() instanceof Pawn){
-            int lastMoveFromX = lastMove.from().getY();
+        if(pieceIndex >= 0 && lastMove != null && board.getCell(lastMove.to()).getPiece() instanceof Pawn){
+            int lastMoveFromY = lastMove.from().getY();
             int lastMoveToY = lastMove.to().getY();
             int lastMoveToX = lastMove.to().getX();
 
-            if(Math.abs(lastMoveFromX - lastMoveToY) == 2){
-                if(lastMoveToY == piecePosition.getY() && Math.abs(lastMoveToX - piecePosition.getX()) == 1){
-                    Position enPassantPosition = lastMove.getMiddlePosition();
-                    if(cells.contains(enPassantPosition)){
-                        Cell enPassantCell = cells.get(enPassantPosition);
-                        if(enPassantCell.isEmpty()){
-                            validCells.add(enPassantCell);
-                        }
+            if(Math.abs(lastMoveFromY - lastMoveToY) == 2){
+                if(lastMoveToY == (pieceIndex >> 3) && Math.abs(lastMoveToX - (pieceIndex & 7)) == 1){
+                    Cell enPassantCell = board.getCell(lastMoveToX, (lastMoveFromY + lastMoveToY) / 2);
+                    if(enPassantCell != null && enPassantCell.isEmpty()){
+                        validCells.add(enPassantCell);
                     }
                 }
             }
@@ -31,11 +31,10 @@ public class KingDecorator extends PieceDecorator {
                 Directions.BOTTOM_RIGHT
         };
         ArrayList<Cell> validCells = pieceDecorator == null ? new ArrayList<>() : pieceDecorator.getValidCells();
-        BiMap<Position, Cell> cells = this.board.getCells();
         Cell cell = this.piece.getCell();
         for (Directions direction : getDirections(directions)) {
             Cell newCell = board.getNextCell(cell, direction);
-            if (cells.containsReverse(newCell)) {
+            if (newCell != null) {
                 if (newCell.isEmpty() || newCell.getPiece().getColor() != this.piece.getColor()) {
                     validCells.add(newCell);
                 }
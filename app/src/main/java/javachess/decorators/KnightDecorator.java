@@ -31,11 +31,10 @@ public class KnightDecorator extends PieceDecorator {
             Directions.ONE_RIGHT_TWO_DOWN
         };
         ArrayList<Cell> validCells = new ArrayList<>();
-        BiMap<Position, Cell> cells = this.board.getCells();
         Cell cell = this.piece.getCell();
         for (Directions direction : directions) {
             Cell currCell = board.getNextCell(cell, direction);
-            if (cells.containsReverse(currCell)) {
+            if (currCell != null) {
                 if (currCell.isEmpty() || currCell.getPiece().getColor() != this.piece.getColor()) {
                     validCells.add(currCell);
                 }
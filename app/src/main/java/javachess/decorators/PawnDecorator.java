@@ -27,32 +27,20 @@ public class PawnDecorator extends PieceDecorator {
                 ? new Directions[]{Directions.TOP_LEFT, Directions.TOP_RIGHT}
                 : new Directions[]{Directions.BOTTOM_LEFT, Directions.BOTTOM_RIGHT};
         ArrayList<Cell> validCells = pieceDecorator == null ? new ArrayList<>() : pieceDecorator.getValidCells();
-        BiMap<Position, Cell> cells = this.board.getCells();
         Cell cell = this.piece.getCell();
-        Position position = cells.getReverse(cell);
-        int x = position.getX();
-        int y = position.getY();
-        Position forward = new Position(x + move.dx, y + move.dy);
-        Position left = new Position(x + attack[0].dx, y + attack[0].dy);
-        Position right = new Position(x + attack[1].dx, y + attack[1].dy);
-        if (cells.contains(forward)) {
-            Cell forwardCell = cells.get(forward);
-            if (forwardCell.isEmpty()) {
-                validCells.add(forwardCell);
-                if (!this.piece.hasMoved()) {
-                    Position doubleForward = new Position(x + move.dx * 2, y + move.dy * 2);
-                    if (cells.contains(doubleForward)) {
-                        Cell doubleForwardCell = cells.get(doubleForward);
-                        if (doubleForwardCell.isEmpty()) {
-                            validCells.add(doubleForwardCell);
-                        }
-                    }
+        Cell forwardCell = board.getNextCell(cell, move);
+        if (forwardCell != null && forwardCell.isEmpty()) {
+            validCells.add(forwardCell);
+            if (!this.piece.hasMoved()) {
+                Cell doubleForwardCell = board.getNextCell(forwardCell, move);
+                if (doubleForwardCell != null && doubleForwardCell.isEmpty()) {
+                    validCells.add(doubleForwardCell);
                 }
             }
         }
         // Check if the pawn can attack a piece
-        checkValidCell(cell, left, cells, validCells);
-        checkValidCell(cell, right, cells, validCells);
+        checkValidCell(cell, board.getNextCell(cell, attack[0]), validCells);
+        checkValidCell(cell, board.getNextCell(cell, attack[1]), validCells);
         return validCells;
     }
 }
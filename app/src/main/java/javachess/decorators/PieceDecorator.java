@@ -17,7 +17,6 @@ public abstract class PieceDecorator {
      */
     ArrayList<Cell> getDirectedCells(Directions[] directions, PieceDecorator currentDecorator) {
         ArrayList<Cell> validCells = new ArrayList<>();
-        BiMap<Position, Cell> cells = currentDecorator.board.getCells();
         Cell cell = currentDecorator.piece.getCell();
         for (Directions direction : directions) {
             Cell curr = board.getNextCell(cell, direction);
@@ -39,16 +38,12 @@ public abstract class PieceDecorator {
     /**
      * Check if the next cell is valid and add it to the list of valid cells.
      * @param cell The current cell.
-     * @param nextCellPos The position of the cell we want to check.
-     * @param cells The map of cells.
+     * @param nextCell The cell we want to check (null if outside the board).
      * @param validCells The list of valid cells.
      */
-    protected void checkValidCell(Cell cell, Position nextCellPos, BiMap<Position, Cell> cells, ArrayList<Cell> validCells) {
-        if (cells.contains(nextCellPos)) {
-            Cell nextCell = cells.get(nextCellPos);
-            if (!nextCell.isEmpty() && nextCell.getPiece().getColor() != cell.getPiece().getColor()) {
-                validCells.add(nextCell);
-            }
+    protected void checkValidCell(Cell cell, Cell nextCell, ArrayList<Cell> validCells) {
+        if (nextCell != null && !nextCell.isEmpty() && nextCell.getPiece().getColor() != cell.getPiece().getColor()) {
+            validCells.add(nextCell);
         }
     }
 
@@ -0,0 +1,128 @@
+package javachess.engine;
+
+import javachess.model.Game;
+import javachess.parser.ConfigParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Analysis of the positions of a {@link Game} by the local engine, streaming the best lines as the search deepens
+ * instead of only giving the best move.
+ * <p>
+ * An analysis runs on its own thread: the listener receives the {@link SearchInfo} of each of the top lines at the end
+ * of each iteration, on that thread. Without a depth, node or time limit, it goes on until it is cancelled.
+ * One analysis runs at a time, starting a new one stops the previous one. The transposition table is kept from one
+ * analysis to the next, so following a game is faster than analyzing unrelated positions.
+ */
+public class Analyzer {
+    private final ParallelSearch search;
+    private CompletableFuture<Integer> running;
+    // the thread of the running search, known from its first iteration
+    private volatile Thread searchThread;
+
+    /**
+     * @param hashSizeMB the memory budget of the transposition table, in megabytes
+     * @param threads    the number of search threads
+     */
+    public Analyzer(int hashSizeMB, int threads) {
+        search = new ParallelSearch(threads, new TranspositionTable(hashSizeMB));
+    }
+
+    /**
+     * Creates an analyzer with the settings of the local engine of a configuration
+     * (CHESS_HASH_SIZE, CHESS_THREADS and CHESS_TABLEBASES).
+     *
+     * @param config the configuration
+     * @return the analyzer
+     */
+    public static Analyzer fromConfig(ConfigParser config) {
+        Analyzer analyzer = new Analyzer(config.getHashSize(), config.getThreads());
+        analyzer.search.setTablebases(Tablebases.fromConfig(config));
+        return analyzer;
+    }
+
+    /**
+     * Starts the analysis of the current position of a game.
+     *
+     * @param game     the game, which may go on during the analysis: its position is read when the analysis starts
+     * @param lines    the number of lines, the best moves of the position
+     * @param limits   the limits of the analysis, none to analyze until cancelled
+     * @param listener the listener receiving the lines of each iteration
+     * @return a future completed with the lines of the last completed iteration, best first; cancelling it stops the analysis
+     */
+    public synchronized CompletableFuture<List<SearchInfo>> analyze(Game game, int lines, SearchLimits limits, SearchListener listener) {
+        stop();
+        String fen = game.getFEN();
+        CompletableFuture<List<SearchInfo>> future = new CompletableFuture<>();
+        SearchInfo[] last = new SearchInfo[Math.max(1, lines)];
+        search.setMultiPv(lines);
+        search.setListener(info -> {
+            searchThread = Thread.currentThread();
+            // the lines of an iteration come in order, the first one starts a new iteration
+            if (info.multiPv() == 1) {
+                Arrays.fill(last, null);
+            }
+            last[info.multiPv() - 1] = info;
+            listener.onIteration(info);
+        });
+        CompletableFuture<Integer> analysis = search.searchAsync(fen, limits);
+        analysis.whenComplete((move, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
+            }
+            List<SearchInfo> result = new ArrayList<>();
+            for (SearchInfo info : last) {
+                if (info != null) {
+                    result.add(info);
+                }
+            }
+            future.complete(result);
+        });
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                halt(analysis);
+            }
+        });
+        running = analysis;
+        return future;
+    }
+
+    /**
+     * Stops the running analysis, if any, and waits for it. Its future is completed with the lines of the last
+     * completed iteration.
+     */
+    public synchronized void stop() {
+        if (running != null) {
+            halt(running);
+            running = null;
+        }
+    }
+
+    /**
+     * Stops the search of an analysis and waits for it, unless called by its thread (from the listener).
+     */
+    private void halt(CompletableFuture<Integer> analysis) {
+        search.stop();
+        if (Thread.currentThread() == searchThread) {
+            return;
+        }
+        try {
+            analysis.join();
+        } catch (CompletionException ignored) {
+            // the error is reported by the future of the analysis
+        }
+    }
+
+    /**
+     * Stops the running analysis and the search threads for good.
+     */
+    public void shutdown() {
+        stop();
+        search.shutdown();
+    }
+}
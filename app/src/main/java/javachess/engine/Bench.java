@@ -0,0 +1,91 @@
+package javachess.engine;
+
+import javachess.movegen.Perft;
+
+import java.util.ArrayList;
+
+/**
+ * Command line benchmark of the local engine, reporting the search speed for an increasing number of threads.
+ * <p>
+ * Usage: {@code bench [depth] [max threads]}. Each thread count searches the same positions to the same depth
+ * with an empty transposition table, then the nodes per second and the speedup over one thread are printed.
+ * The cutoffs of the main thread are also broken down by move ordering stage (see {@link MovePicker.Stage}).
+ */
+public class Bench {
+    private static final String[] POSITIONS = {
+            Perft.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    };
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        ArrayList<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+
+        // warm up the JIT compiler, so that the first thread count is not penalized
+        ParallelSearch warmUp = new ParallelSearch(1, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+        for (String fen : POSITIONS) {
+            warmUp.search(fen, Math.max(1, depth - 2));
+        }
+
+        long baseNodesPerSecond = 0;
+        long baseTime = 0;
+        for (int threads : threadCounts) {
+            ParallelSearch search = new ParallelSearch(threads, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+            long nodes = 0;
+            long probes = 0;
+            long hits = 0;
+            long[] cutoffs = new long[MovePicker.Stage.values().length];
+            double movesBeforeCutoff = 0;
+            long start = System.nanoTime();
+            for (String fen : POSITIONS) {
+                search.getTable().clear();
+                search.search(fen, depth);
+                nodes += search.getNodes();
+                probes += search.getTable().getProbes();
+                hits += search.getTable().getHits();
+                MoveOrdering ordering = search.getMoveOrdering();
+                for (MovePicker.Stage stage : MovePicker.Stage.values()) {
+                    cutoffs[stage.ordinal()] += ordering.getCutoffs(stage);
+                }
+                movesBeforeCutoff += ordering.getMovesBeforeCutoff() * ordering.getCutoffs();
+            }
+            long time = System.nanoTime() - start;
+            double pawnHitRate = search.getPawnTable().getHitRate();
+            search.shutdown();
+
+            long nodesPerSecond = time == 0 ? 0 : nodes * 1_000_000_000L / time;
+            if (baseNodesPerSecond == 0) {
+                baseNodesPerSecond = Math.max(1, nodesPerSecond);
+                baseTime = Math.max(1, time);
+            }
+            System.out.printf("%2d thread(s): %d nodes in %d ms, %d nodes/s (x%.2f), time to depth x%.2f%n",
+                    threads, nodes, time / 1_000_000, nodesPerSecond,
+                    (double) nodesPerSecond / baseNodesPerSecond, (double) baseTime / Math.max(1, time));
+            System.out.printf("    hash hits %.1f%%, pawn hash hits %.1f%%%n", 100.0 * hits / Math.max(1, probes), 100 * pawnHitRate);
+            printCutoffs(cutoffs, movesBeforeCutoff);
+        }
+    }
+
+    private static void printCutoffs(long[] cutoffs, double movesBeforeCutoff) {
+        long total = 0;
+        for (long count : cutoffs) {
+            total += count;
+        }
+        StringBuilder line = new StringBuilder("    cutoffs:");
+        for (MovePicker.Stage stage : MovePicker.Stage.values()) {
+            line.append(String.format(" %s %.1f%%", stage.name().toLowerCase(), 100.0 * cutoffs[stage.ordinal()] / Math.max(1, total)));
+        }
+        line.append(String.format(", %.2f moves before a cutoff", movesBeforeCutoff / Math.max(1, total)));
+        System.out.println(line);
+    }
+}
@@ -0,0 +1,72 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.Moves;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Engine playing the moves of an {@link OpeningBook} while the game is in the book, and asking another engine afterwards.
+ */
+public class BookEngine implements BotEngine {
+    private final BotEngine engine;
+    private final OpeningBook book;
+    private final Random random = new Random();
+
+    /**
+     * @param engine the engine searching the positions missing from the book
+     * @param book   the opening book, which can be shared with other engines
+     */
+    public BookEngine(BotEngine engine, OpeningBook book) {
+        this.engine = engine;
+        this.book = book;
+    }
+
+    @Override
+    public String getBestMove(String fen, SearchLimits limits) throws Exception {
+        String move = playBookMove(fen);
+        return move != null ? move : engine.getBestMove(fen, limits);
+    }
+
+    @Override
+    public CompletableFuture<String> getBestMoveAsync(String fen, SearchLimits limits) {
+        String move = playBookMove(fen);
+        return move != null ? CompletableFuture.completedFuture(move) : engine.getBestMoveAsync(fen, limits);
+    }
+
+    /**
+     * Chooses a move of the book for a position.
+     *
+     * @param fen the position, in FEN
+     * @return the move in long algebraic notation, or null if the position is not in the book
+     */
+    public String getBookMove(String fen) {
+        Board board = new Board();
+        board.loadFEN(fen);
+        int move = book.pickMove(board, random);
+        return move == Moves.NONE ? null : Moves.toUCI(move);
+    }
+
+    /**
+     * Chooses a move of the book for a position and, if there is one, stops the ponder search of the engine, which is
+     * not asked.
+     */
+    private String playBookMove(String fen) {
+        String move = getBookMove(fen);
+        if (move != null) {
+            engine.stopPondering();
+        }
+        return move;
+    }
+
+    @Override
+    public void stopPondering() {
+        engine.stopPondering();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return engine.isAvailable();
+    }
+}
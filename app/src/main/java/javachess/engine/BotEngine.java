@@ -0,0 +1,146 @@
+package javachess.engine;
+
+import javachess.parser.ConfigParser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Backend used by a {@link javachess.player.BotPlayer} to choose its moves.
+ */
+public interface BotEngine {
+    /**
+     * Gets the best move of a position.
+     *
+     * @param fen    the position, in FEN
+     * @param limits the depth or the time the engine may use
+     * @return the best move in long algebraic notation (e.g. "e2e4", "e7e8q"), or null if there is none
+     * @throws Exception if the engine could not answer
+     */
+    String getBestMove(String fen, SearchLimits limits) throws Exception;
+
+    /**
+     * Gets the best move of a position, searching to a fixed depth.
+     *
+     * @param fen   the position, in FEN
+     * @param depth the depth to search to
+     * @return the best move in long algebraic notation, or null if there is none
+     * @throws Exception if the engine could not answer
+     */
+    default String getBestMove(String fen, int depth) throws Exception {
+        return getBestMove(fen, SearchLimits.depth(depth));
+    }
+
+    /**
+     * Gets the best move of a position without blocking the caller.
+     * By default, {@link #getBestMove(String, SearchLimits)} is run on a virtual thread.
+     *
+     * @param fen    the position, in FEN
+     * @param limits the depth or the time the engine may use
+     * @return a future completed with the best move in long algebraic notation, or null if there is none,
+     * or completed exceptionally if the engine could not answer
+     */
+    default CompletableFuture<String> getBestMoveAsync(String fen, SearchLimits limits) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        Thread.ofVirtual().name("bot-engine").start(() -> {
+            try {
+                future.complete(getBestMove(fen, limits));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the depth completed by the last search of the engine, which tells how deep a search limited by time went.
+     *
+     * @return the depth, or 0 if the engine does not know it (by default)
+     */
+    default int getCompletedDepth() {
+        return 0;
+    }
+
+    /**
+     * Stops any search the engine goes on with once it has answered (see {@link LocalEngine#setPondering(boolean)}),
+     * for example when the game is over. Does nothing by default.
+     */
+    default void stopPondering() {
+    }
+
+    /**
+     * Checks if the engine can currently be used (for example, if a remote engine can be reached).
+     *
+     * @return true if the engine is available
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Gets the engine selected in a configuration (CHESS_BOT_ENGINE, "local", "online" or "uci").
+     * Every "online" engine shares the requests of {@link OnlineEngine#shared}, limited to CHESS_ONLINE_RATE requests
+     * per second with a queue of CHESS_ONLINE_QUEUE requests, the others being answered by the local engine.
+     * Every "uci" engine plays through the {@link UciEnginePool} of the executable set by CHESS_UCI_ENGINE.
+     * The engine is put behind the shared {@link MoveCache} of the file set by CHESS_BOT_CACHE, unless it is "none",
+     * and plays the moves of the {@link OpeningBook} set by CHESS_BOOK first, if any.
+     * The local engine probes the {@link Tablebases} of the directory set by CHESS_TABLEBASES, if any,
+     * and ponders unless CHESS_PONDER is false. The local engine answering for the shared online requests does not
+     * ponder, as the positions it is asked come from any game.
+     *
+     * @param config the configuration, also giving the settings of the local engine
+     * @return the corresponding engine, the local one if the name is unknown
+     */
+    static BotEngine fromConfig(ConfigParser config) {
+        BotEngine engine = switch (engineName(config)) {
+            case "online" -> OnlineEngine.shared(config.getOnlineRate(), config.getOnlineQueueSize(), () -> localEngine(config, false));
+            case "uci" -> UciEnginePool.shared(List.of(config.getUciEnginePath()), config.getUciPoolSize()).newGame();
+            default -> localEngine(config, config.getPonder());
+        };
+        String cacheFile = config.getBotCacheFile();
+        if (cacheFile != null) {
+            try {
+                engine = new CachingEngine(engine, MoveCache.shared(Path.of(cacheFile), config.getBotCacheSize(), config.getBotCacheEntries()));
+            } catch (IOException e) {
+                System.err.println("Could not open the move cache " + cacheFile + ": " + e.getMessage());
+            }
+        }
+        String bookFile = config.getOpeningBookFile();
+        if (bookFile != null) {
+            try {
+                engine = new BookEngine(engine, new OpeningBook(Path.of(bookFile)));
+            } catch (IOException e) {
+                System.err.println("Could not open the opening book " + bookFile + ": " + e.getMessage());
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Checks if the engine selected in a configuration can currently be used, without building it: the online engine
+     * is reached once, the UCI engine is started in its shared pool, where it is kept for the games.
+     *
+     * @param config the configuration
+     * @return true if the engine is available, always for the local one
+     */
+    static boolean isAvailable(ConfigParser config) {
+        return switch (engineName(config)) {
+            case "online" -> OnlineEngine.testConnection();
+            case "uci" -> UciEnginePool.shared(List.of(config.getUciEnginePath()), config.getUciPoolSize()).isAvailable();
+            default -> true;
+        };
+    }
+
+    private static String engineName(ConfigParser config) {
+        return config.getValue("CHESS_BOT_ENGINE", "local").toLowerCase();
+    }
+
+    private static LocalEngine localEngine(ConfigParser config, boolean pondering) {
+        LocalEngine engine = new LocalEngine(config.getHashSize(), config.getThreads());
+        engine.setTablebases(Tablebases.fromConfig(config));
+        engine.setPondering(pondering);
+        return engine;
+    }
+}
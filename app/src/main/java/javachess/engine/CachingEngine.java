@@ -0,0 +1,87 @@
+package javachess.engine;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Engine answering from a {@link MoveCache} the positions already searched, and asking another engine otherwise.
+ * <p>
+ * A search limited by depth is answered by any cached result of the same or a greater depth. The result of a search
+ * limited by time is cached under the depth the engine completed (see {@link BotEngine#getCompletedDepth()}), and
+ * such a search is answered by a cached result at least as deep as the last one the engine completed in time.
+ * Searches limited by nodes, or by time with an engine which does not tell its depth, are not cached.
+ */
+public class CachingEngine implements BotEngine {
+    private final BotEngine engine;
+    private final MoveCache cache;
+    // the depth completed by the last search limited by time, 0 before the first one
+    private volatile int timedDepth;
+
+    /**
+     * @param engine the engine searching the positions missing from the cache
+     * @param cache  the cache, which can be shared with other engines
+     */
+    public CachingEngine(BotEngine engine, MoveCache cache) {
+        this.engine = engine;
+        this.cache = cache;
+    }
+
+    @Override
+    public String getBestMove(String fen, SearchLimits limits) throws Exception {
+        String move = lookUp(fen, limits);
+        return move != null ? move : store(fen, limits, engine.getBestMove(fen, limits));
+    }
+
+    @Override
+    public CompletableFuture<String> getBestMoveAsync(String fen, SearchLimits limits) {
+        String move = lookUp(fen, limits);
+        if (move != null) {
+            return CompletableFuture.completedFuture(move);
+        }
+        return engine.getBestMoveAsync(fen, limits).thenApply(found -> store(fen, limits, found));
+    }
+
+    /**
+     * Gets the cached move answering a search, or null if there is none or the search is not cached.
+     * On a hit, the engine is not asked, so its ponder search on another position is stopped.
+     */
+    private String lookUp(String fen, SearchLimits limits) {
+        int depth = limits.isTimed() ? timedDepth : limits.getDepth();
+        if (depth <= 0 || limits.getNodes() > 0) {
+            return null;
+        }
+        String move = cache.get(fen, depth);
+        if (move != null) {
+            engine.stopPondering();
+        }
+        return move;
+    }
+
+    /**
+     * Caches the move found by a search, under its depth, and returns it.
+     */
+    private String store(String fen, SearchLimits limits, String move) {
+        int depth = limits.getDepth();
+        if (limits.isTimed()) {
+            depth = engine.getCompletedDepth();
+            timedDepth = depth;
+        }
+        if (move != null && depth > 0 && limits.getNodes() <= 0) {
+            cache.put(fen, depth, move);
+        }
+        return move;
+    }
+
+    @Override
+    public void stopPondering() {
+        engine.stopPondering();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return engine.isAvailable();
+    }
+
+    public MoveCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,221 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.PieceColor;
+import javachess.model.PieceSquareTables;
+import javachess.model.PieceType;
+import javachess.movegen.Bitboards;
+
+/**
+ * Static evaluation of a position, tapered between a middlegame and an endgame score according to the pieces left
+ * (see {@link Board#getPhase()}):
+ * <ul>
+ *     <li>material and piece-square tables, maintained incrementally by the board (see {@link PieceSquareTables});</li>
+ *     <li>mobility of the pieces, not counting the squares attacked by enemy pawns;</li>
+ *     <li>pawn structure: doubled, isolated, backward and passed pawns, cached in a {@link PawnTable};</li>
+ *     <li>king safety: pawn shield and attacks on the squares around the king.</li>
+ * </ul>
+ * An evaluator keeps scratch state, so each search thread has its own.
+ */
+public class Evaluator {
+    /**
+     * Value of each piece type in centipawns, indexed by {@link PieceType#ordinal()}.
+     */
+    public static final int[] PIECE_VALUES = PieceSquareTables.MIDDLEGAME_VALUES;
+
+    // bonus per square reached over the average number, indexed by PieceType.ordinal()
+    private static final int[] MOBILITY_MIDDLEGAME = {0, 2, 4, 5, 1, 0};
+    private static final int[] MOBILITY_ENDGAME = {0, 4, 4, 5, 2, 0};
+    private static final int[] MOBILITY_AVERAGE = {0, 7, 4, 6, 13, 0};
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDDLEGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+    // bonus of a passed pawn, indexed by the number of ranks it has advanced
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 20, 35, 60};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 40, 70, 110};
+
+    private static final int SHIELD_BONUS = 10;
+    // weight of each attack on the squares around the king, indexed by PieceType.ordinal()
+    private static final int[] KING_ATTACK_WEIGHTS = {0, 40, 20, 20, 80, 0};
+    // percentage of the attack weight counted, indexed by the number of attacking pieces
+    private static final int[] ATTACKER_SCALE = {0, 0, 50, 75, 88, 94, 97, 99};
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // squares in front of a pawn on its file and the adjacent ones, indexed by color then square
+    private static final long[][] PASSED_MASKS = new long[2][64];
+    // squares of the pawns which can support a pawn: on the adjacent files, level with it or behind, indexed by color then square
+    private static final long[][] SUPPORT_MASKS = new long[2][64];
+    // squares of the pawns sheltering a king on its first two ranks, indexed by color then square
+    private static final long[][] SHIELD_MASKS = new long[2][64];
+    private static final PieceType[] PIECES = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < 7 ? FILES[file + 1] : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            int rank = square >> 3;
+            long span = FILES[file] | ADJACENT_FILES[file];
+            // white pawns go towards rank 8, the lower indexes
+            PASSED_MASKS[0][square] = span & ((1L << (rank * 8)) - 1);
+            PASSED_MASKS[1][square] = rank == 7 ? 0 : span & (-1L << ((rank + 1) * 8));
+            SUPPORT_MASKS[0][square] = ADJACENT_FILES[file] & (-1L << (rank * 8));
+            SUPPORT_MASKS[1][square] = ADJACENT_FILES[file] & (rank == 7 ? -1L : (1L << ((rank + 1) * 8)) - 1);
+            long nextRanks = rank >= 2 ? 0xFFFFL << ((rank - 2) * 8) : 0;
+            SHIELD_MASKS[0][square] = rank >= 6 ? span & nextRanks : 0;
+            SHIELD_MASKS[1][square] = rank <= 1 ? span & (0xFFFFL << ((rank + 1) * 8)) : 0;
+        }
+    }
+
+    private final PawnTable pawnTable;
+    // terms of the position being evaluated, positive when white is better
+    private int middlegame;
+    private int endgame;
+
+    public Evaluator() {
+        this(new PawnTable());
+    }
+
+    /**
+     * @param pawnTable the cache of the pawn structure terms, which can be kept from one search to the next
+     */
+    public Evaluator(PawnTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    /**
+     * Evaluates the position from the point of view of the side to move.
+     *
+     * @param board the board to evaluate
+     * @return the score in centipawns, positive when the side to move is better
+     */
+    public int evaluate(Board board) {
+        long whitePawns = board.getBitboard(PieceColor.WHITE, PieceType.PAWN);
+        long blackPawns = board.getBitboard(PieceColor.BLACK, PieceType.PAWN);
+        long pawnKey = board.pawnHash();
+        long pawnScores = pawnTable.probe(pawnKey);
+        if (pawnScores == PawnTable.MISSING) {
+            middlegame = 0;
+            endgame = 0;
+            evaluatePawns(PieceColor.WHITE, whitePawns, blackPawns, pawnAttacks(PieceColor.BLACK, blackPawns), 1);
+            evaluatePawns(PieceColor.BLACK, blackPawns, whitePawns, pawnAttacks(PieceColor.WHITE, whitePawns), -1);
+            pawnScores = PawnTable.pack(middlegame, endgame);
+            pawnTable.store(pawnKey, pawnScores);
+        }
+        middlegame = board.getMiddlegameScore() + PawnTable.middlegame(pawnScores);
+        endgame = board.getEndgameScore() + PawnTable.endgame(pawnScores);
+        evaluatePieces(board, PieceColor.WHITE, pawnAttacks(PieceColor.BLACK, blackPawns), whitePawns, 1);
+        evaluatePieces(board, PieceColor.BLACK, pawnAttacks(PieceColor.WHITE, whitePawns), blackPawns, -1);
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return board.getSideToMove() == PieceColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Adds the mobility of the pieces of a color, and the safety of the king of the other color.
+     *
+     * @param enemyPawnAttacks the squares attacked by the enemy pawns, which do not count for the mobility
+     * @param ownPawns         the pawns of the color
+     * @param sign             1 for white, -1 for black
+     */
+    private void evaluatePieces(Board board, PieceColor color, long enemyPawnAttacks, long ownPawns, int sign) {
+        long occupancy = board.getOccupancy();
+        long available = ~board.getColorBitboard(color) & ~enemyPawnAttacks;
+        int enemyKing = board.getKingSquare(color.opposite());
+        long kingZone = enemyKing < 0 ? 0 : Bitboards.KING_ATTACKS[enemyKing] | 1L << enemyKing;
+        int attackers = 0;
+        int attackWeight = 0;
+        for (PieceType type : PIECES) {
+            int index = type.ordinal();
+            for (long pieces = board.getBitboard(color, type); pieces != 0; pieces &= pieces - 1) {
+                long attacks = attacks(type, Long.numberOfTrailingZeros(pieces), occupancy);
+                int mobility = Long.bitCount(attacks & available) - MOBILITY_AVERAGE[index];
+                middlegame += sign * mobility * MOBILITY_MIDDLEGAME[index];
+                endgame += sign * mobility * MOBILITY_ENDGAME[index];
+                long kingAttacks = attacks & kingZone;
+                if (kingAttacks != 0) {
+                    attackers++;
+                    attackWeight += KING_ATTACK_WEIGHTS[index] * Long.bitCount(kingAttacks);
+                }
+            }
+        }
+        // the enemy king is in danger when several pieces attack its surroundings, which only matters in the middlegame
+        middlegame += sign * attackWeight * ATTACKER_SCALE[Math.min(attackers, ATTACKER_SCALE.length - 1)] / 100;
+        int king = board.getKingSquare(color);
+        if (king >= 0) {
+            middlegame += sign * SHIELD_BONUS * Long.bitCount(ownPawns & SHIELD_MASKS[color.ordinal()][king]);
+        }
+    }
+
+    /**
+     * Adds the doubled, isolated, backward and passed pawns of a color, which only depend on the pawns.
+     *
+     * @param enemyPawnAttacks the squares attacked by the enemy pawns
+     * @param sign             1 for white, -1 for black
+     */
+    private void evaluatePawns(PieceColor color, long pawns, long enemyPawns, long enemyPawnAttacks, int sign) {
+        for (int file = 0; file < 8; file++) {
+            int count = Long.bitCount(pawns & FILES[file]);
+            if (count == 0) {
+                continue;
+            }
+            if (count > 1) {
+                middlegame += sign * DOUBLED_MIDDLEGAME * (count - 1);
+                endgame += sign * DOUBLED_ENDGAME * (count - 1);
+            }
+            if ((pawns & ADJACENT_FILES[file]) == 0) {
+                middlegame += sign * ISOLATED_MIDDLEGAME * count;
+                endgame += sign * ISOLATED_ENDGAME * count;
+            }
+        }
+        for (long remaining = pawns; remaining != 0; remaining &= remaining - 1) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            if ((enemyPawns & PASSED_MASKS[color.ordinal()][square]) == 0) {
+                int advanced = color == PieceColor.WHITE ? 6 - (square >> 3) : (square >> 3) - 1;
+                middlegame += sign * PASSED_MIDDLEGAME[advanced];
+                endgame += sign * PASSED_ENDGAME[advanced];
+            }
+            // no pawn can come to its support, and it cannot advance safely
+            int stop = color == PieceColor.WHITE ? square - 8 : square + 8;
+            if ((pawns & ADJACENT_FILES[square & 7]) != 0 && (pawns & SUPPORT_MASKS[color.ordinal()][square]) == 0
+                    && (enemyPawnAttacks & 1L << stop) != 0) {
+                middlegame += sign * BACKWARD_MIDDLEGAME;
+                endgame += sign * BACKWARD_ENDGAME;
+            }
+        }
+    }
+
+    public PawnTable getPawnTable() {
+        return pawnTable;
+    }
+
+    /**
+     * Gets the squares attacked by the pawns of a color.
+     */
+    private static long pawnAttacks(PieceColor color, long pawns) {
+        if (color == PieceColor.WHITE) {
+            return (pawns & ~FILE_A) >>> 9 | (pawns & ~FILE_H) >>> 7;
+        }
+        return (pawns & ~FILE_A) << 7 | (pawns & ~FILE_H) << 9;
+    }
+
+    private static long attacks(PieceType type, int square, long occupancy) {
+        return switch (type) {
+            case KNIGHT -> Bitboards.KNIGHT_ATTACKS[square];
+            case BISHOP -> Bitboards.bishopAttacks(square, occupancy);
+            case ROOK -> Bitboards.rookAttacks(square, occupancy);
+            default -> Bitboards.queenAttacks(square, occupancy);
+        };
+    }
+}
@@ -0,0 +1,252 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.Moves;
+import javachess.model.PieceColor;
+import javachess.model.Undo;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Engine running the {@link Search} in process, on its own copy of the position, with one or more threads
+ * (see {@link ParallelSearch}). The transposition table is kept from one move to the next.
+ * <p>
+ * With pondering on, the engine goes on searching once it has answered, on the position expected after the reply
+ * of the opponent (the second move of its principal variation). If the next position asked is that one (a ponder hit),
+ * the running search continues within the limits of the move, counted from the hit; otherwise it is discarded.
+ */
+public class LocalEngine implements BotEngine {
+    private final ParallelSearch search;
+    private boolean pondering;
+    // the search on the position expected after the reply of the opponent, null if none is running
+    private volatile Ponder ponder;
+    private long ponderHits;
+    private long ponderMisses;
+    // the depth of the last answer, read before the ponder search deepens the next position
+    private volatile int completedDepth;
+
+    public LocalEngine() {
+        this(TranspositionTable.DEFAULT_SIZE_MB, 1);
+    }
+
+    /**
+     * @param hashSizeMB the memory budget of the transposition table, in megabytes
+     * @param threads    the number of search threads
+     */
+    public LocalEngine(int hashSizeMB, int threads) {
+        search = new ParallelSearch(threads, new TranspositionTable(hashSizeMB));
+        search.setListener(info -> {
+            Ponder current = ponder;
+            if (current != null) {
+                current.onIteration(info);
+            }
+        });
+    }
+
+    @Override
+    public synchronized String getBestMove(String fen, SearchLimits limits) {
+        Ponder previous = ponder;
+        int move;
+        if (previous != null && previous.isFor(fen) && limits.getNodes() <= 0) {
+            ponderHits++;
+            move = previous.finish(limits);
+        } else {
+            if (previous != null) {
+                ponderMisses++;
+                previous.cancel();
+                ponder = null;
+            }
+            move = search.search(fen, limits);
+        }
+        ponder = null;
+        completedDepth = search.getCompletedDepth();
+        if (pondering && move != Moves.NONE) {
+            startPondering(fen);
+        }
+        return move == Moves.NONE ? null : Moves.toUCI(move);
+    }
+
+    /**
+     * Starts searching the position after the best move and the expected reply, if the principal variation has one.
+     */
+    private void startPondering(String fen) {
+        int[] pv = search.getPrincipalVariation(2);
+        if (pv.length < 2) {
+            return;
+        }
+        Board board = new Board();
+        board.loadFEN(fen);
+        board.makeMove(pv[0], new Undo());
+        board.makeMove(pv[1], new Undo());
+        ponder = new Ponder(board.getFEN(board.getHalfMoveClock(), board.getSideToMove()), board.getSideToMove(), pv[1]);
+        ponder.start();
+    }
+
+    @Override
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Sets whether the engine searches on the time of the opponent. Off by default.
+     *
+     * @param pondering true to ponder after each move
+     */
+    public synchronized void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            stopPondering();
+        }
+    }
+
+    /**
+     * Stops the running ponder search, if any, for example when the game is over.
+     */
+    @Override
+    public synchronized void stopPondering() {
+        Ponder current = ponder;
+        if (current != null) {
+            ponder = null;
+            current.cancel();
+        }
+    }
+
+    /**
+     * Gets the reply of the opponent expected by the running ponder search.
+     *
+     * @return the move in long algebraic notation, or null if the engine is not pondering
+     */
+    public String getPonderMove() {
+        Ponder current = ponder;
+        return current == null ? null : Moves.toUCI(current.reply);
+    }
+
+    /**
+     * Gets the number of positions asked which had been pondered on.
+     */
+    public synchronized long getPonderHits() {
+        return ponderHits;
+    }
+
+    /**
+     * Gets the number of positions asked while another one was pondered on.
+     */
+    public synchronized long getPonderMisses() {
+        return ponderMisses;
+    }
+
+    /**
+     * Sets the tablebases probed by the search.
+     *
+     * @param tablebases the tablebases, or null
+     */
+    public void setTablebases(Tablebases tablebases) {
+        search.setTablebases(tablebases);
+    }
+
+    public TranspositionTable getTable() {
+        return search.getTable();
+    }
+
+    /**
+     * Search without limits of a pondered position, on its own thread, until it is stopped.
+     */
+    private final class Ponder {
+        private final String fen;
+        private final PieceColor side;
+        private final int reply;
+        private CompletableFuture<Integer> result;
+        // set on a ponder hit, from then on the limits of the move apply
+        private volatile boolean hit;
+        private volatile int targetDepth;
+        private volatile long softDeadline = Long.MAX_VALUE;
+        private volatile int completedDepth;
+
+        Ponder(String fen, PieceColor side, int reply) {
+            this.fen = fen;
+            this.side = side;
+            this.reply = reply;
+        }
+
+        void start() {
+            result = search.searchAsync(fen, new SearchLimits());
+        }
+
+        /**
+         * Checks if a position is the pondered one, whatever the move counters.
+         */
+        boolean isFor(String position) {
+            return withoutCounters(fen).equals(withoutCounters(position));
+        }
+
+        /**
+         * Called by the searching thread at the end of each iteration: stops the search once the limits of the move
+         * are reached, after a hit.
+         */
+        void onIteration(SearchInfo info) {
+            completedDepth = info.depth();
+            if (hit && ((targetDepth > 0 && info.depth() >= targetDepth) || System.nanoTime() >= softDeadline)) {
+                search.stop();
+            }
+        }
+
+        /**
+         * Turns the ponder search into the search of the move, within its limits counted from now.
+         *
+         * @return the best move found
+         */
+        int finish(SearchLimits limits) {
+            long start = System.nanoTime();
+            long soft = limits.getSoftLimit(side);
+            long hard = limits.getHardLimit(side);
+            softDeadline = soft == Long.MAX_VALUE ? Long.MAX_VALUE : start + soft * 1_000_000;
+            targetDepth = limits.getDepth();
+            hit = true;
+            // the limits may have been reached before the hit
+            if (targetDepth > 0 && completedDepth >= targetDepth) {
+                search.stop();
+            }
+            return await(hard == Long.MAX_VALUE ? Long.MAX_VALUE : start + hard * 1_000_000);
+        }
+
+        void cancel() {
+            search.stop();
+            await(Long.MAX_VALUE);
+        }
+
+        /**
+         * Waits for the result of the search, stopping it at the deadline.
+         */
+        private int await(long deadline) {
+            try {
+                if (deadline == Long.MAX_VALUE) {
+                    return result.get();
+                }
+                try {
+                    return result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    search.stop();
+                    return result.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                search.stop();
+                return result.join();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("The ponder search failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Gets the position of a FEN without the half move clock and the move number.
+     */
+    private static String withoutCounters(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        return String.join(" ", Arrays.copyOf(fields, Math.min(4, fields.length)));
+    }
+}
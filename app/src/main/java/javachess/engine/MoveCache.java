@@ -0,0 +1,304 @@
+package javachess.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the best moves found by a bot engine, keyed on the position and the depth of the search.
+ * <p>
+ * Only the deepest result of a position is kept, and it answers every request of the same or a lower depth.
+ * Positions are normalized to the first four fields of their FEN: the move clocks do not change the best move.
+ * <p>
+ * The cache has two tiers: a least recently used map in memory, in front of a file mapped in memory which
+ * survives restarts. The file is a hash table of fixed-size slots, grouped in buckets of four and indexed
+ * by a 64-bit hash of the position:
+ * <pre>
+ * header: magic (4 bytes), format version (4), slot count (4), unused (4)
+ * slot:   position hash (8 bytes), depth (1, 0 for an empty slot), move in ASCII padded with zeros (5), unused (2)
+ * </pre>
+ * A bucket without room replaces its shallowest result.
+ */
+public class MoveCache {
+    private static final int MAGIC = 0x4A434D43; // "JCMC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 16;
+    private static final int BUCKET_SLOTS = 4;
+    private static final int MOVE_BYTES = 5;
+
+    private static final Map<Path, MoveCache> SHARED = new ConcurrentHashMap<>();
+
+    private record Entry(int depth, String move) {
+    }
+
+    private final LinkedHashMap<String, Entry> memory;
+    private final FileChannel channel;
+    private final MappedByteBuffer disk;
+    private final int slotMask;
+
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+
+    /**
+     * Creates a cache kept in memory only.
+     *
+     * @param memoryEntries the maximum number of positions kept in memory
+     */
+    public MoveCache(int memoryEntries) {
+        this.memory = createMemoryTier(memoryEntries);
+        this.channel = null;
+        this.disk = null;
+        this.slotMask = 0;
+    }
+
+    /**
+     * Creates a cache backed by a file, which is created or reset if it does not have the expected size and format.
+     *
+     * @param file          the file of the disk tier
+     * @param diskSizeMB    the size of the file in megabytes, rounded down to a power of two number of slots
+     * @param memoryEntries the maximum number of positions kept in memory
+     * @throws IOException if the file could not be opened or mapped
+     */
+    public MoveCache(Path file, int diskSizeMB, int memoryEntries) throws IOException {
+        this.memory = createMemoryTier(memoryEntries);
+        long budget = Math.max(1, diskSizeMB) * 1024L * 1024L - HEADER_BYTES;
+        int slots = Integer.highestOneBit((int) Math.min(budget / SLOT_BYTES, 1 << 26));
+        this.slotMask = slots - 1;
+        long fileSize = HEADER_BYTES + (long) slots * SLOT_BYTES;
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean valid = channel.size() == fileSize;
+        if (channel.size() > fileSize) {
+            channel.truncate(fileSize);
+        }
+        this.disk = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        if (!valid || disk.getInt(0) != MAGIC || disk.getInt(4) != FORMAT_VERSION || disk.getInt(8) != slots) {
+            reset(slots);
+        }
+    }
+
+    /**
+     * Gets the cache shared by every engine using the given file, creating it on first use.
+     * The file is written to the disk when the application exits.
+     *
+     * @param file          the file of the disk tier
+     * @param diskSizeMB    the size of the file in megabytes, used when the cache is created
+     * @param memoryEntries the maximum number of positions kept in memory, used when the cache is created
+     * @return the shared cache
+     * @throws IOException if the file could not be opened or mapped
+     */
+    public static MoveCache shared(Path file, int diskSizeMB, int memoryEntries) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        MoveCache cache = SHARED.get(key);
+        if (cache == null) {
+            synchronized (SHARED) {
+                cache = SHARED.get(key);
+                if (cache == null) {
+                    cache = new MoveCache(key, diskSizeMB, memoryEntries);
+                    Runtime.getRuntime().addShutdownHook(new Thread(cache::close));
+                    SHARED.put(key, cache);
+                }
+            }
+        }
+        return cache;
+    }
+
+    private static LinkedHashMap<String, Entry> createMemoryTier(int entries) {
+        int capacity = Math.max(1, entries);
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private void reset(int slots) {
+        for (int offset = 0; offset < disk.capacity(); offset += 8) {
+            disk.putLong(offset, 0L);
+        }
+        disk.putInt(0, MAGIC);
+        disk.putInt(4, FORMAT_VERSION);
+        disk.putInt(8, slots);
+    }
+
+    /**
+     * Normalizes a position: only the placement, the side to move, the castling rights and the en passant square are kept.
+     *
+     * @param fen the position, in FEN
+     * @return the normalized FEN
+     */
+    public static String normalize(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        StringBuilder normalized = new StringBuilder(fields[0]);
+        for (int i = 1; i < 4; i++) {
+            normalized.append(' ').append(i < fields.length ? fields[i] : "-");
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Gets the cached best move of a position, if it was searched at least to the given depth.
+     *
+     * @param fen   the position, in FEN
+     * @param depth the depth of the request
+     * @return the best move in long algebraic notation, or null on a miss
+     */
+    public synchronized String get(String fen, int depth) {
+        String position = normalize(fen);
+        Entry entry = memory.get(position);
+        if (entry != null && entry.depth() >= depth) {
+            memoryHits++;
+            return entry.move();
+        }
+        if (disk != null) {
+            long hash = hash(position);
+            int slot = findSlot(hash);
+            if (slot >= 0 && depthAt(slot) >= depth) {
+                diskHits++;
+                entry = new Entry(depthAt(slot), moveAt(slot));
+                memory.put(position, entry);
+                return entry.move();
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores the best move of a position, unless a deeper result is already known.
+     *
+     * @param fen   the position, in FEN
+     * @param depth the depth of the search, between 1 and 255
+     * @param move  the best move in long algebraic notation
+     */
+    public synchronized void put(String fen, int depth, String move) {
+        if (depth < 1 || depth > 255 || move == null || move.length() > MOVE_BYTES) {
+            throw new IllegalArgumentException("Invalid cache entry: depth " + depth + ", move " + move);
+        }
+        String position = normalize(fen);
+        Entry entry = memory.get(position);
+        if (entry == null || entry.depth() <= depth) {
+            memory.put(position, new Entry(depth, move));
+        }
+        if (disk != null) {
+            long hash = hash(position);
+            int slot = findSlot(hash);
+            if (slot < 0) {
+                slot = replacementSlot(hash);
+            } else if (depthAt(slot) > depth) {
+                return;
+            }
+            writeSlot(slot, hash, depth, move);
+        }
+    }
+
+    private int findSlot(long hash) {
+        int bucket = bucket(hash);
+        for (int slot = bucket; slot < bucket + BUCKET_SLOTS; slot++) {
+            if (depthAt(slot) != 0 && disk.getLong(offset(slot)) == hash) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int replacementSlot(long hash) {
+        int bucket = bucket(hash);
+        int shallowest = bucket;
+        for (int slot = bucket; slot < bucket + BUCKET_SLOTS; slot++) {
+            if (depthAt(slot) < depthAt(shallowest)) {
+                shallowest = slot;
+            }
+        }
+        return shallowest;
+    }
+
+    private int bucket(long hash) {
+        return (int) (hash & slotMask) & ~(BUCKET_SLOTS - 1);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private int depthAt(int slot) {
+        return disk.get(offset(slot) + 8) & 0xFF;
+    }
+
+    private String moveAt(int slot) {
+        byte[] move = new byte[MOVE_BYTES];
+        disk.get(offset(slot) + 9, move);
+        int length = 0;
+        while (length < MOVE_BYTES && move[length] != 0) {
+            length++;
+        }
+        return new String(move, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private void writeSlot(int slot, long hash, int depth, String move) {
+        int offset = offset(slot);
+        byte[] bytes = new byte[MOVE_BYTES];
+        ByteBuffer.wrap(bytes).put(move.getBytes(StandardCharsets.US_ASCII));
+        disk.putLong(offset, hash);
+        disk.put(offset + 8, (byte) depth);
+        disk.put(offset + 9, bytes);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a normalized position.
+     */
+    private static long hash(String position) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < position.length(); i++) {
+            hash ^= position.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the disk tier to the file and closes it. The cache must not be used afterwards.
+     */
+    public synchronized void close() {
+        if (channel == null || !channel.isOpen()) {
+            return;
+        }
+        try {
+            disk.force();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not write the move cache: " + e.getMessage());
+        }
+    }
+
+    public synchronized long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the share of the requests answered by one of the tiers.
+     * @return the hit rate, between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        long requests = memoryHits + diskHits + misses;
+        return requests == 0 ? 0 : (double) (memoryHits + diskHits) / requests;
+    }
+}
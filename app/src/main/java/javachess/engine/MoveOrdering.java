@@ -0,0 +1,151 @@
+package javachess.engine;
+
+import javachess.model.Moves;
+import javachess.model.PieceColor;
+
+import java.util.Arrays;
+
+/**
+ * Move ordering heuristics learnt during a search, used by the {@link MovePicker}s of a {@link Search}:
+ * <ul>
+ *     <li>two killer moves per ply, the last quiet moves which caused a cutoff at that ply;</li>
+ *     <li>a countermove per move, the last quiet move which refuted it;</li>
+ *     <li>a history score per side and per move, raised for the quiet moves which cause cutoffs and lowered for
+ *     the ones searched before them in vain.</li>
+ * </ul>
+ * It also counts the cutoffs of each {@link MovePicker.Stage}, to measure the quality of the ordering:
+ * the more cutoffs on the first move, the closer the search is to the minimal tree.
+ * The tables belong to one search thread: they are not thread-safe.
+ */
+public class MoveOrdering {
+    // bound of the history scores, which the updates approach without exceeding
+    private static final int MAX_HISTORY = 16384;
+    private static final int MAX_BONUS = 400;
+
+    private final int[][] killers = new int[Search.MAX_PLY][2];
+    // indexed by the squares of the refuted move
+    private final int[] countermoves = new int[64 * 64];
+    // indexed by PieceColor.ordinal() then by the squares of the move
+    private final int[][] history = new int[2][64 * 64];
+
+    private final long[] cutoffs = new long[MovePicker.Stage.values().length];
+    private long firstMoveCutoffs;
+    private long movesBeforeCutoffs;
+
+    /**
+     * Prepares a new search: the killers and the statistics are cleared, the history scores are halved so that
+     * they favour what is learnt on the new position.
+     */
+    public void newSearch() {
+        for (int[] ply : killers) {
+            Arrays.fill(ply, Moves.NONE);
+        }
+        for (int[] scores : history) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] /= 2;
+            }
+        }
+        Arrays.fill(cutoffs, 0);
+        firstMoveCutoffs = 0;
+        movesBeforeCutoffs = 0;
+    }
+
+    int killer(int ply, int slot) {
+        return killers[ply][slot];
+    }
+
+    /**
+     * Gets the countermove of a move.
+     *
+     * @param previous the move which led to the position, or {@link Moves#NONE} after a null move or at the root
+     * @return the countermove, or {@link Moves#NONE}
+     */
+    int countermove(int previous) {
+        return previous == Moves.NONE ? Moves.NONE : countermoves[previous & 0xFFF];
+    }
+
+    int[] history(PieceColor side) {
+        return history[side.ordinal()];
+    }
+
+    /**
+     * Records a cutoff in the statistics and, for a quiet move, in the heuristics.
+     *
+     * @param side        the side which played the move
+     * @param ply         the ply of the position
+     * @param previous    the move which led to the position, or {@link Moves#NONE}
+     * @param move        the move which caused the cutoff
+     * @param stage       the stage the move was picked in
+     * @param moveNumber  the number of moves searched before it
+     * @param depth       the remaining depth of the position
+     * @param quiets      the quiet moves searched before it without a cutoff
+     * @param quietCount  the number of these quiet moves
+     */
+    void onCutoff(PieceColor side, int ply, int previous, int move, MovePicker.Stage stage, int moveNumber, int depth,
+                  int[] quiets, int quietCount) {
+        cutoffs[stage.ordinal()]++;
+        movesBeforeCutoffs += moveNumber;
+        if (moveNumber == 0) {
+            firstMoveCutoffs++;
+        }
+        if (!MovePicker.isQuiet(move)) {
+            return;
+        }
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (previous != Moves.NONE) {
+            countermoves[previous & 0xFFF] = move;
+        }
+        int[] scores = history[side.ordinal()];
+        int bonus = Math.min(depth * depth, MAX_BONUS);
+        update(scores, move, bonus);
+        for (int i = 0; i < quietCount; i++) {
+            update(scores, quiets[i], -bonus);
+        }
+    }
+
+    /**
+     * Adds a bonus to a history score, scaled down as the score nears the bound.
+     */
+    private static void update(int[] scores, int move, int bonus) {
+        int index = move & 0xFFF;
+        scores[index] += bonus - scores[index] * Math.abs(bonus) / MAX_HISTORY;
+    }
+
+    /**
+     * Gets the number of cutoffs caused by the moves of a stage since the start of the search.
+     */
+    public long getCutoffs(MovePicker.Stage stage) {
+        return cutoffs[stage.ordinal()];
+    }
+
+    /**
+     * Gets the number of cutoffs since the start of the search.
+     */
+    public long getCutoffs() {
+        long total = 0;
+        for (long count : cutoffs) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the share of the cutoffs caused by the first move searched.
+     * @return the rate, between 0 and 1
+     */
+    public double getFirstMoveCutoffRate() {
+        long total = getCutoffs();
+        return total == 0 ? 0 : (double) firstMoveCutoffs / total;
+    }
+
+    /**
+     * Gets the average number of moves searched in vain before a cutoff, 0 with a perfect ordering.
+     */
+    public double getMovesBeforeCutoff() {
+        long total = getCutoffs();
+        return total == 0 ? 0 : (double) movesBeforeCutoffs / total;
+    }
+}
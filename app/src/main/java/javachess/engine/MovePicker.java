@@ -0,0 +1,264 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.MoveList;
+import javachess.model.Moves;
+import javachess.model.Piece;
+import javachess.model.PieceType;
+
+/**
+ * Hands out the legal moves of a position one at a time, in the order most likely to produce a cutoff early,
+ * stage by stage (see {@link Stage}). The work of each stage is only done when the previous ones did not cut off,
+ * so a node refuted by its hash move never scores its captures, and one refuted by a capture never scores its quiet moves.
+ * <p>
+ * The picker reorders the move list in place. The search keeps one picker per ply, so picking does not allocate.
+ */
+public final class MovePicker {
+    /**
+     * Stages of the move ordering, in the order they are tried.
+     */
+    public enum Stage {
+        /** The best move of a previous search of the position, from the transposition table. */
+        HASH_MOVE,
+        /**
+         * Captures and queen promotions which do not lose material (see {@link Board#see(int)}),
+         * by most valuable victim then least valuable attacker.
+         */
+        GOOD_CAPTURES,
+        /** Quiet moves which caused a cutoff at the same ply in sibling positions. */
+        KILLERS,
+        /** The quiet move which last refuted the move just played by the opponent. */
+        COUNTERMOVE,
+        /** The other quiet moves, by their history score. */
+        QUIETS,
+        /** Captures which lose material and under-promotions. */
+        BAD_CAPTURES
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    // subtracted from the score of the bad tactical moves, so that they come after the good ones
+    private static final int BAD_CAPTURE = 1_000_000;
+
+    private final int[] scores = new int[256];
+    private Board board;
+    private MoveList moves;
+    private int hashMove;
+    private final int[] refutations = new int[3];
+    private int[] history;
+    private boolean tacticalOnly;
+
+    private int stage;
+    private Stage current;
+    // the tactical moves not picked yet are in [next, tacticalEnd), the quiet ones in [nextQuiet, size)
+    private int next;
+    private int tacticalEnd;
+    private int nextQuiet;
+    private int refutation;
+
+    /**
+     * Prepares the picking of all the moves of a position.
+     *
+     * @param board       the board, in the position of the moves
+     * @param moves       the legal moves of the position
+     * @param hashMove    the move to try first, or {@link Moves#NONE}
+     * @param killer1     the first killer move of the ply, or {@link Moves#NONE}
+     * @param killer2     the second killer move of the ply, or {@link Moves#NONE}
+     * @param countermove the countermove of the previous move, or {@link Moves#NONE}
+     * @param history     the history scores of the side to move, indexed by the squares of the moves
+     */
+    void init(Board board, MoveList moves, int hashMove, int killer1, int killer2, int countermove, int[] history) {
+        this.board = board;
+        this.moves = moves;
+        this.hashMove = hashMove;
+        refutations[0] = killer1;
+        refutations[1] = killer2;
+        refutations[2] = countermove;
+        this.history = history;
+        tacticalOnly = false;
+        stage = 0;
+        current = null;
+        next = 0;
+        refutation = 0;
+    }
+
+    /**
+     * Prepares the picking of the good captures and promotions of a position only, for the quiescence search:
+     * the moves of the {@link Stage#BAD_CAPTURES} stage are not picked.
+     *
+     * @param board the board, in the position of the moves
+     * @param moves the legal moves of the position
+     */
+    void initTactical(Board board, MoveList moves) {
+        init(board, moves, Moves.NONE, Moves.NONE, Moves.NONE, Moves.NONE, null);
+        tacticalOnly = true;
+    }
+
+    /**
+     * Picks the next move.
+     *
+     * @return the move, or {@link Moves#NONE} once all of them have been picked
+     */
+    int next() {
+        while (stage < STAGES.length) {
+            Stage candidate = STAGES[stage];
+            int move = switch (candidate) {
+                case HASH_MOVE -> pickHashMove();
+                case GOOD_CAPTURES -> pickTactical(true);
+                case KILLERS, COUNTERMOVE -> pickRefutation(candidate);
+                case QUIETS -> pickQuiet();
+                case BAD_CAPTURES -> pickTactical(false);
+            };
+            if (move != Moves.NONE) {
+                current = candidate;
+                return move;
+            }
+            stage = tacticalOnly && candidate == Stage.GOOD_CAPTURES ? STAGES.length : stage + 1;
+            if (stage < STAGES.length) {
+                enter(STAGES[stage]);
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * Gets the stage of the last move picked.
+     */
+    public Stage getStage() {
+        return current;
+    }
+
+    /**
+     * Prepares the moves of a stage when the previous ones are exhausted.
+     */
+    private void enter(Stage stage) {
+        if (stage == Stage.GOOD_CAPTURES) {
+            partition();
+        } else if (stage == Stage.QUIETS) {
+            for (int i = nextQuiet; i < moves.size(); i++) {
+                scores[i] = history[moves.get(i) & 0xFFF];
+            }
+        }
+    }
+
+    private int pickHashMove() {
+        if (hashMove == Moves.NONE || next > 0) {
+            return Moves.NONE;
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Moves.sameSquares(move, hashMove) && Moves.promotion(move) == Moves.promotion(hashMove)) {
+                moves.swap(0, i);
+                next = 1;
+                return move;
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * Moves the tactical moves not picked yet before the quiet ones, and scores them.
+     */
+    private void partition() {
+        tacticalEnd = next;
+        for (int i = next; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Moves.isCapture(move) || Moves.promotion(move) != null) {
+                moves.swap(tacticalEnd, i);
+                scores[tacticalEnd] = scoreTactical(move);
+                tacticalEnd++;
+            }
+        }
+        nextQuiet = tacticalEnd;
+    }
+
+    private int scoreTactical(int move) {
+        PieceType promotion = Moves.promotion(move);
+        int score = 0;
+        if (Moves.isCapture(move)) {
+            Piece victim = board.getCell(Moves.to(move)).getPiece();
+            // en passant leaves the target square empty
+            int victimValue = Evaluator.PIECE_VALUES[victim == null ? PieceType.PAWN.ordinal() : victim.getType().ordinal()];
+            int attackerValue = Evaluator.PIECE_VALUES[board.getCell(Moves.from(move)).getPiece().getType().ordinal()];
+            score = victimValue * 10 - attackerValue / 10;
+            // taking a more valuable piece wins material whatever follows, the exchange only matters otherwise
+            if (attackerValue > victimValue && board.see(move) < 0) {
+                score -= BAD_CAPTURE;
+            }
+        }
+        if (promotion != null) {
+            score += Evaluator.PIECE_VALUES[promotion.ordinal()];
+            if (promotion != PieceType.QUEEN) {
+                score -= BAD_CAPTURE;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Picks the best scored tactical move left, if it is good (or bad, as asked).
+     */
+    private int pickTactical(boolean good) {
+        int best = pickBest(next, tacticalEnd);
+        if (best < 0 || (good && scores[best] < 0)) {
+            return Moves.NONE;
+        }
+        return take(best, next++);
+    }
+
+    private int pickRefutation(Stage candidate) {
+        int first = candidate == Stage.KILLERS ? 0 : 2;
+        int last = candidate == Stage.KILLERS ? 1 : 2;
+        for (refutation = Math.max(refutation, first); refutation <= last; refutation++) {
+            int move = refutations[refutation];
+            if (move == Moves.NONE || (refutation == 2 && (move == refutations[0] || move == refutations[1]))) {
+                continue;
+            }
+            for (int i = nextQuiet; i < moves.size(); i++) {
+                int quiet = moves.get(i);
+                if (Moves.sameSquares(quiet, move) && Moves.promotion(quiet) == Moves.promotion(move)) {
+                    refutation++;
+                    return take(i, nextQuiet++);
+                }
+            }
+        }
+        return Moves.NONE;
+    }
+
+    private int pickQuiet() {
+        int best = pickBest(nextQuiet, moves.size());
+        return best < 0 ? Moves.NONE : take(best, nextQuiet++);
+    }
+
+    /**
+     * Gets the index of the best scored move in a range, or -1 if the range is empty.
+     */
+    private int pickBest(int start, int end) {
+        int best = start < end ? start : -1;
+        for (int i = start + 1; i < end; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Moves a move and its score to the given index and returns it.
+     */
+    private int take(int index, int target) {
+        if (index != target) {
+            moves.swap(index, target);
+            int score = scores[index];
+            scores[index] = scores[target];
+            scores[target] = score;
+        }
+        return moves.get(target);
+    }
+
+    /**
+     * Checks if a move is neither a capture nor a promotion.
+     */
+    static boolean isQuiet(int move) {
+        return !Moves.isCapture(move) && Moves.promotion(move) == null;
+    }
+}
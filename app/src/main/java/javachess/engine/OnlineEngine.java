@@ -0,0 +1,184 @@
+package javachess.engine;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Engine asking the Stockfish API of stockfish.online, which needs a network connection.
+ * <p>
+ * Requests are sent asynchronously by an {@link HttpClient} shared by every game, which keeps its connections
+ * (HTTP/2 when the server supports it) and runs on virtual threads: no thread is blocked while waiting for an answer.
+ * Requests time out, and failed ones (network errors, server errors, rate limiting) are retried with an exponential backoff.
+ */
+public class OnlineEngine implements BotEngine {
+    /**
+     * Base URL for the Stockfish API.
+     */
+    private static final String BASE_URL = "https://stockfish.online/api/s/v2.php";
+    /**
+     * Maximum depth accepted by the API.
+     */
+    public static final int MAX_DEPTH = 15;
+    /**
+     * Depth used when the search is limited by time, which the API does not support.
+     */
+    private static final int TIMED_DEPTH = 10;
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(20);
+    private static final int MAX_RETRIES = 2;
+    private static final Duration RETRY_BACKOFF = Duration.ofMillis(500);
+
+    private static final Executor VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .executor(VIRTUAL_THREADS)
+            .build();
+
+    private static ThrottledEngine shared;
+
+    private final URI baseUri;
+    private final Duration requestTimeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+
+    public OnlineEngine() {
+        this(URI.create(BASE_URL), REQUEST_TIMEOUT, MAX_RETRIES, RETRY_BACKOFF);
+    }
+
+    /**
+     * @param baseUri        the URL of the API
+     * @param requestTimeout the time the API has to answer a request
+     * @param maxRetries     the number of times a failed request is sent again
+     * @param retryBackoff   the delay before the first retry, doubled for each of the next ones
+     */
+    public OnlineEngine(URI baseUri, Duration requestTimeout, int maxRetries, Duration retryBackoff) {
+        this.baseUri = baseUri;
+        this.requestTimeout = requestTimeout;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Gets the online engine shared by every game, which merges identical requests and keeps under the rate limit
+     * of the API (see {@link ThrottledEngine}). The settings are the ones of the first call.
+     *
+     * @param permitsPerSecond the maximum number of requests per second, also the size of the bursts
+     * @param maxQueued        the maximum number of requests waiting for the rate limit
+     * @param fallback         creates the engine answering the requests which do not fit in the queue
+     * @return the shared engine
+     */
+    public static synchronized BotEngine shared(double permitsPerSecond, int maxQueued, Supplier<BotEngine> fallback) {
+        if (shared == null) {
+            shared = new ThrottledEngine(new OnlineEngine(), fallback.get(), permitsPerSecond,
+                    (int) Math.ceil(permitsPerSecond), maxQueued);
+        }
+        return shared;
+    }
+
+    /**
+     * Fetches the best move from Stockfish API, waiting for the answer.
+     * @param fen The FEN string to analyze.
+     * @param limits The depth for engine to go to (capped to {@link #MAX_DEPTH}), time limits are not supported.
+     * @return The best move as a String, or null if not found.
+     * @throws Exception in case of an HTTP or parsing error.
+     */
+    @Override
+    public String getBestMove(String fen, SearchLimits limits) throws Exception {
+        try {
+            return getBestMoveAsync(fen, limits).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Fetches the best move from Stockfish API without blocking.
+     * @param fen The FEN string to analyze.
+     * @param limits The depth for engine to go to (capped to {@link #MAX_DEPTH}), time limits are not supported.
+     * @return A future completed with the best move, or null if not found, or completed exceptionally
+     * with an {@link IOException} once the retries are exhausted.
+     */
+    @Override
+    public CompletableFuture<String> getBestMoveAsync(String fen, SearchLimits limits) {
+        int depth = limits.getDepth() > 0 ? limits.getDepth() : TIMED_DEPTH;
+        URI uri = URI.create(baseUri + "?fen=" + URLEncoder.encode(fen, StandardCharsets.UTF_8)
+                + "&depth=" + Math.min(depth, MAX_DEPTH));
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(requestTimeout).GET().build();
+        return send(request, 0).thenApply(body -> {
+            String bestMove = new JSONObject(body).optString("bestmove", null);
+            return bestMove == null ? null : bestMove.split(" ")[1];
+        });
+    }
+
+    /**
+     * Sends a request, and sends it again after a delay if it failed and retries are left.
+     *
+     * @return a future completed with the body of the response
+     */
+    private CompletableFuture<String> send(HttpRequest request, int attempt) {
+        return CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                        // network errors and timeouts
+                        return cause instanceof IOException error ? retry(request, attempt, error) : CompletableFuture.<String>failedFuture(cause);
+                    }
+                    int status = response.statusCode();
+                    if (status == 200) {
+                        return CompletableFuture.completedFuture(response.body());
+                    }
+                    IOException error = new IOException("HTTP GET Request Failed with Error code: " + status);
+                    // client errors other than rate limiting would fail again
+                    return status == 429 || status >= 500 ? retry(request, attempt, error) : CompletableFuture.<String>failedFuture(error);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<String> retry(HttpRequest request, int attempt, IOException error) {
+        if (attempt >= maxRetries) {
+            return CompletableFuture.failedFuture(error);
+        }
+        long delay = retryBackoff.toMillis() << attempt;
+        Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, VIRTUAL_THREADS);
+        return CompletableFuture.supplyAsync(() -> null, delayed).thenCompose(ignored -> send(request, attempt + 1));
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return testConnection(baseUri);
+    }
+
+    public static boolean testConnection() {
+        return testConnection(URI.create(BASE_URL));
+    }
+
+    private static boolean testConnection(URI uri) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(CONNECT_TIMEOUT).GET().build();
+            return CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.MoveList;
+import javachess.model.Moves;
+import javachess.model.PieceType;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Opening book stored in the <a href="http://hgm.nubati.net/book_format.html">Polyglot</a> binary layout,
+ * read through a file mapped in memory.
+ * <p>
+ * The file is a sequence of 16-byte big-endian entries sorted by key: position key (8 bytes), move (2),
+ * weight (2) and learning data (4, unused). A move packs the target file (bits 0-2) and rank (3-5), the origin file
+ * (6-8) and rank (9-11) and the promotion piece (12-14: none, knight, bishop, rook, queen); castling is stored as
+ * the king taking its own rook. Unlike Polyglot, the keys are the Zobrist hashes of {@link Board#hash()}:
+ * the books must be made by {@link OpeningBookBuilder}. Their first entry is a marker (key 0, move {@link #FORMAT_VERSION},
+ * weight 0, learning data {@link #MAGIC}) which the Polyglot books do not have: a book made by another tool is rejected,
+ * its positions would not be found.
+ */
+public class OpeningBook {
+    static final int ENTRY_BYTES = 16;
+    static final int MAGIC = 0x4A43424B; // "JCBK"
+    static final int FORMAT_VERSION = 1;
+    private static final PieceType[] PROMOTIONS = {null, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    /**
+     * Move of a position found in the book.
+     *
+     * @param move   the encoded move (see {@link Moves})
+     * @param weight the weight of the move, the probability of choosing it being proportional to it
+     */
+    public record BookMove(int move, int weight) {
+    }
+
+    private final MappedByteBuffer entries;
+    private final int count;
+    private final MoveList legalMoves = new MoveList();
+
+    /**
+     * Opens a book.
+     *
+     * @param file the book file
+     * @throws IOException if the file could not be read, is not made of whole entries or was not made by
+     *                     {@link OpeningBookBuilder}
+     */
+    public OpeningBook(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < ENTRY_BYTES || channel.size() % ENTRY_BYTES != 0 || channel.size() / ENTRY_BYTES > Integer.MAX_VALUE) {
+                throw new IOException("Invalid opening book size: " + channel.size());
+            }
+            MappedByteBuffer marker = channel.map(FileChannel.MapMode.READ_ONLY, 0, ENTRY_BYTES);
+            marker.order(ByteOrder.BIG_ENDIAN);
+            if (marker.getLong(0) != 0 || marker.getInt(12) != MAGIC) {
+                throw new IOException("Not an opening book of this application (Polyglot books are keyed differently): " + file);
+            }
+            if ((marker.getShort(8) & 0xFFFF) != FORMAT_VERSION) {
+                throw new IOException("Unsupported opening book version " + (marker.getShort(8) & 0xFFFF) + ": " + file);
+            }
+            count = (int) (channel.size() / ENTRY_BYTES) - 1;
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, ENTRY_BYTES, channel.size() - ENTRY_BYTES);
+            entries.order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+
+    /**
+     * Gets the number of entries of the book.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the moves of the book for a position, ignoring the ones which are not legal (hash collisions).
+     *
+     * @param board the position
+     * @return the moves with their weights, empty if the position is not in the book
+     */
+    public synchronized List<BookMove> getMoves(Board board) {
+        List<BookMove> moves = new ArrayList<>();
+        long key = board.hash();
+        board.generateLegalMoves(board.getSideToMove(), legalMoves);
+        for (int index = lowerBound(key); index < count && keyAt(index) == key; index++) {
+            int offset = index * ENTRY_BYTES;
+            int move = toLegalMove(entries.getShort(offset + 8) & 0xFFFF);
+            int weight = entries.getShort(offset + 10) & 0xFFFF;
+            if (move != Moves.NONE && weight > 0) {
+                moves.add(new BookMove(move, weight));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Chooses a move of the book for a position, at random with probabilities proportional to the weights.
+     *
+     * @param board  the position
+     * @param random the random generator
+     * @return the encoded move, or {@link Moves#NONE} if the position is not in the book
+     */
+    public int pickMove(Board board, RandomGenerator random) {
+        List<BookMove> moves = getMoves(board);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) {
+            return Moves.NONE;
+        }
+        int pick = random.nextInt(total);
+        for (BookMove move : moves) {
+            pick -= move.weight();
+            if (pick < 0) {
+                return move.move();
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * Finds the first entry whose key is not lower than the given one, comparing keys as unsigned numbers like Polyglot.
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    /**
+     * Finds the legal move of the position corresponding to a move of the book.
+     * The legal moves of the position must be in {@link #legalMoves}.
+     */
+    private int toLegalMove(int bookMove) {
+        int to = toSquare(bookMove & 0x3F);
+        int from = toSquare((bookMove >> 6) & 0x3F);
+        int promotionIndex = (bookMove >> 12) & 7;
+        PieceType promotion = promotionIndex < PROMOTIONS.length ? PROMOTIONS[promotionIndex] : null;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            if (Moves.from(move) != from || Moves.promotion(move) != promotion) {
+                continue;
+            }
+            if (Moves.to(move) == to) {
+                return move;
+            }
+            // the king takes its own rook: the rook is on the side the king moves to
+            if (Moves.isCastling(move) && (to >> 3) == (from >> 3) && Integer.signum(to - from) == Integer.signum(Moves.to(move) - from)) {
+                return move;
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * Converts a Polyglot square (rank 1 first) to a board index (rank 8 first).
+     */
+    static int toSquare(int polyglotSquare) {
+        return polyglotSquare ^ 56;
+    }
+
+    /**
+     * Encodes a move in the Polyglot layout.
+     *
+     * @param move the encoded move (see {@link Moves})
+     * @return the book move
+     */
+    static int toBookMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        if (Moves.isCastling(move)) {
+            // the king takes its own rook, on the a or h file
+            to = (to & ~7) | (to > from ? 7 : 0);
+        }
+        int promotion = 0;
+        PieceType type = Moves.promotion(move);
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == type) {
+                promotion = i;
+            }
+        }
+        return toSquare(to) | toSquare(from) << 6 | promotion << 12;
+    }
+}
@@ -0,0 +1,225 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.MoveList;
+import javachess.model.Moves;
+import javachess.model.PieceColor;
+import javachess.model.PieceType;
+import javachess.model.Undo;
+import javachess.parser.CastlingInstruction;
+import javachess.parser.Instruction;
+import javachess.parser.Parser;
+import javachess.parser.RegularInstruction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} from PGN games, parsed with {@link Parser}.
+ * <p>
+ * The first moves of every game are replayed, and each move gets 2 points when its side won the game,
+ * 1 point for a draw or an unknown result, and none when it lost: the moves of the book are chosen
+ * proportionally to their points.
+ * <p>
+ * Usage: {@code book [--plies=N] <output.bin> <games.pgn>...}
+ */
+public class OpeningBookBuilder {
+    /**
+     * Number of moves of each side read from each game by default.
+     */
+    public static final int DEFAULT_PLIES = 24;
+
+    private final int maxPlies;
+    // position key -> book move -> weight
+    private final Map<Long, Map<Integer, Integer>> weights = new HashMap<>();
+    private int games;
+    private int skipped;
+
+    public OpeningBookBuilder() {
+        this(DEFAULT_PLIES);
+    }
+
+    /**
+     * @param maxPlies the number of half-moves read from each game
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int plies = DEFAULT_PLIES;
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--plies=")) {
+                plies = Integer.parseInt(arg.substring("--plies=".length()));
+            } else {
+                files.add(arg);
+            }
+        }
+        if (files.size() < 2) {
+            System.err.println("Usage: book [--plies=N] <output.bin> <games.pgn>...");
+            return;
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        for (String file : files.subList(1, files.size())) {
+            builder.addPgn(Files.readString(Path.of(file)));
+        }
+        int entries = builder.write(Path.of(files.getFirst()));
+        System.out.println(builder.getGames() + " games (" + builder.getSkipped() + " skipped), " + entries
+                + " book entries written to " + files.getFirst());
+    }
+
+    /**
+     * Adds the games of a PGN text: header sections, each followed by the moves of the game.
+     *
+     * @param pgn the content of a PGN file
+     */
+    public void addPgn(String pgn) {
+        Parser parser = new Parser();
+        String result = "*";
+        for (String section : pgn.replace("\r", "").split("\n\\s*\n")) {
+            section = section.strip();
+            if (section.isEmpty()) {
+                continue;
+            }
+            if (section.startsWith("[")) {
+                result = parser.getHeaders(section).getOrDefault("Result", "*");
+            } else {
+                try {
+                    addGame(parser.getMoves(section), result);
+                } catch (RuntimeException e) {
+                    // move text the parser does not understand
+                    skipped++;
+                }
+                result = "*";
+            }
+        }
+    }
+
+    /**
+     * Adds the first moves of a game. The game is read until its first move which cannot be played.
+     *
+     * @param instructions the moves of the game, from the starting position
+     * @param result       the result of the game ("1-0", "0-1", "1/2-1/2" or "*")
+     */
+    public void addGame(List<Instruction> instructions, String result) {
+        Board board = new Board();
+        MoveList legalMoves = new MoveList();
+        Undo undo = new Undo();
+        games++;
+        for (int ply = 0; ply < Math.min(maxPlies, instructions.size()); ply++) {
+            board.generateLegalMoves(board.getSideToMove(), legalMoves);
+            int move = resolve(instructions.get(ply), legalMoves, board);
+            if (move == Moves.NONE) {
+                return;
+            }
+            int points = points(result, board.getSideToMove());
+            if (points > 0) {
+                weights.computeIfAbsent(board.hash(), key -> new HashMap<>())
+                        .merge(OpeningBook.toBookMove(move), points, Integer::sum);
+            }
+            board.makeMove(move, undo);
+        }
+    }
+
+    private static int points(String result, PieceColor side) {
+        return switch (result) {
+            case "1-0" -> side == PieceColor.WHITE ? 2 : 0;
+            case "0-1" -> side == PieceColor.BLACK ? 2 : 0;
+            default -> 1;
+        };
+    }
+
+    /**
+     * Finds the legal move described by a parsed PGN move.
+     *
+     * @return the encoded move, or {@link Moves#NONE} if none or several legal moves match
+     */
+    private static int resolve(Instruction instruction, MoveList legalMoves, Board board) {
+        int found = Moves.NONE;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            if (matches(instruction, move, board)) {
+                if (found != Moves.NONE) {
+                    return Moves.NONE;
+                }
+                found = move;
+            }
+        }
+        return found;
+    }
+
+    private static boolean matches(Instruction instruction, int move, Board board) {
+        if (instruction instanceof CastlingInstruction(boolean isLongCastling, PieceColor ignored)) {
+            return Moves.isCastling(move) && (Moves.to(move) < Moves.from(move)) == isLongCastling;
+        }
+        RegularInstruction regular = (RegularInstruction) instruction;
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        if (Moves.isCastling(move) || to != regular.getTo().getIndex() || Moves.promotion(move) != regular.getPromoteTo()) {
+            return false;
+        }
+        PieceType type = board.getCell(from).getPiece().getType();
+        if (type != regular.getPieceType()) {
+            return false;
+        }
+        Character ambiguity = regular.getAmbiguity();
+        if (ambiguity == null) {
+            return true;
+        }
+        if (ambiguity >= 'a' && ambiguity <= 'h') {
+            return (from & 7) == ambiguity - 'a';
+        }
+        return (from >> 3) == '8' - ambiguity;
+    }
+
+    /**
+     * Writes the book, sorted by key, after the marker entry telling that it was made by this builder.
+     *
+     * @param file the book file
+     * @return the number of entries written, without the marker
+     * @throws IOException if the file could not be written
+     */
+    public int write(Path file) throws IOException {
+        List<Long> keys = new ArrayList<>(weights.keySet());
+        keys.sort(Long::compareUnsigned);
+        int entries = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeLong(0);
+            out.writeShort(OpeningBook.FORMAT_VERSION);
+            out.writeShort(0);
+            out.writeInt(OpeningBook.MAGIC);
+            for (long key : keys) {
+                for (Map.Entry<Integer, Integer> move : weights.get(key).entrySet()) {
+                    out.writeLong(key);
+                    out.writeShort(move.getKey());
+                    out.writeShort(Math.min(move.getValue(), 0xFFFF));
+                    out.writeInt(0);
+                    entries++;
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Gets the number of games added.
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of games whose moves could not be parsed.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,290 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.Moves;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Multi-threaded search in the "Lazy SMP" style: every thread searches the same position on its own board,
+ * and they only cooperate through the shared {@link TranspositionTable}. Half of the helper threads start one ply
+ * deeper so that they do not all follow the main thread, whose result is the one returned.
+ */
+public class ParallelSearch {
+    private final TranspositionTable table;
+    // one board, pawn table and search (with its move ordering) per thread, kept from one search to the next
+    private final Board[] boards;
+    private final PawnTable[] pawnTables;
+    private final Search[] threadSearches;
+    private final int threads;
+    // runs the helper threads, created on the first search with more than one thread
+    private ExecutorService executor;
+    // the searches of the threads once the first search is started
+    private volatile Search[] searches = new Search[0];
+    // set by stop(), cleared when a search is started, so that a stop request sent before its threads run is not lost
+    private volatile boolean stopRequested;
+    private SearchListener listener;
+    private Tablebases tablebases;
+    private int multiPv = 1;
+    private long[] history = new long[0];
+
+    private long nodes;
+    private int bestScore;
+    private int completedDepth;
+
+    /**
+     * @param threads the number of search threads, including the calling one
+     * @param table   the transposition table shared by the threads
+     */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        this.threads = Math.max(1, threads);
+        this.table = table;
+        this.boards = new Board[this.threads];
+        this.pawnTables = new PawnTable[this.threads];
+        this.threadSearches = new Search[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            boards[i] = new Board();
+            pawnTables[i] = new PawnTable();
+            threadSearches[i] = new Search(boards[i], table, pawnTables[i]);
+        }
+    }
+
+    /**
+     * Searches a position up to the given depth.
+     *
+     * @param fen   the position, in FEN
+     * @param depth the maximum depth in plies
+     * @return the best move found, or {@link Moves#NONE} if the side to move has no legal move
+     */
+    public int search(String fen, int depth) {
+        return search(fen, SearchLimits.depth(depth));
+    }
+
+    /**
+     * Searches a position within the given limits, which apply to the main thread: the helpers have none
+     * and are stopped when it is done.
+     *
+     * @param fen    the position, in FEN
+     * @param limits the limits of the search
+     * @return the best move found, or {@link Moves#NONE} if the side to move has no legal move
+     */
+    public int search(String fen, SearchLimits limits) {
+        stopRequested = false;
+        return run(fen, limits);
+    }
+
+    /**
+     * Searches a position within the given limits on a new thread. A {@link #stop()} sent once this method has returned
+     * stops this search, even if its thread has not started searching yet.
+     *
+     * @param fen    the position, in FEN
+     * @param limits the limits of the search
+     * @return a future completed with the best move found, or {@link Moves#NONE} if the side to move has no legal move
+     */
+    public CompletableFuture<Integer> searchAsync(String fen, SearchLimits limits) {
+        stopRequested = false;
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(run(fen, limits));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, "search");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    private int run(String fen, SearchLimits limits) {
+        Search[] current = threadSearches;
+        for (int i = 0; i < threads; i++) {
+            boards[i].loadFEN(fen);
+            current[i].setTablebases(tablebases);
+            current[i].setHistory(history);
+            current[i].clearStop();
+        }
+        current[0].setListener(listener);
+        current[0].setMultiPv(multiPv);
+        searches = current;
+        // a stop() sent while the searches were set up may have been cleared above
+        if (stopRequested) {
+            for (Search search : current) {
+                search.stop();
+            }
+        }
+        table.newSearch();
+
+        ArrayList<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            Search helper = current[i];
+            int startDepth = 1 + (i & 1);
+            SearchLimits helperLimits = SearchLimits.depth(limits.getDepth() > 0 ? limits.getDepth() + startDepth - 1 : 0);
+            helpers.add(executor().submit(() -> helper.search(startDepth, helperLimits)));
+        }
+        int move;
+        try {
+            move = current[0].search(1, limits);
+        } finally {
+            for (int i = 1; i < threads; i++) {
+                current[i].stop();
+            }
+            awaitHelpers(helpers);
+        }
+
+        nodes = 0;
+        for (Search search : current) {
+            nodes += search.getNodes();
+        }
+        bestScore = current[0].getBestScore();
+        completedDepth = current[0].getCompletedDepth();
+        return move;
+    }
+
+    /**
+     * Waits for the helper threads to end.
+     *
+     * @throws RuntimeException the exception of a helper which failed, wrapped in an {@link IllegalStateException}
+     *                          if it is not a runtime exception
+     */
+    private static void awaitHelpers(ArrayList<Future<?>> helpers) {
+        RuntimeException failure = null;
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException("Search helper failed", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the search helpers", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Asks the running search to stop as soon as possible. Can be called from another thread.
+     */
+    public void stop() {
+        stopRequested = true;
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    /**
+     * Sets the listener notified at the end of each iteration of the main thread.
+     *
+     * @param listener the listener, or null
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the number of principal variations searched by the main thread, the helpers only help with the first one.
+     *
+     * @param multiPv the number of lines, 1 by default
+     */
+    public void setMultiPv(int multiPv) {
+        this.multiPv = Math.max(1, multiPv);
+    }
+
+    /**
+     * Sets the positions of the game played before the next positions searched (see {@link Search#setHistory(long[])}).
+     *
+     * @param history the hashes of the positions, oldest first
+     */
+    public void setHistory(long[] history) {
+        this.history = history;
+    }
+
+    /**
+     * Sets the tablebases probed by the threads.
+     *
+     * @param tablebases the tablebases, or null
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Stops the helper threads for good.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Gets the number of nodes searched by all the threads during the last search.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the pawn table of the main thread.
+     */
+    public PawnTable getPawnTable() {
+        return pawnTables[0];
+    }
+
+    /**
+     * Gets the principal variation of the last search of the main thread.
+     *
+     * @param maxLength the maximum number of moves
+     * @return the moves of the variation, none before the first search
+     */
+    public int[] getPrincipalVariation(int maxLength) {
+        Search[] current = searches;
+        return current.length == 0 ? new int[0] : current[0].getPrincipalVariation(maxLength);
+    }
+
+    /**
+     * Gets the move ordering heuristics of the main thread, with the cutoff statistics of its last search.
+     *
+     * @return the move ordering, or null before the first search
+     */
+    public MoveOrdering getMoveOrdering() {
+        Search[] current = searches;
+        return current.length == 0 ? null : current[0].getMoveOrdering();
+    }
+}
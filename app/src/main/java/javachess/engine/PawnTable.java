@@ -0,0 +1,99 @@
+package javachess.engine;
+
+/**
+ * Fixed-size cache of the pawn structure terms of the evaluation, keyed on the pawn hash of the positions
+ * (see {@link javachess.model.Board#pawnHash()}). Pawns move rarely, so most evaluations find their pawn terms here
+ * and only pawn moves pay for the analysis.
+ * <p>
+ * Each slot holds the key and the packed middlegame and endgame scores of the last position stored in it.
+ * An empty slot holds a key and scores of 0, which are the ones of the positions without pawns.
+ * A table belongs to one search thread: it is not thread-safe.
+ */
+public class PawnTable {
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+    /**
+     * Result of {@link #probe(long)} for a position not in the table.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private final long[] keys;
+    private final long[] scores;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    public PawnTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    /**
+     * @param entries the number of entries, rounded down to a power of two
+     */
+    public PawnTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[size];
+        scores = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Looks for the pawn terms of a position.
+     *
+     * @param key the pawn hash of the position
+     * @return the scores packed by {@link #pack(int, int)}, or {@link #MISSING}
+     */
+    public long probe(long key) {
+        probes++;
+        int index = (int) key & mask;
+        if (keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+        return MISSING;
+    }
+
+    /**
+     * Stores the pawn terms of a position, replacing the entry in its slot.
+     *
+     * @param key    the pawn hash of the position
+     * @param scores the scores packed by {@link #pack(int, int)}
+     */
+    public void store(long key, long scores) {
+        int index = (int) key & mask;
+        keys[index] = key;
+        this.scores[index] = scores;
+    }
+
+    public static long pack(int middlegame, int endgame) {
+        return (long) middlegame << 32 | (endgame & 0xFFFFFFFFL);
+    }
+
+    public static int middlegame(long scores) {
+        return (int) (scores >> 32);
+    }
+
+    public static int endgame(long scores) {
+        return (int) scores;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the share of the probes which found their position.
+     * @return the hit rate, between 0 and 1
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+}
@@ -0,0 +1,604 @@
+package javachess.engine;
+
+import javachess.model.*;
+
+import java.util.Arrays;
+
+/**
+ * Alpha-beta search over a {@link Board}: negamax with principal variation search, iterative deepening
+ * (to a depth or within a time budget, see {@link SearchLimits}), quiescence search on the captures which do not lose material,
+ * null-move pruning and late move reductions. The moves are ordered by a {@link MovePicker} with the heuristics
+ * of a {@link MoveOrdering}.
+ * <p>
+ * With several principal variations (see {@link #setMultiPv(int)}), each iteration searches the root again for every
+ * line, leaving out the first moves of the lines already found.
+ * <p>
+ * The search plays the moves on the board with {@link Board#makeMove(int, Undo)} and takes them back,
+ * with one move list and one undo record per ply, so a search does not allocate once started.
+ * The board is left as it was found when the search returns.
+ * Results are shared through a {@link TranspositionTable}, which can be kept from one search to the next.
+ */
+public class Search {
+    public static final int MATE = 30000;
+    public static final int INFINITE = 32000;
+    public static final int MAX_PLY = 128;
+
+    private static final int NULL_MOVE_REDUCTION = 2;
+
+    private final Board board;
+    private final TranspositionTable table;
+    private final Evaluator evaluator;
+    private final MoveOrdering ordering = new MoveOrdering();
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    // quiet moves searched at each ply without a cutoff, whose history is lowered when another move cuts off
+    private final int[][] quietsSearched = new int[MAX_PLY][];
+    private final Undo[] undos = new Undo[MAX_PLY];
+    // move played at each ply, Moves.NONE for a null move
+    private final int[] playedMoves = new int[MAX_PLY];
+    // hash of the positions from the root to the current ply, to detect repetitions
+    private final long[] hashes = new long[MAX_PLY + 1];
+    // hash of the positions of the game before the root, oldest first, for the repetitions of the game
+    private long[] history = new long[0];
+    private int ply;
+
+    private long nodes;
+    private int bestMove;
+    private int bestScore;
+    // number of lines searched, and the first move and score of each of them at the last iteration
+    private int multiPv = 1;
+    private int[] lineMoves = new int[1];
+    private int[] lineScores = new int[1];
+    // first moves of the lines already found at the current iteration, left out at the root
+    private int excludedMoves;
+    private int rootHashMove;
+    private int rootMove;
+    private int completedDepth;
+    private long hardDeadline = Long.MAX_VALUE;
+    private long nodeLimit;
+    private SearchListener listener;
+    private Tablebases tablebases;
+    private volatile boolean stopped;
+
+    /**
+     * Creates a search on the given board with its own transposition table.
+     *
+     * @param board the board to search
+     */
+    public Search(Board board) {
+        this(board, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    /**
+     * Creates a search on the given board, which must not be modified by anyone else during a search.
+     *
+     * @param board the board to search
+     * @param table the transposition table to use
+     */
+    public Search(Board board, TranspositionTable table) {
+        this(board, table, new PawnTable());
+    }
+
+    /**
+     * Creates a search on the given board, which must not be modified by anyone else during a search.
+     *
+     * @param board     the board to search
+     * @param table     the transposition table to use
+     * @param pawnTable the cache of the pawn structure evaluation, which cannot be shared with another thread
+     */
+    public Search(Board board, TranspositionTable table, PawnTable pawnTable) {
+        this.board = board;
+        this.table = table;
+        this.evaluator = new Evaluator(pawnTable);
+        for (int i = 0; i < MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+            pickers[i] = new MovePicker();
+            quietsSearched[i] = new int[256];
+            undos[i] = new Undo();
+        }
+    }
+
+    /**
+     * Searches the position of the board with iterative deepening, up to the given depth.
+     *
+     * @param maxDepth the maximum depth in plies
+     * @return the best move found, encoded with {@link Moves}, or {@link Moves#NONE} if the side to move has no legal move
+     */
+    public int search(int maxDepth) {
+        return search(SearchLimits.depth(maxDepth));
+    }
+
+    /**
+     * Searches the position of the board with iterative deepening, within the given limits.
+     * With a time limit, no iteration is started after the soft deadline and the search is interrupted at the
+     * hard deadline; the first iteration is always completed so that there is a move to play. A search stopped by
+     * {@link #stop()} before that returns the best root move searched so far, or the first legal move.
+     *
+     * @param limits the limits of the search
+     * @return the best move found, encoded with {@link Moves}, or {@link Moves#NONE} if the side to move has no legal move
+     */
+    public int search(SearchLimits limits) {
+        table.newSearch();
+        stopped = false;
+        return search(1, limits);
+    }
+
+    /**
+     * Searches with iterative deepening from the given depth, without starting a new age in the transposition table
+     * nor clearing a previous {@link #stop()} request (so that a helper thread stopped before it started does not run).
+     * Used by the threads of a {@link ParallelSearch}.
+     *
+     * @param startDepth the depth of the first iteration
+     * @param limits     the limits of the search
+     * @return the best move found, or {@link Moves#NONE}
+     */
+    int search(int startDepth, SearchLimits limits) {
+        nodes = 0;
+        ordering.newSearch();
+        bestMove = Moves.NONE;
+        bestScore = 0;
+        completedDepth = 0;
+        ply = 0;
+        long start = System.nanoTime();
+        PieceColor side = board.getSideToMove();
+        board.generateLegalMoves(side, moveLists[0]);
+        int lines = Math.max(1, Math.min(multiPv, moveLists[0].size()));
+        Arrays.fill(lineMoves, Moves.NONE);
+        Arrays.fill(lineScores, 0);
+        long softDeadline = deadline(start, limits.getSoftLimit(side));
+        hardDeadline = deadline(start, limits.getHardLimit(side));
+        nodeLimit = limits.getNodes();
+        int maxDepth = limits.getDepth() > 0 ? Math.min(limits.getDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+        for (int depth = Math.max(startDepth, 1); depth <= maxDepth; depth++) {
+            int previousBest = bestMove;
+            for (int line = 0; line < lines && !stopped; line++) {
+                excludedMoves = line;
+                rootHashMove = lineMoves[line];
+                rootMove = Moves.NONE;
+                int score = negamax(depth, -INFINITE, INFINITE, false);
+                if (!stopped) {
+                    lineMoves[line] = rootMove;
+                    lineScores[line] = score;
+                }
+            }
+            if (stopped) {
+                // an interrupted iteration is only trusted for the moves it already searched
+                if (bestMove == Moves.NONE) {
+                    bestMove = previousBest;
+                }
+                break;
+            }
+            if (lines > 1) {
+                sortLines(lines);
+                bestMove = lineMoves[0];
+            }
+            int score = lineScores[0];
+            bestScore = score;
+            completedDepth = depth;
+            if (listener != null) {
+                long time = (System.nanoTime() - start) / 1_000_000;
+                for (int line = 0; line < lines; line++) {
+                    listener.onIteration(new SearchInfo(depth, lineScores[line], nodes, time,
+                            principalVariation(lineMoves[line], depth), table.hashFull(), line + 1));
+                }
+            }
+            if (bestMove == Moves.NONE || Math.abs(score) >= MATE - MAX_PLY || System.nanoTime() >= softDeadline) {
+                break;
+            }
+        }
+        if (bestMove == Moves.NONE && moveLists[0].size() > 0) {
+            // stopped before any root move was searched: any legal move is better than none
+            bestMove = moveLists[0].get(0);
+        }
+        return bestMove;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. Can be called from another thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Clears a previous {@link #stop()} request, before reusing the search with {@link #search(int, SearchLimits)}.
+     */
+    void clearStop() {
+        stopped = false;
+    }
+
+    private static long deadline(long start, long millis) {
+        return millis == Long.MAX_VALUE ? Long.MAX_VALUE : start + millis * 1_000_000;
+    }
+
+    /**
+     * Stops the search once the node limit or the hard deadline is passed (the time is checked every few thousand nodes).
+     */
+    private void checkLimits() {
+        if (completedDepth == 0) {
+            return;
+        }
+        if (nodeLimit > 0 && nodes >= nodeLimit) {
+            stopped = true;
+        } else if ((nodes & 2047) == 0 && hardDeadline != Long.MAX_VALUE && System.nanoTime() >= hardDeadline) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Sets the listener notified at the end of each iteration.
+     *
+     * @param listener the listener, or null
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the number of principal variations searched, the best moves of the position with their scores.
+     * Each line is reported to the listener at the end of each iteration; the search plays the first one.
+     *
+     * @param multiPv the number of lines, 1 by default
+     */
+    public void setMultiPv(int multiPv) {
+        this.multiPv = Math.max(1, multiPv);
+        lineMoves = new int[this.multiPv];
+        lineScores = new int[this.multiPv];
+    }
+
+    /**
+     * Sets the positions played before the position of the board, so that the search sees the repetitions of the game
+     * and not only the ones of its own lines.
+     *
+     * @param history the hashes of the positions (see {@link Board#hash()}), oldest first, the last one being the
+     *                position before the board
+     */
+    public void setHistory(long[] history) {
+        this.history = history;
+    }
+
+    /**
+     * Sets the tablebases probed instead of searching the positions with few pieces.
+     *
+     * @param tablebases the tablebases, or null
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Gets the principal variation of the position of the board, by following the best moves stored in the
+     * transposition table (the first one being the best move of the search).
+     *
+     * @param maxLength the maximum number of moves
+     * @return the moves of the variation
+     */
+    public int[] getPrincipalVariation(int maxLength) {
+        return principalVariation(bestMove, maxLength);
+    }
+
+    /**
+     * Gets the variation starting with the given move, followed by the best moves stored in the transposition table.
+     */
+    private int[] principalVariation(int first, int maxLength) {
+        int[] pv = new int[Math.min(maxLength, MAX_PLY)];
+        int length = 0;
+        int move = first;
+        while (move != Moves.NONE && length < pv.length) {
+            // moves from the table may come from another position with the same index, check them
+            move = board.findLegalMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+            if (move == Moves.NONE) {
+                break;
+            }
+            pv[length] = move;
+            board.makeMove(move, undos[length]);
+            length++;
+            move = TranspositionTable.move(table.probe(board.hash()));
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            board.unmakeMove(undos[i]);
+        }
+        return Arrays.copyOf(pv, length);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the score of the last completed iteration.
+     * @return the score in centipawns from the point of view of the side to move, or a mate score
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public PawnTable getPawnTable() {
+        return evaluator.getPawnTable();
+    }
+
+    /**
+     * Gets the move ordering heuristics, with the cutoff statistics of the last search.
+     */
+    public MoveOrdering getMoveOrdering() {
+        return ordering;
+    }
+
+    private int negamax(int depth, int alpha, int beta, boolean nullAllowed) {
+        hashes[ply] = board.hash();
+        if (ply > 0 && isDraw()) {
+            return 0;
+        }
+        if (ply > 0 && tablebases != null && Long.bitCount(board.getOccupancy()) <= tablebases.getMaxPieces()) {
+            int score = tablebases.probeScore(board, ply);
+            if (score != Integer.MIN_VALUE) {
+                nodes++;
+                return score;
+            }
+        }
+        PieceColor side = board.getSideToMove();
+        boolean inCheck = board.isCheck(side);
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(alpha, beta);
+        }
+        nodes++;
+        checkLimits();
+        if (ply >= MAX_PLY - 1) {
+            return evaluator.evaluate(board);
+        }
+
+        long entry = table.probe(hashes[ply]);
+        // at the root, the best move of the previous iteration is searched first
+        int hashMove = ply == 0 && rootHashMove != Moves.NONE ? rootHashMove : TranspositionTable.move(entry);
+        if (entry != 0 && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.score(entry));
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                return score;
+            }
+        }
+
+        // null move: if passing still fails high, a real move would too
+        if (nullAllowed && !inCheck && depth > NULL_MOVE_REDUCTION && beta < MATE - MAX_PLY && hasPieces(side)) {
+            board.makeNullMove(undos[ply]);
+            playedMoves[ply] = Moves.NONE;
+            ply++;
+            int score = -negamax(depth - 1 - NULL_MOVE_REDUCTION, -beta, -beta + 1, false);
+            ply--;
+            board.unmakeNullMove(undos[ply]);
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return beta;
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        board.generateLegalMoves(side, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int previous = ply > 0 ? playedMoves[ply - 1] : Moves.NONE;
+        MovePicker picker = pickers[ply];
+        picker.init(board, moves, hashMove, ordering.killer(ply, 0), ordering.killer(ply, 1),
+                ordering.countermove(previous), ordering.history(side));
+
+        int originalAlpha = alpha;
+        int best = -INFINITE;
+        int bestLocalMove = Moves.NONE;
+        Undo undo = undos[ply];
+        int[] quiets = quietsSearched[ply];
+        int quietCount = 0;
+        int move;
+        int i = -1;
+        while ((move = picker.next()) != Moves.NONE) {
+            if (ply == 0 && isExcluded(move)) {
+                continue;
+            }
+            i++;
+            boolean quiet = MovePicker.isQuiet(move);
+            board.makeMove(move, undo);
+            playedMoves[ply] = move;
+            ply++;
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, -beta, -alpha, true);
+            } else {
+                // late quiet moves are searched shallower first, and again at full depth if they look good
+                int reduction = quiet && !inCheck && depth >= 3 && i >= 3 ? (i >= 8 ? 2 : 1) : 0;
+                score = -negamax(depth - 1 - reduction, -alpha - 1, -alpha, true);
+                if (score > alpha && reduction > 0) {
+                    score = -negamax(depth - 1, -alpha - 1, -alpha, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, -beta, -alpha, true);
+                }
+            }
+            ply--;
+            board.unmakeMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestLocalMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (ply == 0) {
+                        rootMove = move;
+                        if (excludedMoves == 0) {
+                            bestMove = move;
+                        }
+                    }
+                    if (alpha >= beta) {
+                        ordering.onCutoff(side, ply, previous, move, picker.getStage(), i, depth, quiets, quietCount);
+                        break;
+                    }
+                }
+            }
+            if (quiet) {
+                quiets[quietCount++] = move;
+            }
+        }
+        if (ply == 0 && excludedMoves > 0) {
+            // the score of the root without its best moves is not the one of the position
+            return best;
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(hashes[ply], bound == TranspositionTable.UPPER_BOUND ? Moves.NONE : bestLocalMove, scoreToTable(best), depth, bound);
+        return best;
+    }
+
+    /**
+     * Converts a mate score relative to the root to a score relative to the current position, to be stored.
+     */
+    private int scoreToTable(int score) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a stored mate score back to a score relative to the root.
+     */
+    private int scoreFromTable(int score) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Searches the captures (and the check evasions) until the position is quiet, to avoid evaluating
+     * in the middle of an exchange.
+     */
+    private int quiescence(int alpha, int beta) {
+        nodes++;
+        checkLimits();
+        PieceColor side = board.getSideToMove();
+        boolean inCheck = board.isCheck(side);
+        int best = -INFINITE;
+        if (!inCheck) {
+            best = evaluator.evaluate(board);
+            if (best >= beta || ply >= MAX_PLY - 1) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        } else if (ply >= MAX_PLY - 1) {
+            return evaluator.evaluate(board);
+        }
+
+        MoveList moves = moveLists[ply];
+        board.generateLegalMoves(side, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        // out of check, only the captures and promotions which do not lose material are searched
+        MovePicker picker = pickers[ply];
+        if (inCheck) {
+            picker.init(board, moves, Moves.NONE, Moves.NONE, Moves.NONE, Moves.NONE, ordering.history(side));
+        } else {
+            picker.initTactical(board, moves);
+        }
+
+        Undo undo = undos[ply];
+        int move;
+        while ((move = picker.next()) != Moves.NONE) {
+            board.makeMove(move, undo);
+            ply++;
+            int score = -quiescence(-beta, -alpha);
+            ply--;
+            board.unmakeMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Sorts the lines of the iteration by score: a line searched later may score better than the previous ones,
+     * the search of the first moves having left the table better filled.
+     */
+    private void sortLines(int lines) {
+        for (int i = 1; i < lines; i++) {
+            int move = lineMoves[i];
+            int score = lineScores[i];
+            int j = i;
+            for (; j > 0 && lineScores[j - 1] < score; j--) {
+                lineMoves[j] = lineMoves[j - 1];
+                lineScores[j] = lineScores[j - 1];
+            }
+            lineMoves[j] = move;
+            lineScores[j] = score;
+        }
+    }
+
+    /**
+     * Checks if a root move starts one of the lines already found at the current iteration.
+     */
+    private boolean isExcluded(int move) {
+        for (int line = 0; line < excludedMoves; line++) {
+            if (lineMoves[line] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the current position is drawn by the fifty move rule or repeats a position since the last irreversible
+     * move, in the lines of the search or in the game before its root.
+     */
+    private boolean isDraw() {
+        if (board.getHalfMoveClock() >= 100) {
+            return true;
+        }
+        // the positions before the root are in the history, the last one at index -1
+        int limit = Math.max(-history.length, ply - board.getHalfMoveClock());
+        for (int i = ply - 4; i >= limit; i -= 2) {
+            long hash = i >= 0 ? hashes[i] : history[history.length + i];
+            if (hash == hashes[ply]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the side has other pieces than pawns and its king, to avoid null moves in zugzwang-prone endings.
+     */
+    private boolean hasPieces(PieceColor color) {
+        return (board.getColorBitboard(color) & ~board.getBitboard(color, PieceType.PAWN) & ~board.getBitboard(color, PieceType.KING)) != 0;
+    }
+}
@@ -0,0 +1,38 @@
+package javachess.engine;
+
+/**
+ * Progress of a search, reported at the end of each iteration for each of its principal variations
+ * (see {@link Search#setMultiPv(int)}).
+ *
+ * @param depth     the depth of the completed iteration
+ * @param score     the score from the point of view of the side to move (see {@link Search#MATE})
+ * @param nodes     the number of nodes searched so far
+ * @param time      the time spent so far, in milliseconds
+ * @param pv        the principal variation, encoded with {@link javachess.model.Moves}
+ * @param hashFull  how full the transposition table is, per thousand
+ * @param multiPv   the rank of the variation among the best ones, from 1
+ */
+public record SearchInfo(int depth, int score, long nodes, long time, int[] pv, int hashFull, int multiPv) {
+
+    /**
+     * Gets the number of nodes searched per second.
+     */
+    public long nodesPerSecond() {
+        return time == 0 ? nodes * 1000 : nodes * 1000 / time;
+    }
+
+    /**
+     * Checks if the score is a mate score.
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * Gets the number of moves to the mate, negative when the side to move is getting mated.
+     * @return the number of moves, only meaningful if {@link #isMate()}
+     */
+    public int mateIn() {
+        return score > 0 ? (Search.MATE - score + 1) / 2 : -(Search.MATE + score) / 2;
+    }
+}
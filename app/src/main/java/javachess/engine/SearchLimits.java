@@ -0,0 +1,188 @@
+package javachess.engine;
+
+import javachess.model.PieceColor;
+
+/**
+ * Limits of a search: a maximum depth, a maximum number of nodes, a fixed time per move, or the clocks of the players
+ * (from which a soft and a hard deadline are computed for the side to move).
+ * Times are in milliseconds, 0 meaning no limit, except for the clocks: a side whose clock is set but has no time left
+ * still gets a minimal budget, while a side without clock is not limited.
+ */
+public class SearchLimits {
+    // time kept aside on the clock for the communication and the move itself
+    private static final long MOVE_OVERHEAD = 50;
+    // number of moves the remaining time is shared between, when the clock does not tell
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    // value of a clock which is not set
+    private static final long NO_CLOCK = Long.MIN_VALUE;
+
+    private int depth;
+    private long moveTime;
+    private long whiteTime = NO_CLOCK;
+    private long blackTime = NO_CLOCK;
+    private long whiteIncrement;
+    private long blackIncrement;
+    private int movesToGo;
+    private long nodes;
+
+    /**
+     * Limits searching to a fixed depth, without time limit.
+     */
+    public static SearchLimits depth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.depth = depth;
+        return limits;
+    }
+
+    /**
+     * Limits searching to a fixed time.
+     */
+    public static SearchLimits moveTime(long moveTime) {
+        SearchLimits limits = new SearchLimits();
+        limits.moveTime = moveTime;
+        return limits;
+    }
+
+    /**
+     * Limits searching according to the clocks of the players.
+     */
+    public static SearchLimits clock(long whiteTime, long blackTime, long whiteIncrement, long blackIncrement) {
+        SearchLimits limits = new SearchLimits();
+        limits.whiteTime = whiteTime;
+        limits.blackTime = blackTime;
+        limits.whiteIncrement = whiteIncrement;
+        limits.blackIncrement = blackIncrement;
+        return limits;
+    }
+
+    /**
+     * Gets the maximum depth of the search.
+     * @return the depth in plies, or 0 if the depth is not limited
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the maximum number of nodes of the search.
+     * @return the number of nodes, or 0 if it is not limited
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    public void setWhiteTime(long whiteTime) {
+        this.whiteTime = whiteTime;
+    }
+
+    public void setBlackTime(long blackTime) {
+        this.blackTime = blackTime;
+    }
+
+    public void setWhiteIncrement(long whiteIncrement) {
+        this.whiteIncrement = whiteIncrement;
+    }
+
+    public void setBlackIncrement(long blackIncrement) {
+        this.blackIncrement = blackIncrement;
+    }
+
+    public void setMovesToGo(int movesToGo) {
+        this.movesToGo = movesToGo;
+    }
+
+    /**
+     * Gets the UCI command starting a search with these limits.
+     *
+     * @return the "go" command, "go infinite" when nothing is limited
+     */
+    public String toGoCommand() {
+        StringBuilder command = new StringBuilder("go");
+        appendLimit(command, "depth", depth);
+        appendLimit(command, "nodes", nodes);
+        appendLimit(command, "movetime", moveTime);
+        appendClock(command, "wtime", whiteTime);
+        appendClock(command, "btime", blackTime);
+        appendLimit(command, "winc", whiteIncrement);
+        appendLimit(command, "binc", blackIncrement);
+        appendLimit(command, "movestogo", movesToGo);
+        return command.length() == 2 ? "go infinite" : command.toString();
+    }
+
+    private static void appendLimit(StringBuilder command, String name, long value) {
+        if (value > 0) {
+            command.append(' ').append(name).append(' ').append(value);
+        }
+    }
+
+    private static void appendClock(StringBuilder command, String name, long value) {
+        if (value != NO_CLOCK) {
+            command.append(' ').append(name).append(' ').append(Math.max(0, value));
+        }
+    }
+
+    /**
+     * Checks if the search has a time limit.
+     */
+    public boolean isTimed() {
+        return moveTime > 0 || whiteTime != NO_CLOCK || blackTime != NO_CLOCK;
+    }
+
+    /**
+     * Gets the time after which no new iteration should be started.
+     *
+     * @param side the side to move
+     * @return the time in milliseconds, at least 1, or {@link Long#MAX_VALUE} without time limit
+     */
+    public long getSoftLimit(PieceColor side) {
+        if (moveTime > 0) {
+            return moveTime;
+        }
+        if (remaining(side) == NO_CLOCK) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(1, Math.min(share(side), getHardLimit(side)));
+    }
+
+    /**
+     * Gets the time after which the search must stop, even in the middle of an iteration.
+     *
+     * @param side the side to move
+     * @return the time in milliseconds, at least 1 even when the clock has run out, or {@link Long#MAX_VALUE} without
+     * time limit
+     */
+    public long getHardLimit(PieceColor side) {
+        if (moveTime > 0) {
+            return moveTime;
+        }
+        long remaining = remaining(side);
+        if (remaining == NO_CLOCK) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(1, Math.min(share(side) * 4, remaining - MOVE_OVERHEAD));
+    }
+
+    private long remaining(PieceColor side) {
+        return side == PieceColor.WHITE ? whiteTime : blackTime;
+    }
+
+    /**
+     * Gets the share of the remaining time normally spent on one move.
+     */
+    private long share(PieceColor side) {
+        long increment = side == PieceColor.WHITE ? whiteIncrement : blackIncrement;
+        return remaining(side) / (movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO) + increment * 3 / 4;
+    }
+}
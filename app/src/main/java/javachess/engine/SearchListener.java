@@ -0,0 +1,13 @@
+package javachess.engine;
+
+/**
+ * Receives the progress of a {@link Search}.
+ */
+public interface SearchListener {
+    /**
+     * Called by the searching thread each time an iteration is completed.
+     *
+     * @param info the result of the iteration
+     */
+    void onIteration(SearchInfo info);
+}
@@ -0,0 +1,437 @@
+package javachess.engine;
+
+import javachess.model.PieceColor;
+import javachess.model.PieceType;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Endgame tablebase of one material set (e.g. "KRvK"), made by {@link TablebaseGenerator} and read through a file
+ * mapped in memory. It gives the result of every position with perfect play, and the number of plies to mate.
+ * <p>
+ * Only one position of each set of symmetric ones is stored: the board is mirrored so that the white king is on
+ * the files a to d, and without pawns also rotated so that it is in the a8-a5-d5 triangle. The positions are
+ * stored by side to move, then by pair of king squares (the kings neither on the same square nor adjacent), then
+ * by the squares of the other pieces in the order of the material name (see {@link Layout}).
+ * Castling and en passant are not taken into account.
+ * <p>
+ * The file has a 16-byte header (the magic "JCTB", a version, the number of pieces and the material name), followed
+ * by the results packed 4 per byte (2 bits: draw, win, loss or invalid position, from the point of view of the side
+ * to move) and by the distances to mate in plies, one byte per position (0 for draws).
+ */
+public class Tablebase {
+    static final byte[] MAGIC = "JCTB".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 16;
+    /**
+     * Maximum number of pieces, kings included, of a tablebase.
+     */
+    public static final int MAX_PIECES = 4;
+    /**
+     * Order of the pieces of each side in the material names.
+     */
+    static final String PIECE_LETTERS = "KQRBNP";
+    static final PieceType[] LETTER_TYPES = {PieceType.KING, PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT, PieceType.PAWN};
+
+    static final int WDL_DRAW = 0;
+    static final int WDL_WIN = 1;
+    static final int WDL_LOSS = 2;
+    static final int WDL_INVALID = 3;
+
+    /**
+     * Result of a position with perfect play.
+     */
+    public enum Outcome {
+        WIN, DRAW, LOSS
+    }
+
+    /**
+     * Result of a position found in a tablebase.
+     *
+     * @param outcome the result for the side to move
+     * @param plies   the number of plies until mate, 0 for a draw or when the side to move is mated
+     */
+    public record Result(Outcome outcome, int plies) {
+    }
+
+    private final String name;
+    private final PieceColor[] colors;
+    private final PieceType[] types;
+    private final Layout layout;
+    private final MappedByteBuffer data;
+
+    /**
+     * Opens a tablebase.
+     *
+     * @param file the tablebase file
+     * @throws IOException if the file could not be read or is not a tablebase
+     */
+    public Tablebase(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.BIG_ENDIAN);
+        if (data.capacity() < HEADER_BYTES) {
+            throw new IOException("Not a tablebase: " + file);
+        }
+        byte[] magic = new byte[MAGIC.length];
+        byte[] nameBytes = new byte[8];
+        data.get(0, magic);
+        data.get(8, nameBytes);
+        if (!Arrays.equals(magic, MAGIC) || data.getShort(4) != VERSION) {
+            throw new IOException("Not a tablebase: " + file);
+        }
+        name = new String(nameBytes, StandardCharsets.US_ASCII).trim();
+        try {
+            colors = colors(name);
+            types = types(name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid tablebase material: " + name, e);
+        }
+        layout = new Layout(colors, types);
+        if (data.get(6) != types.length || data.capacity() != fileSize(layout.positions())) {
+            throw new IOException("Invalid tablebase size: " + file);
+        }
+    }
+
+    /**
+     * Gets the material set of the tablebase, the white pieces then the black ones (e.g. "KQvKR").
+     */
+    public String getName() {
+        return name;
+    }
+
+    PieceColor[] getColors() {
+        return colors;
+    }
+
+    PieceType[] getTypes() {
+        return types;
+    }
+
+    /**
+     * Gets the number of positions stored.
+     */
+    public int getPositions() {
+        return layout.positions();
+    }
+
+    /**
+     * Gets the result of a stored position.
+     *
+     * @param index the index of the position, from 0 to {@link #getPositions()} excluded
+     * @return the result, or null if the position is not valid (pieces on the same square, side not to move in check...)
+     */
+    public Result get(int index) {
+        return toResult(entry(index));
+    }
+
+    /**
+     * Decodes a result encoded like during the generation.
+     *
+     * @return the result, or null for an invalid position
+     */
+    static Result toResult(int entry) {
+        if (entry == TablebaseGenerator.INVALID) {
+            return null;
+        }
+        if (entry == TablebaseGenerator.DRAW) {
+            return new Result(Outcome.DRAW, 0);
+        }
+        int plies = entry - 1;
+        return new Result((plies & 1) == 1 ? Outcome.WIN : Outcome.LOSS, plies);
+    }
+
+    /**
+     * Gets the result of a position encoded like during the generation: {@link TablebaseGenerator#DRAW},
+     * {@link TablebaseGenerator#INVALID}, or the number of plies to mate plus one (odd plies for a win).
+     *
+     * @param squares    the squares of the pieces, in the order of the material name
+     * @param sideToMove the side to move
+     */
+    int entry(int[] squares, PieceColor sideToMove) {
+        int index = layout.index(squares, sideToMove);
+        return index < 0 ? TablebaseGenerator.INVALID : entry(index);
+    }
+
+    private int entry(int index) {
+        int wdl = (data.get(HEADER_BYTES + (index >>> 2)) >> ((index & 3) * 2)) & 3;
+        return switch (wdl) {
+            case WDL_WIN, WDL_LOSS -> (data.get(HEADER_BYTES + wdlBytes(layout.positions()) + index) & 0xFF) + 1;
+            case WDL_INVALID -> TablebaseGenerator.INVALID;
+            default -> TablebaseGenerator.DRAW;
+        };
+    }
+
+    /**
+     * Computes the index of a position among all the positions of its material set, used during the generation:
+     * {@code side * 64^n + square_0 + square_1 * 64 + ... + square_n-1 * 64^(n-1)}, the side being 0 for white.
+     *
+     * @param squares    the squares of the pieces, in the order of the material name
+     * @param sideToMove the side to move
+     * @return the index
+     */
+    static int index(int[] squares, PieceColor sideToMove) {
+        int index = sideToMove == PieceColor.WHITE ? 0 : 1;
+        for (int i = squares.length - 1; i >= 0; i--) {
+            index = index * 64 + squares[i];
+        }
+        return index;
+    }
+
+    static int positionCount(int pieces) {
+        return 2 << (6 * pieces);
+    }
+
+    static int wdlBytes(int positions) {
+        return (positions + 3) / 4;
+    }
+
+    static long fileSize(int positions) {
+        return HEADER_BYTES + (long) wdlBytes(positions) + positions;
+    }
+
+    /**
+     * Order of the positions stored for a material set, one for each set of symmetric positions.
+     */
+    static final class Layout {
+        // triangle a8-a5-d5 for the white king without pawns, with the 8 symmetries of the board
+        private static final Kings PAWNLESS_KINGS = new Kings(0x0F070301L, 8);
+        // files a to d for the white king with pawns, mirrored horizontally only
+        private static final Kings PAWN_KINGS = new Kings(0x0F0F0F0F0F0F0F0FL, 2);
+
+        private final int pieces;
+        private final int blackKing;
+        private final Kings kings;
+        private final int positions;
+
+        /**
+         * @param colors the colors of the pieces, the white king first
+         * @param types  the types of the pieces
+         */
+        Layout(PieceColor[] colors, PieceType[] types) {
+            pieces = types.length;
+            int black = 0;
+            while (colors[black] == PieceColor.WHITE) {
+                black++;
+            }
+            blackKing = black;
+            kings = Arrays.asList(types).contains(PieceType.PAWN) ? PAWN_KINGS : PAWNLESS_KINGS;
+            positions = 2 * kings.pairs.length << (6 * (pieces - 2));
+        }
+
+        int positions() {
+            return positions;
+        }
+
+        /**
+         * Gets the index of the stored position symmetric to a position.
+         *
+         * @param squares    the squares of the pieces, in the order of the material name
+         * @param sideToMove the side to move
+         * @return the index, or -1 if the kings are on the same square or adjacent
+         */
+        int index(int[] squares, PieceColor sideToMove) {
+            int symmetry = 0;
+            while ((kings.region & 1L << transform(squares[0], symmetry)) == 0) {
+                symmetry++;
+            }
+            int pair = kings.indexes[transform(squares[0], symmetry) << 6 | transform(squares[blackKing], symmetry)];
+            if (pair < 0) {
+                return -1;
+            }
+            int index = (sideToMove == PieceColor.WHITE ? 0 : kings.pairs.length) + pair;
+            for (int i = pieces - 1; i > 0; i--) {
+                if (i != blackKing) {
+                    index = index << 6 | transform(squares[i], symmetry);
+                }
+            }
+            return index;
+        }
+
+        /**
+         * Gets a stored position.
+         *
+         * @param index   the index of the position
+         * @param squares the array receiving the squares of the pieces, in the order of the material name
+         * @return the side to move
+         */
+        PieceColor squares(int index, int[] squares) {
+            for (int i = 1; i < pieces; i++) {
+                if (i != blackKing) {
+                    squares[i] = index & 63;
+                    index >>>= 6;
+                }
+            }
+            int pair = kings.pairs[index % kings.pairs.length];
+            squares[0] = pair >>> 6;
+            squares[blackKing] = pair & 63;
+            return index < kings.pairs.length ? PieceColor.WHITE : PieceColor.BLACK;
+        }
+
+        /**
+         * Applies a symmetry of the board to a square: a transposition (bit 2), then a horizontal (bit 0) and a
+         * vertical (bit 1) mirroring.
+         */
+        static int transform(int square, int symmetry) {
+            if ((symmetry & 4) != 0) {
+                square = (square & 7) << 3 | square >>> 3;
+            }
+            if ((symmetry & 1) != 0) {
+                square ^= 7;
+            }
+            if ((symmetry & 2) != 0) {
+                square ^= 56;
+            }
+            return square;
+        }
+
+        /**
+         * Pairs of king squares stored, the white king in a region reached from any square by one of the symmetries.
+         */
+        private static final class Kings {
+            private final long region;
+            // index of each pair, white king * 64 + black king, or -1 if it is not stored
+            private final int[] indexes = new int[64 * 64];
+            // white king * 64 + black king of each index
+            private final int[] pairs;
+
+            Kings(long region, int symmetries) {
+                this.region = region;
+                for (int square = 0; square < 64; square++) {
+                    int symmetry = 0;
+                    while (symmetry < symmetries && (region & 1L << transform(square, symmetry)) == 0) {
+                        symmetry++;
+                    }
+                    if (symmetry == symmetries) {
+                        throw new IllegalArgumentException("Square " + square + " is not reached by the symmetries");
+                    }
+                }
+                Arrays.fill(indexes, -1);
+                int[] found = new int[64 * 64];
+                int count = 0;
+                for (long whites = region; whites != 0; whites &= whites - 1) {
+                    int white = Long.numberOfTrailingZeros(whites);
+                    for (int black = 0; black < 64; black++) {
+                        if (Math.max(Math.abs((white & 7) - (black & 7)), Math.abs((white >>> 3) - (black >>> 3))) > 1) {
+                            indexes[white << 6 | black] = count;
+                            found[count++] = white << 6 | black;
+                        }
+                    }
+                }
+                pairs = Arrays.copyOf(found, count);
+            }
+        }
+    }
+
+    /**
+     * Gets the color of each piece of a material set.
+     *
+     * @throws IllegalArgumentException if the name is not a valid material set
+     */
+    static PieceColor[] colors(String name) {
+        String[] sides = sides(name);
+        PieceColor[] colors = new PieceColor[sides[0].length() + sides[1].length()];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = i < sides[0].length() ? PieceColor.WHITE : PieceColor.BLACK;
+        }
+        return colors;
+    }
+
+    /**
+     * Gets the type of each piece of a material set.
+     *
+     * @throws IllegalArgumentException if the name is not a valid material set
+     */
+    static PieceType[] types(String name) {
+        String letters = String.join("", sides(name));
+        PieceType[] types = new PieceType[letters.length()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = LETTER_TYPES[PIECE_LETTERS.indexOf(letters.charAt(i))];
+        }
+        return types;
+    }
+
+    /**
+     * Splits and checks a material name: a king and up to {@link #MAX_PIECES} pieces in all, in the order of {@link #PIECE_LETTERS}.
+     */
+    private static String[] sides(String name) {
+        String[] sides = name.split("v", -1);
+        if (sides.length != 2 || sides[0].length() + sides[1].length() > MAX_PIECES) {
+            throw new IllegalArgumentException("Invalid material: " + name);
+        }
+        for (String side : sides) {
+            if (!side.startsWith("K") || !side.equals(sort(side)) || side.indexOf('K', 1) >= 0) {
+                throw new IllegalArgumentException("Invalid material: " + name);
+            }
+        }
+        return sides;
+    }
+
+    /**
+     * Sorts the letters of the pieces of a side in the order of {@link #PIECE_LETTERS}.
+     *
+     * @throws IllegalArgumentException if a letter is not a piece
+     */
+    static String sort(String side) {
+        StringBuilder sorted = new StringBuilder();
+        for (char letter : PIECE_LETTERS.toCharArray()) {
+            for (char c : side.toCharArray()) {
+                if (c == letter) {
+                    sorted.append(c);
+                }
+            }
+        }
+        if (sorted.length() != side.length()) {
+            throw new IllegalArgumentException("Invalid pieces: " + side);
+        }
+        return sorted.toString();
+    }
+
+    /**
+     * Gets the material name with the colors swapped (e.g. "KvKR" for "KRvK").
+     */
+    static String flip(String name) {
+        int separator = name.indexOf('v');
+        return name.substring(separator + 1) + "v" + name.substring(0, separator);
+    }
+
+    /**
+     * Gets the orientation of a material set stored in the tablebases: the side with the most pieces, then with
+     * the strongest ones, is white.
+     */
+    static String canonical(String name) {
+        int separator = name.indexOf('v');
+        String white = name.substring(0, separator);
+        String black = name.substring(separator + 1);
+        if (white.length() != black.length()) {
+            return white.length() > black.length() ? name : flip(name);
+        }
+        for (int i = 0; i < white.length(); i++) {
+            int difference = PIECE_LETTERS.indexOf(white.charAt(i)) - PIECE_LETTERS.indexOf(black.charAt(i));
+            if (difference != 0) {
+                return difference < 0 ? name : flip(name);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Gets the letter of a piece type in the material names.
+     */
+    static char letter(PieceType type) {
+        for (int i = 0; i < LETTER_TYPES.length; i++) {
+            if (LETTER_TYPES[i] == type) {
+                return PIECE_LETTERS.charAt(i);
+            }
+        }
+        throw new IllegalArgumentException("Unknown piece type: " + type);
+    }
+}
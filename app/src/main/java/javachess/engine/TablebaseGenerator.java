@@ -0,0 +1,610 @@
+package javachess.engine;
+
+import javachess.model.PieceColor;
+import javachess.model.PieceType;
+import javachess.movegen.Bitboards;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates {@link Tablebase}s by retrograde analysis, with the tablebases of the material sets they can lead to
+ * (after a capture or a promotion).
+ * <ol>
+ *     <li>Every position is set up once: the mates are lost, the stalemates drawn, the moves leaving the material set
+ *     are looked up in the smaller tablebases, and the moves staying in it are counted.</li>
+ *     <li>Then for n = 0, 1, 2... plies, the moves leading to the positions decided in n plies are taken back:
+ *     a position with a move to a lost position is won in n + 1 plies, and a position whose moves all lead to won
+ *     positions is lost, in as many plies as its longest defence.</li>
+ *     <li>The positions left undecided are draws.</li>
+ * </ol>
+ * Usage: {@code tablebase <directory> <material>...}, e.g. {@code tablebase tablebases KQvK KRvK KPvK KBNvK}.
+ */
+public class TablebaseGenerator {
+    /**
+     * Result of a drawn position, and of a position not decided yet during the generation.
+     */
+    static final int DRAW = 0;
+    /**
+     * Result of a position which cannot happen: two pieces on the same square, a pawn on the first or last rank,
+     * or the side which is not to move in check. The other results are the number of plies to mate plus one.
+     */
+    static final int INVALID = 255;
+    private static final int MAX_PLIES = 253;
+    // move count of the positions which cannot be lost
+    private static final int CANNOT_LOSE = 255;
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    private final Path directory;
+    private final Tablebases tablebases = new Tablebases();
+    private final List<Statistics> generated = new ArrayList<>();
+
+    /**
+     * Results of a generated tablebase.
+     *
+     * @param name        the material set
+     * @param wins        the number of stored positions won
+     * @param draws       the number of stored positions drawn
+     * @param losses      the number of stored positions lost
+     * @param longestMate the longest mate, in plies
+     * @param millis      the generation time, in milliseconds
+     */
+    public record Statistics(String name, long wins, long draws, long losses, int longestMate, long millis) {
+        @Override
+        public String toString() {
+            return name + ": " + wins + " wins, " + draws + " draws, " + losses + " losses, longest mate in "
+                    + longestMate + " plies (" + millis + " ms)";
+        }
+    }
+
+    /**
+     * @param directory the directory of the tablebases, where the ones already generated are read from
+     */
+    public TablebaseGenerator(Path directory) {
+        this.directory = directory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: tablebase <directory> <material>... (e.g. KQvK KRvK KPvK)");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(directory);
+        for (int i = 1; i < args.length; i++) {
+            int printed = generator.getGenerated().size();
+            try {
+                generator.generate(args[i]);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+            }
+            List<Statistics> generated = generator.getGenerated();
+            for (Statistics statistics : generated.subList(printed, generated.size())) {
+                System.out.println(statistics);
+            }
+        }
+    }
+
+    /**
+     * Gets the tablebases generated or read so far.
+     */
+    public Tablebases getTablebases() {
+        return tablebases;
+    }
+
+    /**
+     * Gets the results of the tablebases generated so far, in the order of their generation.
+     */
+    public List<Statistics> getGenerated() {
+        return List.copyOf(generated);
+    }
+
+    /**
+     * Gets the tablebase of a material set, generating it and the ones it depends on if their files are missing.
+     *
+     * @param material the material set, e.g. "KRvK" (or "KvKR", stored as "KRvK")
+     * @return the tablebase
+     * @throws IOException              if a tablebase could not be read or written
+     * @throws IllegalArgumentException if the material set is not valid
+     */
+    public Tablebase generate(String material) throws IOException {
+        int separator = material.indexOf('v');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid material: " + material);
+        }
+        String name = Tablebase.canonical(Tablebase.sort(material.substring(0, separator)) + "v" + Tablebase.sort(material.substring(separator + 1)));
+        PieceColor[] colors = Tablebase.colors(name);
+        PieceType[] types = Tablebase.types(name);
+        Tablebase tablebase = tablebases.get(name);
+        if (tablebase != null) {
+            return tablebase;
+        }
+        Path file = directory.resolve(name + ".tb");
+        if (!Files.exists(file)) {
+            for (String child : children(name)) {
+                if (!child.equals("KvK")) {
+                    generate(child);
+                }
+            }
+            long start = System.nanoTime();
+            Solver solver = new Solver(colors, types);
+            solver.solve();
+            solver.write(file, name);
+            generated.add(new Statistics(name, solver.wins, solver.draws, solver.losses, solver.longest,
+                    (System.nanoTime() - start) / 1_000_000));
+        }
+        tablebase = new Tablebase(file);
+        tablebases.add(tablebase);
+        return tablebase;
+    }
+
+    /**
+     * Gets the material sets reachable in one move: a piece other than a king captured, or a pawn promoted.
+     */
+    static List<String> children(String name) {
+        List<String> children = new ArrayList<>();
+        for (int i = 0; i < name.length(); i++) {
+            char piece = name.charAt(i);
+            if (piece == 'K' || piece == 'v') {
+                continue;
+            }
+            children.add(normalize(name.substring(0, i) + name.substring(i + 1)));
+            if (piece == 'P') {
+                for (char promotion : "QRBN".toCharArray()) {
+                    children.add(normalize(name.substring(0, i) + promotion + name.substring(i + 1)));
+                }
+            }
+        }
+        return children;
+    }
+
+    private static String normalize(String name) {
+        int separator = name.indexOf('v');
+        return Tablebase.sort(name.substring(0, separator)) + "v" + Tablebase.sort(name.substring(separator + 1));
+    }
+
+    private static boolean isLastRank(int square) {
+        return square < 8 || square >= 56;
+    }
+
+    /**
+     * Retrograde analysis of one material set.
+     */
+    private final class Solver {
+        private final int pieces;
+        private final PieceColor[] colors;
+        private final PieceType[] types;
+        private final int positions;
+        // result of each position: DRAW while unknown, INVALID, or the plies to mate plus one
+        private final byte[] values;
+        // number of moves staying in the material set not known to lose yet, or CANNOT_LOSE
+        private final byte[] counts;
+        // plies of the shortest win found by leaving the material set, or of the longest loss, set before it is known
+        private final byte[] pending;
+        private int maxPending;
+        // tables reached by a capture and a promotion, indexed by captured piece + 1, promoted piece + 1, promotion + 1
+        private final Child[][][] children;
+
+        // position being set up
+        private final int[] squares;
+        private PieceColor side;
+        private long occupancy;
+        private int inTableMoves;
+        private int legalMoves;
+        private boolean canLose;
+        private int shortestWin;
+        private int longestLoss;
+
+        private long wins;
+        private long draws;
+        private long losses;
+        private int longest;
+
+        Solver(PieceColor[] colors, PieceType[] types) {
+            this.pieces = types.length;
+            this.colors = colors;
+            this.types = types;
+            this.positions = Tablebase.positionCount(pieces);
+            this.values = new byte[positions];
+            this.counts = new byte[positions];
+            this.pending = new byte[positions];
+            this.children = new Child[pieces + 1][pieces + 1][PROMOTIONS.length + 1];
+            this.squares = new int[pieces];
+        }
+
+        void solve() {
+            for (int index = 0; index < positions; index++) {
+                setUp(index);
+            }
+            for (int ply = 0; ply <= MAX_PLIES; ply++) {
+                boolean found = false;
+                int value = ply + 1;
+                for (int index = 0; index < positions; index++) {
+                    if (values[index] == DRAW && ply > 0 && (pending[index] & 0xFF) == ply
+                            && ((counts[index] & 0xFF) == CANNOT_LOSE || counts[index] == 0)) {
+                        values[index] = (byte) value;
+                    }
+                }
+                for (int index = 0; index < positions; index++) {
+                    if ((values[index] & 0xFF) == value) {
+                        found = true;
+                        takeBack(index, ply);
+                    }
+                }
+                if (!found && ply >= maxPending) {
+                    return;
+                }
+            }
+            throw new IllegalStateException("Mates longer than " + MAX_PLIES + " plies");
+        }
+
+        private PieceColor decode(int index) {
+            occupancy = 0;
+            for (int i = 0; i < pieces; i++) {
+                squares[i] = (index >>> (6 * i)) & 63;
+                occupancy |= 1L << squares[i];
+            }
+            return (index >>> (6 * pieces)) == 0 ? PieceColor.WHITE : PieceColor.BLACK;
+        }
+
+        private int encode(PieceColor sideToMove) {
+            return Tablebase.index(squares, sideToMove);
+        }
+
+        /**
+         * Decides the mates, stalemates and invalid positions, and counts the moves of the other ones.
+         */
+        private void setUp(int index) {
+            side = decode(index);
+            if (Long.bitCount(occupancy) != pieces || !pawnsOnValidRanks() || inCheck(side.opposite())) {
+                values[index] = (byte) INVALID;
+                return;
+            }
+            inTableMoves = 0;
+            legalMoves = 0;
+            canLose = true;
+            shortestWin = 0;
+            longestLoss = 0;
+            long own = 0;
+            long enemies = 0;
+            for (int i = 0; i < pieces; i++) {
+                if (colors[i] == side) {
+                    own |= 1L << squares[i];
+                } else {
+                    enemies |= 1L << squares[i];
+                }
+            }
+            for (int i = 0; i < pieces; i++) {
+                if (colors[i] != side) {
+                    continue;
+                }
+                int from = squares[i];
+                if (types[i] == PieceType.PAWN) {
+                    int forward = side == PieceColor.WHITE ? -8 : 8;
+                    int to = from + forward;
+                    if ((occupancy & 1L << to) == 0) {
+                        if (isLastRank(to)) {
+                            for (int promotion = 0; promotion < PROMOTIONS.length; promotion++) {
+                                tryMove(i, to, -1, promotion);
+                            }
+                        } else {
+                            tryMove(i, to, -1, -1);
+                            int start = side == PieceColor.WHITE ? 6 : 1;
+                            if (from >> 3 == start && (occupancy & 1L << (to + forward)) == 0) {
+                                tryMove(i, to + forward, -1, -1);
+                            }
+                        }
+                    }
+                    for (long targets = Bitboards.PAWN_ATTACKS[side.ordinal()][from] & enemies; targets != 0; targets &= targets - 1) {
+                        int target = Long.numberOfTrailingZeros(targets);
+                        if (isLastRank(target)) {
+                            for (int promotion = 0; promotion < PROMOTIONS.length; promotion++) {
+                                tryMove(i, target, pieceAt(target), promotion);
+                            }
+                        } else {
+                            tryMove(i, target, pieceAt(target), -1);
+                        }
+                    }
+                } else {
+                    for (long targets = attacks(i, occupancy) & ~own; targets != 0; targets &= targets - 1) {
+                        int target = Long.numberOfTrailingZeros(targets);
+                        tryMove(i, target, (enemies & 1L << target) != 0 ? pieceAt(target) : -1, -1);
+                    }
+                }
+            }
+            if (legalMoves == 0) {
+                if (inCheck(side)) {
+                    values[index] = 1;
+                } else {
+                    counts[index] = (byte) CANNOT_LOSE;
+                }
+                return;
+            }
+            counts[index] = (byte) (canLose ? inTableMoves : CANNOT_LOSE);
+            setPending(index, canLose ? longestLoss : shortestWin);
+        }
+
+        /**
+         * Plays a move of the position being set up if it is legal, counting it or looking up its result.
+         *
+         * @param piece     the moving piece
+         * @param to        the target square
+         * @param captured  the captured piece, or -1
+         * @param promotion the index of the promotion in {@link #PROMOTIONS}, or -1
+         */
+        private void tryMove(int piece, int to, int captured, int promotion) {
+            int from = squares[piece];
+            long savedOccupancy = occupancy;
+            squares[piece] = to;
+            occupancy = (occupancy & ~(1L << from)) | 1L << to;
+            if (!inCheck(side, captured)) {
+                legalMoves++;
+                if (captured < 0 && promotion < 0) {
+                    inTableMoves++;
+                } else {
+                    int result = child(captured, promotion < 0 ? -1 : piece, promotion).entry(squares, side.opposite());
+                    if (result == DRAW) {
+                        canLose = false;
+                    } else if (((result - 1) & 1) == 0) {
+                        // the opponent is mated in (result - 1) plies
+                        canLose = false;
+                        shortestWin = shortestWin == 0 ? result : Math.min(shortestWin, result);
+                    } else {
+                        longestLoss = Math.max(longestLoss, result);
+                    }
+                }
+            }
+            squares[piece] = from;
+            occupancy = savedOccupancy;
+        }
+
+        /**
+         * Takes back the moves leading to a position decided in the given number of plies.
+         */
+        private void takeBack(int index, int ply) {
+            PieceColor moved = decode(index).opposite();
+            for (int i = 0; i < pieces; i++) {
+                if (colors[i] != moved) {
+                    continue;
+                }
+                int to = squares[i];
+                if (types[i] == PieceType.PAWN) {
+                    int backward = moved == PieceColor.WHITE ? 8 : -8;
+                    int from = to + backward;
+                    if (from >= 0 && from < 64 && !isLastRank(from) && (occupancy & 1L << from) == 0) {
+                        update(i, from, moved, ply);
+                        int fourth = moved == PieceColor.WHITE ? 4 : 3;
+                        if (to >> 3 == fourth && (occupancy & 1L << (from + backward)) == 0) {
+                            update(i, from + backward, moved, ply);
+                        }
+                    }
+                } else {
+                    for (long origins = attacks(i, occupancy) & ~occupancy; origins != 0; origins &= origins - 1) {
+                        update(i, Long.numberOfTrailingZeros(origins), moved, ply);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Updates the position before a move, the position after it being decided in the given number of plies.
+         */
+        private void update(int piece, int from, PieceColor moved, int ply) {
+            int to = squares[piece];
+            squares[piece] = from;
+            int previous = encode(moved);
+            squares[piece] = to;
+            if (values[previous] != DRAW) {
+                return;
+            }
+            if ((ply & 1) == 0) {
+                // the move mates or leads to a lost position
+                values[previous] = (byte) (ply + 2);
+            } else if ((counts[previous] & 0xFF) != CANNOT_LOSE) {
+                int count = (counts[previous] & 0xFF) - 1;
+                counts[previous] = (byte) count;
+                if (count == 0) {
+                    // every move loses: the position lasts as long as its best defence
+                    setPending(previous, Math.max(ply + 1, pending[previous] & 0xFF));
+                }
+            }
+        }
+
+        private void setPending(int index, int ply) {
+            if (ply > MAX_PLIES) {
+                throw new IllegalStateException("Mates longer than " + MAX_PLIES + " plies");
+            }
+            pending[index] = (byte) ply;
+            maxPending = Math.max(maxPending, ply);
+        }
+
+        private boolean pawnsOnValidRanks() {
+            for (int i = 0; i < pieces; i++) {
+                if (types[i] == PieceType.PAWN && isLastRank(squares[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int pieceAt(int square) {
+            for (int i = 0; i < pieces; i++) {
+                if (squares[i] == square) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean inCheck(PieceColor color) {
+            return inCheck(color, -1);
+        }
+
+        /**
+         * Checks if the king of a color is attacked, ignoring a captured piece.
+         */
+        private boolean inCheck(PieceColor color, int captured) {
+            int king = -1;
+            for (int i = 0; i < pieces; i++) {
+                if (colors[i] == color && types[i] == PieceType.KING) {
+                    king = squares[i];
+                }
+            }
+            long target = 1L << king;
+            for (int i = 0; i < pieces; i++) {
+                if (i == captured || colors[i] == color) {
+                    continue;
+                }
+                long attacks = types[i] == PieceType.PAWN ? Bitboards.PAWN_ATTACKS[colors[i].ordinal()][squares[i]] : attacks(i, occupancy);
+                if ((attacks & target) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Gets the squares attacked by a piece other than a pawn.
+         */
+        private long attacks(int piece, long occupancy) {
+            int square = squares[piece];
+            return switch (types[piece]) {
+                case KNIGHT -> Bitboards.KNIGHT_ATTACKS[square];
+                case BISHOP -> Bitboards.bishopAttacks(square, occupancy);
+                case ROOK -> Bitboards.rookAttacks(square, occupancy);
+                case QUEEN -> Bitboards.queenAttacks(square, occupancy);
+                case KING -> Bitboards.KING_ATTACKS[square];
+                case PAWN -> throw new IllegalArgumentException("Pawn attacks depend on the color");
+            };
+        }
+
+        private Child child(int captured, int promoted, int promotion) {
+            Child child = children[captured + 1][promoted + 1][promotion + 1];
+            if (child == null) {
+                child = new Child(captured, promoted, promotion < 0 ? null : PROMOTIONS[promotion]);
+                children[captured + 1][promoted + 1][promotion + 1] = child;
+            }
+            return child;
+        }
+
+        /**
+         * Writes the results of the stored positions: the 2-bit results then the distances to mate.
+         */
+        void write(Path file, String name) throws IOException {
+            Tablebase.Layout layout = new Tablebase.Layout(colors, types);
+            int stored = layout.positions();
+            byte[] wdl = new byte[Tablebase.wdlBytes(stored)];
+            byte[] distances = new byte[stored];
+            for (int index = 0; index < stored; index++) {
+                int value = values[Tablebase.index(squares, layout.squares(index, squares))] & 0xFF;
+                int result;
+                if (value == INVALID) {
+                    result = Tablebase.WDL_INVALID;
+                } else if (value == DRAW) {
+                    result = Tablebase.WDL_DRAW;
+                    draws++;
+                } else {
+                    distances[index] = (byte) (value - 1);
+                    longest = Math.max(longest, value - 1);
+                    if (((value - 1) & 1) == 1) {
+                        result = Tablebase.WDL_WIN;
+                        wins++;
+                    } else {
+                        result = Tablebase.WDL_LOSS;
+                        losses++;
+                    }
+                }
+                wdl[index >>> 2] |= (byte) (result << ((index & 3) * 2));
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.write(Tablebase.MAGIC);
+                out.writeShort(Tablebase.VERSION);
+                out.writeByte(pieces);
+                out.writeByte(0);
+                byte[] nameBytes = new byte[8];
+                byte[] letters = name.getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(letters, 0, nameBytes, 0, letters.length);
+                out.write(nameBytes);
+                out.write(wdl);
+                out.write(distances);
+            }
+        }
+
+        /**
+         * Tablebase reached by a capture or a promotion, with the piece of the current material set
+         * standing for each of its pieces.
+         */
+        private final class Child {
+            private final Tablebase table;
+            private final boolean flipped;
+            private final int[] sources;
+            private final int[] childSquares;
+
+            Child(int captured, int promoted, PieceType promotion) {
+                int count = pieces - (captured < 0 ? 0 : 1);
+                PieceColor[] childColors = new PieceColor[count];
+                PieceType[] childTypes = new PieceType[count];
+                int[] parents = new int[count];
+                int n = 0;
+                for (int i = 0; i < pieces; i++) {
+                    if (i != captured) {
+                        childColors[n] = colors[i];
+                        childTypes[n] = i == promoted ? promotion : types[i];
+                        parents[n++] = i;
+                    }
+                }
+                String name = Tablebases.name(childColors, childTypes, count);
+                Tablebase found = tablebases.get(name);
+                flipped = found == null;
+                if (found == null) {
+                    found = tablebases.get(Tablebase.flip(name));
+                }
+                if (found == null && !name.equals("KvK")) {
+                    throw new IllegalStateException("Missing tablebase: " + name);
+                }
+                table = found;
+                sources = new int[count];
+                childSquares = new int[count];
+                if (table == null) {
+                    return;
+                }
+                boolean[] used = new boolean[count];
+                for (int slot = 0; slot < count; slot++) {
+                    PieceColor color = flipped ? table.getColors()[slot].opposite() : table.getColors()[slot];
+                    for (int i = 0; i < count; i++) {
+                        if (!used[i] && childColors[i] == color && childTypes[i] == table.getTypes()[slot]) {
+                            used[i] = true;
+                            sources[slot] = parents[i];
+                            break;
+                        }
+                    }
+                }
+            }
+
+            /**
+             * Gets the result of the position reached, the pieces being on the given squares.
+             */
+            int entry(int[] parentSquares, PieceColor sideToMove) {
+                if (table == null) {
+                    return DRAW;
+                }
+                for (int slot = 0; slot < sources.length; slot++) {
+                    int square = parentSquares[sources[slot]];
+                    childSquares[slot] = flipped ? square ^ 56 : square;
+                }
+                int result = table.entry(childSquares, flipped ? sideToMove.opposite() : sideToMove);
+                if (result == INVALID) {
+                    throw new IllegalStateException("Invalid position after a legal move in " + table.getName());
+                }
+                return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.PieceColor;
+import javachess.model.PieceType;
+import javachess.movegen.Bitboards;
+import javachess.parser.ConfigParser;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@link Tablebase}s of a directory, probed by the {@link Search} once few pieces are left.
+ * A material set is found whichever side has it: "KvKR" is read from the "KRvK" tablebase with the colors swapped.
+ */
+public class Tablebases {
+    private static final PieceColor[] COLORS = PieceColor.values();
+
+    private final Map<String, Tablebase> tables = new HashMap<>();
+    private int maxPieces;
+
+    /**
+     * Opens the tablebases (".tb" files) of a directory.
+     *
+     * @param directory the directory
+     * @return the tablebases
+     * @throws IOException if the directory or one of the files could not be read
+     */
+    public static Tablebases open(Path directory) throws IOException {
+        Tablebases tablebases = new Tablebases();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.tb")) {
+            for (Path file : files) {
+                tablebases.add(new Tablebase(file));
+            }
+        }
+        return tablebases;
+    }
+
+    /**
+     * Opens the tablebases of the directory set in a configuration (CHESS_TABLEBASES).
+     *
+     * @param config the configuration
+     * @return the tablebases, or null if there is no directory or if it could not be read
+     */
+    public static Tablebases fromConfig(ConfigParser config) {
+        String directory = config.getTablebaseDirectory();
+        if (directory == null) {
+            return null;
+        }
+        try {
+            return open(Path.of(directory));
+        } catch (IOException e) {
+            System.err.println("Could not open the tablebases of " + directory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds a tablebase.
+     *
+     * @param tablebase the tablebase
+     */
+    public void add(Tablebase tablebase) {
+        tables.put(tablebase.getName(), tablebase);
+        maxPieces = Math.max(maxPieces, tablebase.getTypes().length);
+    }
+
+    /**
+     * Gets the tablebase of a material set.
+     *
+     * @param name the material set, the white pieces then the black ones (e.g. "KRvK")
+     * @return the tablebase, or null if there is none
+     */
+    public Tablebase get(String name) {
+        return tables.get(name);
+    }
+
+    /**
+     * Gets the number of tablebases.
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * Gets the number of pieces of the largest tablebase, kings included.
+     */
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * Gets the result of the position of a board.
+     *
+     * @param board the position
+     * @return the result for the side to move, or null if the material set is not in the tablebases or if
+     * castling or en passant is possible
+     */
+    public Tablebase.Result probe(Board board) {
+        int entry = probeEntry(board);
+        return entry < 0 ? null : Tablebase.toResult(entry);
+    }
+
+    /**
+     * Gets the score of the position of a board for the search: a mate score for a won or lost position, 0 for a draw.
+     *
+     * @param board the position
+     * @param ply   the distance to the root of the search, in plies
+     * @return the score from the point of view of the side to move, or {@link Integer#MIN_VALUE} if the position
+     * is not in the tablebases
+     */
+    int probeScore(Board board, int ply) {
+        int entry = probeEntry(board);
+        if (entry < 0 || entry == TablebaseGenerator.INVALID) {
+            return Integer.MIN_VALUE;
+        }
+        if (entry == TablebaseGenerator.DRAW) {
+            return 0;
+        }
+        int plies = entry - 1;
+        return (plies & 1) == 1 ? Search.MATE - ply - plies : -Search.MATE + ply + plies;
+    }
+
+    private int probeEntry(Board board) {
+        int count = Long.bitCount(board.getOccupancy());
+        if (count > maxPieces || board.getCastlingRights() != 0) {
+            return -1;
+        }
+        PieceColor side = board.getSideToMove();
+        int enPassant = board.getEnPassantSquare();
+        if (enPassant >= 0 && (Bitboards.PAWN_ATTACKS[side.opposite().ordinal()][enPassant] & board.getBitboard(side, PieceType.PAWN)) != 0) {
+            return -1;
+        }
+        PieceColor[] colors = new PieceColor[count];
+        PieceType[] types = new PieceType[count];
+        int[] squares = new int[count];
+        int n = 0;
+        for (PieceColor color : COLORS) {
+            for (PieceType type : Tablebase.LETTER_TYPES) {
+                for (long pieces = board.getBitboard(color, type); pieces != 0; pieces &= pieces - 1) {
+                    colors[n] = color;
+                    types[n] = type;
+                    squares[n] = Long.numberOfTrailingZeros(pieces);
+                    n++;
+                }
+            }
+        }
+        return entry(colors, types, squares, n, side);
+    }
+
+    /**
+     * Gets the result of a position given by its pieces, in any order.
+     *
+     * @param colors     the colors of the pieces
+     * @param types      the types of the pieces
+     * @param squares    the squares of the pieces
+     * @param count      the number of pieces
+     * @param sideToMove the side to move
+     * @return the result encoded like in {@link TablebaseGenerator}, or -1 if the material set is not in the tablebases
+     */
+    int entry(PieceColor[] colors, PieceType[] types, int[] squares, int count, PieceColor sideToMove) {
+        String name = name(colors, types, count);
+        if (name.equals("KvK")) {
+            return TablebaseGenerator.DRAW;
+        }
+        boolean flipped = false;
+        Tablebase table = tables.get(name);
+        if (table == null) {
+            table = tables.get(Tablebase.flip(name));
+            flipped = true;
+        }
+        if (table == null) {
+            return -1;
+        }
+        PieceColor[] tableColors = table.getColors();
+        PieceType[] tableTypes = table.getTypes();
+        int[] tableSquares = new int[count];
+        boolean[] used = new boolean[count];
+        for (int slot = 0; slot < count; slot++) {
+            PieceColor color = flipped ? tableColors[slot].opposite() : tableColors[slot];
+            for (int i = 0; i < count; i++) {
+                if (!used[i] && colors[i] == color && types[i] == tableTypes[slot]) {
+                    used[i] = true;
+                    // with the colors swapped, the board is mirrored vertically
+                    tableSquares[slot] = flipped ? squares[i] ^ 56 : squares[i];
+                    break;
+                }
+            }
+        }
+        return table.entry(tableSquares, flipped ? sideToMove.opposite() : sideToMove);
+    }
+
+    /**
+     * Gets the name of the material set of some pieces (e.g. "KRvK").
+     */
+    static String name(PieceColor[] colors, PieceType[] types, int count) {
+        StringBuilder name = new StringBuilder();
+        for (PieceColor color : COLORS) {
+            if (color == PieceColor.BLACK) {
+                name.append('v');
+            }
+            for (PieceType type : Tablebase.LETTER_TYPES) {
+                for (int i = 0; i < count; i++) {
+                    if (colors[i] == color && types[i] == type) {
+                        name.append(Tablebase.letter(type));
+                    }
+                }
+            }
+        }
+        return name.toString();
+    }
+}
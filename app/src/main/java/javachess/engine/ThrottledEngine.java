@@ -0,0 +1,197 @@
+package javachess.engine;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Engine protecting a rate-limited engine (typically a remote API) shared by many games.
+ * <ul>
+ *     <li>Identical requests (same position, move clocks aside, and same limits) made while one of them is running
+ *     are merged: they all get the answer of the first one.</li>
+ *     <li>Requests are sent at most at a given rate, with a token bucket allowing short bursts.
+ *     Requests over the rate wait in a bounded queue, and the requests which do not fit in the queue
+ *     are answered by a fallback engine (typically the local one), so that the waiting time stays bounded.</li>
+ * </ul>
+ */
+public class ThrottledEngine implements BotEngine {
+    private final BotEngine engine;
+    private final BotEngine fallback;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxQueued;
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Queue<Runnable> queue = new ArrayDeque<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "engine-rate-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private boolean drainScheduled;
+
+    private long sent;
+    private long coalesced;
+    private long queued;
+    private long fallbacks;
+
+    /**
+     * @param engine           the rate-limited engine
+     * @param fallback         the engine answering when the queue is full
+     * @param permitsPerSecond the maximum number of requests sent to the engine per second
+     * @param burst            the number of requests which can be sent at once after a quiet period
+     * @param maxQueued        the maximum number of requests waiting for the rate limit
+     */
+    public ThrottledEngine(BotEngine engine, BotEngine fallback, double permitsPerSecond, int burst, int maxQueued) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid rate: " + permitsPerSecond);
+        }
+        this.engine = engine;
+        this.fallback = fallback;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.tokens = this.burst;
+    }
+
+    @Override
+    public String getBestMove(String fen, SearchLimits limits) throws Exception {
+        try {
+            return getBestMoveAsync(fen, limits).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> getBestMoveAsync(String fen, SearchLimits limits) {
+        String key = MoveCache.normalize(fen) + " " + limits.toGoCommand();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(key, result);
+        if (running != null) {
+            synchronized (this) {
+                coalesced++;
+            }
+            // a copy, so that a caller cancelling its future does not cancel the others
+            return running.copy();
+        }
+        result.whenComplete((move, error) -> inFlight.remove(key, result));
+        submit(() -> engine.getBestMoveAsync(fen, limits), () -> fallback.getBestMoveAsync(fen, limits), result);
+        return result.copy();
+    }
+
+    /**
+     * Sends a request now if a token is available, queues it otherwise, or gives it to the fallback if the queue is full.
+     */
+    private void submit(Supplier<CompletableFuture<String>> request, Supplier<CompletableFuture<String>> fallbackRequest,
+                        CompletableFuture<String> result) {
+        Runnable send = () -> forward(request, result);
+        synchronized (this) {
+            refill();
+            if (queue.isEmpty() && tokens >= 1) {
+                tokens--;
+                sent++;
+            } else if (queue.size() < maxQueued) {
+                queue.add(send);
+                queued++;
+                scheduleDrain();
+                return;
+            } else {
+                fallbacks++;
+                send = () -> forward(fallbackRequest, result);
+            }
+        }
+        send.run();
+    }
+
+    private static void forward(Supplier<CompletableFuture<String>> request, CompletableFuture<String> result) {
+        try {
+            request.get().whenComplete((move, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(move);
+                }
+            });
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerSecond / 1e9);
+        lastRefill = now;
+    }
+
+    /**
+     * Schedules the sending of the first queued request for when the next token is available.
+     */
+    private void scheduleDrain() {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        long delay = (long) Math.ceil(Math.max(0, 1 - tokens) * 1e9 / permitsPerSecond);
+        timer.schedule(this::drain, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void drain() {
+        Queue<Runnable> ready = new ArrayDeque<>();
+        synchronized (this) {
+            drainScheduled = false;
+            refill();
+            while (!queue.isEmpty() && tokens >= 1) {
+                tokens--;
+                sent++;
+                ready.add(queue.poll());
+            }
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+        ready.forEach(Runnable::run);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return engine.isAvailable();
+    }
+
+    /**
+     * Gets the number of requests sent to the rate-limited engine.
+     */
+    public synchronized long getSent() {
+        return sent;
+    }
+
+    /**
+     * Gets the number of requests answered by an identical request already running.
+     */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Gets the number of requests which had to wait for the rate limit.
+     */
+    public synchronized long getQueued() {
+        return queued;
+    }
+
+    /**
+     * Gets the number of requests answered by the fallback engine.
+     */
+    public synchronized long getFallbacks() {
+        return fallbacks;
+    }
+}
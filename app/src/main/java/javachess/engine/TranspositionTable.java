@@ -0,0 +1,189 @@
+package javachess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results, keyed on the Zobrist hash of the positions.
+ * <p>
+ * Entries are stored in two primitive arrays (keys and packed data) grouped in buckets of two slots:
+ * the first slot keeps the deepest result (or a result of the current search), the second one is always replaced.
+ * The data of an entry packs the best move (bits 0-18, see {@link javachess.model.Moves}), the score (bits 19-34),
+ * the depth (bits 35-42), the bound type (bits 43-44) and the age of the search that stored it (bits 45-52).
+ * A data value of 0 stands for an empty slot.
+ * <p>
+ * The table can be shared by several search threads without locks: the key array holds the key XOR the data,
+ * so an entry torn by two concurrent writes no longer matches its key and is simply seen as a miss.
+ * The statistics are not synchronized and are approximate when the table is shared.
+ */
+public class TranspositionTable {
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int age;
+
+    private long probes;
+    private long hits;
+    private long stores;
+
+    /**
+     * Creates a table using at most the given amount of memory, rounded down to a power of two number of entries.
+     *
+     * @param sizeMB the memory budget in megabytes
+     */
+    public TranspositionTable(int sizeMB) {
+        long bytes = Math.max(1, sizeMB) * 1024L * 1024L;
+        int entries = Integer.highestOneBit((int) Math.min(bytes / ENTRY_BYTES, 1 << 30));
+        keys = new long[entries];
+        data = new long[entries];
+        bucketMask = entries / 2 - 1;
+    }
+
+    /**
+     * Starts a new search: the entries of the previous searches become the first to be replaced.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        age = 0;
+        probes = 0;
+        hits = 0;
+        stores = 0;
+    }
+
+    /**
+     * Looks for the entry of a position.
+     *
+     * @param key the hash of the position
+     * @return the packed data of the entry, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        probes++;
+        int index = index(key);
+        for (int slot = index; slot < index + 2; slot++) {
+            long entry = data[slot];
+            if (entry != 0 && (keys[slot] ^ entry) == key) {
+                hits++;
+                return entry;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores the result of the search of a position.
+     *
+     * @param key   the hash of the position
+     * @param move  the best move found, or {@link javachess.model.Moves#NONE}
+     * @param score the score (mate scores must be relative to the position, not to the root)
+     * @param depth the depth searched
+     * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        stores++;
+        int index = index(key);
+        int slot;
+        long first = data[index];
+        if (first == 0 || (keys[index] ^ first) == key || depth >= depth(first) || age(first) != age) {
+            slot = index;
+        } else {
+            slot = index + 1;
+        }
+        // keep the known best move when the new result has none
+        long previous = data[slot];
+        if (move == 0 && (keys[slot] ^ previous) == key) {
+            move = move(previous);
+        }
+        long entry = pack(move, score, depth, bound, age);
+        keys[slot] = key ^ entry;
+        data[slot] = entry;
+    }
+
+    private int index(long key) {
+        return (int) (key & bucketMask) << 1;
+    }
+
+    private static long pack(int move, int score, int depth, int bound, int age) {
+        return (move & 0x7FFFFL)
+                | ((long) (score + 32768) & 0xFFFF) << 19
+                | ((long) Math.max(0, Math.min(depth, 255))) << 35
+                | ((long) bound) << 43
+                | ((long) age) << 45;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0x7FFFF);
+    }
+
+    public static int score(long entry) {
+        return (int) ((entry >>> 19) & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 35) & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 43) & 3);
+    }
+
+    private static int age(long entry) {
+        return (int) ((entry >>> 45) & 0xFF);
+    }
+
+    /**
+     * Gets the number of entries of the table.
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getStores() {
+        return stores;
+    }
+
+    /**
+     * Gets the share of the probes that found their position.
+     * @return the hit rate, between 0 and 1
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Estimates how full the table is, by sampling its first thousand entries (as reported by UCI engines).
+     * @return the number of entries of the current search per thousand
+     */
+    public int hashFull() {
+        int sample = Math.min(1000, keys.length);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (data[i] != 0 && age(data[i]) == age) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+}
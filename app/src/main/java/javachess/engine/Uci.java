@@ -0,0 +1,278 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.Game;
+import javachess.model.Moves;
+import javachess.model.Undo;
+import javachess.movegen.Perft;
+import javachess.parser.ConfigParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Headless front-end speaking the <a href="https://www.wbec-ridderkerk.nl/html/UCIfaq.html">UCI protocol</a>
+ * on the standard input and output, so that the local engine can be used by chess GUIs and tournament managers.
+ * <p>
+ * Supported commands: {@code uci}, {@code isready}, {@code setoption name Hash|Threads|MultiPV value N}, {@code ucinewgame},
+ * {@code position [startpos | fen <fen>] [moves <moves>]}, {@code go [depth N] [nodes N] [movetime N]
+ * [wtime N] [btime N] [winc N] [binc N] [movestogo N] [infinite]}, {@code stop} and {@code quit}.
+ */
+public class Uci {
+    private final PrintStream out;
+    private final Game game = new Game();
+    private int hashSize;
+    private int threads;
+    private int multiPv = 1;
+    private final Tablebases tablebases;
+    private ParallelSearch search;
+    // hash of the positions played before the current one by the last "position ... moves" command, oldest first
+    private long[] history = new long[0];
+    // the running search, completed once its best move is sent
+    private CompletableFuture<Void> running;
+
+    public Uci(PrintStream out) {
+        this.out = out;
+        ConfigParser config = new ConfigParser();
+        hashSize = config.getHashSize();
+        threads = config.getThreads();
+        tablebases = Tablebases.fromConfig(config);
+        game.fromFEN(Perft.START_FEN);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Uci uci = new Uci(System.out);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!uci.handle(line.trim())) {
+                break;
+            }
+        }
+        uci.quit();
+    }
+
+    /**
+     * Handles one command.
+     *
+     * @param line the command line
+     * @return false if the engine must quit
+     */
+    public boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci" -> {
+                send("id name JavaChess");
+                send("id author JavaChess contributors");
+                send("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB + " min 1 max 65536");
+                send("option name Threads type spin default 1 min 1 max 512");
+                send("option name MultiPV type spin default 1 min 1 max 256");
+                send("uciok");
+            }
+            case "isready" -> send("readyok");
+            case "setoption" -> setOption(tokens);
+            case "ucinewgame" -> {
+                waitForSearch();
+                if (search != null) {
+                    search.getTable().clear();
+                }
+            }
+            case "position" -> {
+                waitForSearch();
+                setPosition(tokens);
+            }
+            case "go" -> {
+                waitForSearch();
+                go(tokens);
+            }
+            case "stop" -> {
+                if (search != null) {
+                    search.stop();
+                }
+                waitForSearch();
+            }
+            case "quit" -> {
+                return false;
+            }
+            default -> {
+                if (!line.isEmpty()) {
+                    send("info string unknown command " + tokens[0]);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the running search and the search threads.
+     */
+    public void quit() {
+        if (search != null) {
+            search.stop();
+            waitForSearch();
+            search.shutdown();
+        }
+    }
+
+    private void setOption(String[] tokens) {
+        String name = null;
+        String value = null;
+        for (int i = 1; i < tokens.length - 1; i++) {
+            if (tokens[i].equals("name")) {
+                name = tokens[i + 1];
+            } else if (tokens[i].equals("value")) {
+                value = tokens[i + 1];
+            }
+        }
+        if (name == null || value == null) {
+            return;
+        }
+        waitForSearch();
+        try {
+            switch (name.toLowerCase()) {
+                case "hash" -> hashSize = Math.max(1, Integer.parseInt(value));
+                case "threads" -> threads = Math.max(1, Integer.parseInt(value));
+                case "multipv" -> {
+                    multiPv = Math.max(1, Integer.parseInt(value));
+                    if (search != null) {
+                        search.setMultiPv(multiPv);
+                    }
+                    return;
+                }
+                default -> {
+                    send("info string unknown option " + name);
+                    return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            send("info string invalid value " + value);
+            return;
+        }
+        // the search is created again with the new settings on the next "go"
+        if (search != null) {
+            search.shutdown();
+            search = null;
+        }
+    }
+
+    private void setPosition(String[] tokens) {
+        int index = 1;
+        if (tokens.length > 1 && tokens[1].equals("startpos")) {
+            game.fromFEN(Perft.START_FEN);
+            index = 2;
+        } else if (tokens.length > 1 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            index = 2;
+            while (index < tokens.length && !tokens[index].equals("moves")) {
+                fen.append(tokens[index++]).append(' ');
+            }
+            game.fromFEN(fen.toString().trim());
+        }
+        history = new long[0];
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            Board board = game.getBoard();
+            long[] played = new long[tokens.length - index - 1];
+            int count = 0;
+            for (int i = index + 1; i < tokens.length; i++) {
+                int move = Moves.fromUCI(board, tokens[i]);
+                if (move == Moves.NONE) {
+                    send("info string illegal move " + tokens[i]);
+                    break;
+                }
+                played[count++] = board.hash();
+                board.makeMove(move, new Undo());
+            }
+            history = Arrays.copyOf(played, count);
+        }
+    }
+
+    private void go(String[] tokens) {
+        SearchLimits limits = new SearchLimits();
+        for (int i = 1; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.equals("infinite")) {
+                continue;
+            }
+            if (i + 1 >= tokens.length) {
+                break;
+            }
+            long value;
+            try {
+                value = Long.parseLong(tokens[i + 1]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            switch (token) {
+                case "depth" -> limits.setDepth((int) value);
+                case "nodes" -> limits.setNodes(value);
+                case "movetime" -> limits.setMoveTime(value);
+                case "wtime" -> limits.setWhiteTime(value);
+                case "btime" -> limits.setBlackTime(value);
+                case "winc" -> limits.setWhiteIncrement(value);
+                case "binc" -> limits.setBlackIncrement(value);
+                case "movestogo" -> limits.setMovesToGo((int) value);
+                default -> {
+                    continue;
+                }
+            }
+            i++;
+        }
+
+        if (search == null) {
+            search = new ParallelSearch(threads, new TranspositionTable(hashSize));
+            search.setListener(this::sendInfo);
+            search.setTablebases(tablebases);
+            search.setMultiPv(multiPv);
+        }
+        Board board = game.getBoard();
+        String fen = board.getFEN(board.getHalfMoveClock(), board.getSideToMove());
+        search.setHistory(history);
+        running = search.searchAsync(fen, limits)
+                .thenAccept(move -> send("bestmove " + (move == Moves.NONE ? "0000" : Moves.toUCI(move))));
+    }
+
+    private void sendInfo(SearchInfo info) {
+        StringBuilder line = new StringBuilder("info depth ").append(info.depth());
+        if (multiPv > 1) {
+            line.append(" multipv ").append(info.multiPv());
+        }
+        if (info.isMate()) {
+            line.append(" score mate ").append(info.mateIn());
+        } else {
+            line.append(" score cp ").append(info.score());
+        }
+        line.append(" nodes ").append(info.nodes())
+                .append(" nps ").append(info.nodesPerSecond())
+                .append(" time ").append(info.time())
+                .append(" hashfull ").append(info.hashFull());
+        if (info.pv().length > 0) {
+            line.append(" pv");
+            for (int move : info.pv()) {
+                line.append(' ').append(Moves.toUCI(move));
+            }
+        }
+        send(line.toString());
+    }
+
+    private void waitForSearch() {
+        if (running == null) {
+            return;
+        }
+        try {
+            running.join();
+        } catch (CompletionException e) {
+            System.err.println("The search failed: " + e.getCause());
+        }
+        running = null;
+    }
+
+    private synchronized void send(String message) {
+        out.println(message);
+        out.flush();
+    }
+}
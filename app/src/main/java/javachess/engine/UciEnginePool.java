@@ -0,0 +1,272 @@
+package javachess.engine;
+
+import javachess.model.PieceColor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of long-lived external UCI engines (Stockfish or any other UCI executable) shared by the bot games.
+ * <p>
+ * Engines are started lazily, up to the size of the pool, and leased for one move at a time, so that many games
+ * can share a few warm processes. An engine moving to another game receives "ucinewgame" first.
+ * A leased engine is checked with "isready" and restarted if it died or hangs, and an engine failing during
+ * a search is discarded, the move being asked again to another one.
+ */
+public class UciEnginePool {
+    /**
+     * Time an engine has to answer the handshake or a health check.
+     */
+    private static final long READY_TIMEOUT_MS = 5000;
+    /**
+     * Time added to the time limit of a search before the engine is considered hung.
+     */
+    private static final long SEARCH_MARGIN_MS = 2000;
+    /**
+     * Time to wait for a search limited by depth or nodes only.
+     */
+    private static final long UNTIMED_SEARCH_TIMEOUT_MS = 5 * 60 * 1000;
+    /**
+     * Time a move waits for a free engine.
+     */
+    private static final long LEASE_TIMEOUT_MS = 60 * 1000;
+
+    private static final Map<List<String>, UciEnginePool> SHARED = new ConcurrentHashMap<>();
+
+    private final List<String> command;
+    private final int size;
+    private final BlockingQueue<UciProcess> idle = new LinkedBlockingQueue<>();
+    private final List<UciProcess> engines = new ArrayList<>();
+    private boolean shutdown;
+
+    private long leases;
+    private long restarts;
+
+    /**
+     * @param command the executable of the engine followed by its arguments
+     * @param size    the maximum number of engine processes
+     */
+    public UciEnginePool(List<String> command, int size) {
+        if (command.isEmpty()) {
+            throw new IllegalArgumentException("No UCI engine executable given");
+        }
+        this.command = List.copyOf(command);
+        this.size = Math.max(1, size);
+    }
+
+    /**
+     * Gets the pool shared by every game using the given engine, creating it on first use.
+     *
+     * @param command the executable of the engine followed by its arguments
+     * @param size    the maximum number of engine processes, used when the pool is created
+     * @return the shared pool
+     */
+    public static UciEnginePool shared(List<String> command, int size) {
+        return SHARED.computeIfAbsent(List.copyOf(command), key -> {
+            UciEnginePool pool = new UciEnginePool(key, size);
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown));
+            return pool;
+        });
+    }
+
+    /**
+     * Creates the engine of a new game: its moves are computed by the engines of the pool.
+     */
+    public BotEngine newGame() {
+        return new BotEngine() {
+            @Override
+            public String getBestMove(String fen, SearchLimits limits) throws Exception {
+                return UciEnginePool.this.getBestMove(this, fen, limits);
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return UciEnginePool.this.isAvailable();
+            }
+        };
+    }
+
+    /**
+     * Gets the best move of a position of a game, from a leased engine.
+     *
+     * @param game   the game the position belongs to, any object identifying it
+     * @param fen    the position, in FEN
+     * @param limits the limits of the search, which must not be infinite
+     * @return the best move in long algebraic notation, or null if there is none
+     * @throws IOException if no engine could answer
+     */
+    public String getBestMove(Object game, String fen, SearchLimits limits) throws IOException {
+        if (!limits.isTimed() && limits.getDepth() <= 0 && limits.getNodes() <= 0) {
+            throw new IllegalArgumentException("The search of an external engine must be limited");
+        }
+        String[] fields = fen.split(" ");
+        PieceColor side = fields.length > 1 && fields[1].equals("b") ? PieceColor.BLACK : PieceColor.WHITE;
+        long hardLimit = limits.getHardLimit(side);
+        long timeout = hardLimit == Long.MAX_VALUE ? UNTIMED_SEARCH_TIMEOUT_MS : hardLimit + SEARCH_MARGIN_MS;
+        IOException failure = null;
+        // one retry, on a fresh engine, if the leased one fails during the search
+        for (int attempt = 0; attempt < 2; attempt++) {
+            UciProcess engine = lease(game);
+            try {
+                String move = engine.bestMove(fen, limits, timeout);
+                release(engine);
+                return move;
+            } catch (IOException e) {
+                failure = e;
+                discard(engine);
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Leases an engine ready to search a position of the given game.
+     *
+     * @param game the game the engine is leased for
+     * @return a healthy engine, which must be given back with {@link #release} or {@link #discard}
+     * @throws IOException if no engine could be started or none became free in time
+     */
+    UciProcess lease(Object game) throws IOException {
+        long deadline = System.currentTimeMillis() + LEASE_TIMEOUT_MS;
+        UciProcess engine = idle.poll();
+        // a discarded engine frees a place, so starting one is tried again while waiting
+        while (engine == null && (engine = startIfBelowSize()) == null) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IOException("No UCI engine became free within " + LEASE_TIMEOUT_MS + " ms");
+            }
+            try {
+                engine = idle.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for an engine", e);
+            }
+        }
+        synchronized (this) {
+            leases++;
+        }
+        engine.switchTo(game);
+        if (!engine.isReady(READY_TIMEOUT_MS)) {
+            engine = restart(engine);
+            engine.switchTo(game);
+        }
+        return engine;
+    }
+
+    /**
+     * Gives a leased engine back to the pool.
+     */
+    void release(UciProcess engine) {
+        synchronized (this) {
+            if (shutdown) {
+                engine.destroy();
+                return;
+            }
+        }
+        idle.add(engine);
+    }
+
+    /**
+     * Stops a leased engine which failed, freeing its place in the pool.
+     */
+    void discard(UciProcess engine) {
+        engine.kill();
+        synchronized (this) {
+            engines.remove(engine);
+        }
+    }
+
+    private UciProcess startIfBelowSize() throws IOException {
+        synchronized (this) {
+            if (shutdown) {
+                throw new IOException("The engine pool is shut down");
+            }
+            if (engines.size() >= size) {
+                return null;
+            }
+            // reserve the place while the engine starts
+            engines.add(null);
+        }
+        try {
+            UciProcess engine = new UciProcess(command, READY_TIMEOUT_MS);
+            synchronized (this) {
+                engines.set(engines.indexOf(null), engine);
+            }
+            return engine;
+        } catch (IOException e) {
+            synchronized (this) {
+                engines.remove(null);
+            }
+            throw e;
+        }
+    }
+
+    private UciProcess restart(UciProcess engine) throws IOException {
+        engine.kill();
+        synchronized (this) {
+            restarts++;
+        }
+        try {
+            UciProcess restarted = new UciProcess(command, READY_TIMEOUT_MS);
+            synchronized (this) {
+                engines.set(engines.indexOf(engine), restarted);
+            }
+            return restarted;
+        } catch (IOException e) {
+            synchronized (this) {
+                engines.remove(engine);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Checks if an engine of the pool can be used, starting one if needed.
+     */
+    public boolean isAvailable() {
+        try {
+            release(lease(null));
+            return true;
+        } catch (IOException e) {
+            System.err.println("UCI engine unavailable: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stops every engine of the pool. Leased engines are stopped when they are given back.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+        }
+        UciProcess engine;
+        while ((engine = idle.poll()) != null) {
+            engine.destroy();
+        }
+    }
+
+    /**
+     * Gets the number of running engines.
+     */
+    public synchronized int getEngineCount() {
+        return (int) engines.stream().filter(engine -> engine != null).count();
+    }
+
+    public synchronized long getLeases() {
+        return leases;
+    }
+
+    public synchronized long getRestarts() {
+        return restarts;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,179 @@
+package javachess.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * External chess engine speaking the UCI protocol, run as a subprocess.
+ * <p>
+ * The output of the engine is read by a daemon thread into a queue, so that every answer can be awaited
+ * with a timeout: an engine that hangs is detected instead of blocking the game.
+ */
+class UciProcess {
+    /**
+     * Line put in the queue when the output of the engine ends.
+     */
+    private static final String END_OF_OUTPUT = "\0";
+
+    private final Process process;
+    private final PrintWriter input;
+    private final BlockingQueue<String> output = new LinkedBlockingQueue<>();
+    private Object game;
+
+    /**
+     * Starts the engine and waits for the end of the UCI handshake.
+     *
+     * @param command     the executable of the engine followed by its arguments
+     * @param timeoutMs   the time the engine has to answer the handshake
+     * @throws IOException if the engine could not be started or did not answer
+     */
+    UciProcess(List<String> command, long timeoutMs) throws IOException {
+        process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        input = new PrintWriter(process.getOutputStream(), true, StandardCharsets.UTF_8);
+        Thread reader = new Thread(this::readOutput, "uci-reader-" + process.pid());
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            send("uci");
+            await("uciok", timeoutMs);
+            if (!isReady(timeoutMs)) {
+                throw new IOException("The engine did not answer isready");
+            }
+        } catch (IOException e) {
+            destroy();
+            throw e;
+        }
+    }
+
+    private void readOutput() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.add(line.trim());
+            }
+        } catch (IOException ignored) {
+            // the process was destroyed
+        }
+        output.add(END_OF_OUTPUT);
+    }
+
+    void send(String command) {
+        input.println(command);
+    }
+
+    /**
+     * Waits for a line of the engine starting with the given token, skipping the other lines.
+     *
+     * @param token     the expected first token (e.g. "readyok", "bestmove")
+     * @param timeoutMs the maximum time to wait
+     * @return the line
+     * @throws IOException if the engine stopped or did not answer in time
+     */
+    String await(String token, long timeoutMs) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                String line = output.poll(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                if (line == null) {
+                    throw new IOException("The engine did not send " + token + " within " + timeoutMs + " ms");
+                }
+                if (line.equals(END_OF_OUTPUT)) {
+                    output.add(END_OF_OUTPUT);
+                    throw new IOException("The engine stopped");
+                }
+                if (line.equals(token) || line.startsWith(token + " ")) {
+                    return line;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + token, e);
+        }
+    }
+
+    /**
+     * Checks that the engine is running and answers "isready" in time.
+     */
+    boolean isReady(long timeoutMs) {
+        if (!process.isAlive()) {
+            return false;
+        }
+        try {
+            send("isready");
+            await("readyok", timeoutMs);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Tells the engine that the next positions belong to another game, unless it already played the given one.
+     *
+     * @param game the game the engine is leased for
+     * @return true if "ucinewgame" was sent
+     */
+    boolean switchTo(Object game) {
+        if (this.game == game) {
+            return false;
+        }
+        this.game = game;
+        send("ucinewgame");
+        return true;
+    }
+
+    /**
+     * Searches a position and waits for the answer of the engine.
+     *
+     * @param fen       the position, in FEN
+     * @param limits    the limits of the search
+     * @param timeoutMs the maximum time to wait for the best move
+     * @return the best move in long algebraic notation, or null if there is none
+     * @throws IOException if the engine stopped or did not answer in time
+     */
+    String bestMove(String fen, SearchLimits limits, long timeoutMs) throws IOException {
+        send("position fen " + fen);
+        send(limits.toGoCommand());
+        String[] tokens = await("bestmove", timeoutMs).split("\\s+");
+        if (tokens.length < 2 || tokens[1].equals("0000") || tokens[1].equals("(none)")) {
+            return null;
+        }
+        return tokens[1];
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Asks the engine to quit, and kills it if it does not.
+     */
+    void destroy() {
+        if (process.isAlive()) {
+            send("quit");
+            try {
+                if (!process.waitFor(200, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Kills the engine immediately (used to simulate or recover from a crash).
+     */
+    void kill() {
+        process.destroyForcibly();
+    }
+}
@@ -1,6 +1,9 @@
 package javachess.model;
 
 import javachess.decorators.Directions;
+import javachess.movegen.Bitboards;
+import javachess.movegen.BitboardMoveGenerator;
+import javachess.movegen.MoveGenerator;
 import javachess.parser.CastlingInstruction;
 import javachess.parser.Instruction;
 import javachess.parser.RegularInstruction;
@@ -14,27 +17,253 @@ import static java.lang.System.exit;
  * Class representing a chess board.
  * The board is an 8x8 grid of cells, each of which can contain a piece.
  * The board keeps track of the last move made and provides methods to manipulate the pieces on the board.
+ * <p>
+ * Cells are stored in a flat array indexed by square (see {@link Position#getIndex()}), so that lookups
+ * never allocate nor hash. The {@link BiMap} returned by {@link #getCells()} is only a compatibility view
+ * over the same cached {@link Cell} and {@link Position} instances.
  */
 public class Board {
+    static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    // values of the pieces in exchanges, indexed by PieceType.ordinal(): the king is worth more than all the others together
+    private static final int[] EXCHANGE_VALUES = {
+            PieceSquareTables.MIDDLEGAME_VALUES[0], PieceSquareTables.MIDDLEGAME_VALUES[1], PieceSquareTables.MIDDLEGAME_VALUES[2],
+            PieceSquareTables.MIDDLEGAME_VALUES[3], PieceSquareTables.MIDDLEGAME_VALUES[4], 20000};
+    // piece types from the least valuable, the order in which they join an exchange
+    private static final PieceType[] EXCHANGE_ORDER = {
+            PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING};
+
+    private final Cell[] squares = new Cell[64];
+    private final Position[] positions = new Position[64];
     private final BiMap<Position, Cell> cells;
+    // One bitboard per color and piece type (bit n set when square n holds such a piece), kept in sync by the cells
+    private final long[] pieceBitboards = new long[12];
+    private final long[] colorBitboards = new long[2];
+    // Zobrist key of the pieces on their squares, kept in sync by the cells (see hash())
+    private long pieceKey;
+    // Zobrist key of the pawns alone, for the caches of pawn structure evaluation (see pawnHash())
+    private long pawnKey;
+    // Material and piece-square scores of the pieces (positive when white is better) and game phase, kept in sync by the cells
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
+    // Square of the king of each color, -1 if there is none
+    private final int[] kingSquares = {-1, -1};
+    // Incremented on every piece change, lets the move generators cache what only depends on the pieces
+    private long version;
+    private MoveGenerator moveGenerator = new BitboardMoveGenerator();
     private Move lastMove;
     boolean isEnPassantPossible;
     int moveCounter = 1;
+    private PieceColor sideToMove = PieceColor.WHITE;
+    private int halfMoveClock = 0;
+    private final Move[] moveCache = new Move[64 * 64];
+    // Scratch list used to validate single moves
+    private final MoveList legalMoves = new MoveList();
+    // Scratch gains of the successive captures of see(), at most one per piece
+    private final int[] exchangeGains = new int[33];
 
     public Board() {
         cells = new BiMap<>();
+        for (int index = 0; index < 64; index++) {
+            squares[index] = new Cell(this, index);
+            positions[index] = new Position(index & 7, index >> 3);
+            cells.put(positions[index], squares[index]);
+        }
         setInitialPieces();
         lastMove = null;
     }
 
+    /**
+     * Gets a bidirectional view of the board cells.
+     * Prefer {@link #getCell(int)}, {@link #getCell(Position)} and {@link #getPosition(Cell)} in hot paths.
+     *
+     * @return the cells of the board, keyed by their position
+     */
     public BiMap<Position, Cell> getCells() {
         return cells;
     }
 
+    /**
+     * Gets the cell at the given square index.
+     *
+     * @param index the square index (0..63)
+     * @return the cell, or null if the index is outside the board
+     */
+    public Cell getCell(int index) {
+        return (index & ~63) == 0 ? squares[index] : null;
+    }
+
+    /**
+     * Gets the cell at the given coordinates.
+     *
+     * @param x the column (0 to 7)
+     * @param y the row (0 to 7)
+     * @return the cell, or null if the coordinates are outside the board
+     */
+    public Cell getCell(int x, int y) {
+        return Position.isOnBoard(x, y) ? squares[Position.toIndex(x, y)] : null;
+    }
+
+    /**
+     * Gets the cell at the given position.
+     *
+     * @param position the position
+     * @return the cell, or null if the position is outside the board
+     */
+    public Cell getCell(Position position) {
+        return getCell(position.getX(), position.getY());
+    }
+
+    /**
+     * Gets the cached position of a square.
+     *
+     * @param index the square index (0..63)
+     * @return the position of the square
+     */
+    public Position getPosition(int index) {
+        return positions[index];
+    }
+
+    /**
+     * Gets the cached position of a cell of this board.
+     *
+     * @param cell the cell
+     * @return the position of the cell, or null if the cell does not belong to the board grid
+     */
+    public Position getPosition(Cell cell) {
+        return cell != null && cell.getBoard() == this && cell.getIndex() >= 0 ? positions[cell.getIndex()] : null;
+    }
+
     public Move getLastMove() {
         return lastMove;
     }
 
+    /**
+     * Gets the color of the player who plays the next move on this board.
+     * @return the side to move
+     */
+    public PieceColor getSideToMove() {
+        return sideToMove;
+    }
+
+    public MoveGenerator getMoveGenerator() {
+        return moveGenerator;
+    }
+
+    /**
+     * Selects the move generator used to compute valid moves, checks and mates.
+     *
+     * @param moveGenerator the move generator to use
+     */
+    public void setMoveGenerator(MoveGenerator moveGenerator) {
+        this.moveGenerator = moveGenerator;
+    }
+
+    /**
+     * Gets the bitboard of the pieces of the given color and type.
+     *
+     * @param color the color of the pieces
+     * @param type  the type of the pieces
+     * @return a bitboard where bit n is set if square n holds such a piece
+     */
+    public long getBitboard(PieceColor color, PieceType type) {
+        return pieceBitboards[color.ordinal() * 6 + type.ordinal()];
+    }
+
+    /**
+     * Gets the bitboard of all the pieces of the given color.
+     *
+     * @param color the color of the pieces
+     * @return a bitboard where bit n is set if square n holds a piece of that color
+     */
+    public long getColorBitboard(PieceColor color) {
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * Gets the bitboard of all occupied squares.
+     *
+     * @return a bitboard where bit n is set if square n is not empty
+     */
+    public long getOccupancy() {
+        return colorBitboards[0] | colorBitboards[1];
+    }
+
+    /**
+     * Gets the middlegame material and piece-square score of the pieces, updated incrementally as they move.
+     *
+     * @return the score in centipawns, positive when white is better
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * Gets the endgame material and piece-square score of the pieces, updated incrementally as they move.
+     *
+     * @return the score in centipawns, positive when white is better
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * Gets the game phase, from the pieces left on the board (see {@link PieceSquareTables#PHASE_WEIGHTS}).
+     *
+     * @return the phase, {@link PieceSquareTables#MAX_PHASE} at the start of the game (more after promotions)
+     * and 0 with only kings and pawns
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Called by the cells of the board whenever their piece changes, to keep the bitboards, the hashes,
+     * the piece-square scores and the king squares up to date.
+     *
+     * @param index    the index of the cell
+     * @param previous the piece that was on the cell (may be null)
+     * @param piece    the piece now on the cell (may be null)
+     */
+    void onPieceChanged(int index, Piece previous, Piece piece) {
+        long bit = 1L << index;
+        version++;
+        if (previous != null) {
+            int kind = previous.getColor().ordinal() * 6 + previous.getType().ordinal();
+            pieceBitboards[kind] &= ~bit;
+            colorBitboards[previous.getColor().ordinal()] &= ~bit;
+            pieceKey ^= Zobrist.pieceKey(previous, index);
+            if (previous.getType() == PieceType.PAWN) {
+                pawnKey ^= Zobrist.pieceKey(previous, index);
+            }
+            middlegameScore -= PieceSquareTables.MIDDLEGAME[kind][index];
+            endgameScore -= PieceSquareTables.ENDGAME[kind][index];
+            phase -= PieceSquareTables.PHASE[kind];
+            if (previous.getType() == PieceType.KING && kingSquares[previous.getColor().ordinal()] == index) {
+                kingSquares[previous.getColor().ordinal()] = -1;
+            }
+        }
+        if (piece != null) {
+            int kind = piece.getColor().ordinal() * 6 + piece.getType().ordinal();
+            pieceBitboards[kind] |= bit;
+            colorBitboards[piece.getColor().ordinal()] |= bit;
+            pieceKey ^= Zobrist.pieceKey(piece, index);
+            if (piece.getType() == PieceType.PAWN) {
+                pawnKey ^= Zobrist.pieceKey(piece, index);
+            }
+            middlegameScore += PieceSquareTables.MIDDLEGAME[kind][index];
+            endgameScore += PieceSquareTables.ENDGAME[kind][index];
+            phase += PieceSquareTables.PHASE[kind];
+            if (piece.getType() == PieceType.KING) {
+                kingSquares[piece.getColor().ordinal()] = index;
+            }
+        }
+    }
+
     /**
      * Sets the initial pieces on the board.
      * The pieces are placed in their starting positions according to the rules of chess.
@@ -42,9 +271,9 @@ public class Board {
     public void setInitialPieces(){
         for(int i = 0; i < 8; i++){
             for(int j = 0; j < 8; j++){
+                Cell currentCell = getCell(i, j);
                 if(j == 0 || j == 1 || j == 6 || j == 7){
                     Piece piece = null;
-                    Cell currentCell = new Cell(this);
                     if(j == 0 || j == 7){
                         PieceColor pieceColor = j == 0 ? PieceColor.BLACK : PieceColor.WHITE;
                         switch (i) {
@@ -58,9 +287,8 @@ public class Board {
                         piece = new Pawn(j == 1 ? PieceColor.BLACK : PieceColor.WHITE, currentCell);
                     }
                     currentCell.setPiece(piece);
-                    cells.put(new Position(i, j), currentCell);
                 } else {
-                    cells.put(new Position(i, j), new Cell(this));
+                    currentCell.setPiece(null);
                 }
             }
         }
@@ -73,14 +301,15 @@ public class Board {
      * @param roque whether the move is a castling move
      */
     void applyMove(Move move, boolean roque){
-        Cell fromCell = cells.get(move.from());
-        Cell toCell = cells.get(move.to());
+        Cell fromCell = getCell(move.from());
+        Cell toCell = getCell(move.to());
         if(getValidCellsForBoard(fromCell.getPiece()).contains(toCell) || roque){
             Piece piece = fromCell.getPiece();
             fromCell.setPiece(null);
             toCell.setPiece(piece);
             piece.setMoved();
             lastMove = move;
+            sideToMove = piece.getColor().opposite();
             isEnPassantPossible = Math.abs(move.to().getY() - move.from().getY()) == 2 && piece.getType() == PieceType.PAWN;
             if(piece.getColor() == PieceColor.BLACK){
                 moveCounter++;
@@ -96,58 +325,183 @@ public class Board {
      * @param color the color of the king to check
      * @return true if the king is in check, false otherwise
      */
-    boolean isCheck(PieceColor color){
-        // find the king
-        for (Cell cell : cells.reverseKeySet()) {
-            Piece piece = cell.getPiece();
-            if (piece != null && piece.getType() == PieceType.KING && piece.getColor() == color) {
-                // check if any opponent piece can attack the king
-                for (Cell opponentCell : cells.reverseKeySet()) {
-                    Piece opponentPiece = opponentCell.getPiece();
-                    if (opponentPiece != null && opponentPiece.getColor() != color) {
-                        if (opponentPiece.getDecorator().getValidCells().contains(cell)) {
-                            return true; // King is in check
-                        }
-                    }
-                }
-                return false;
-            }
-        }
-        return false; // King not found (should not happen)
+    public boolean isCheck(PieceColor color){
+        int kingSquare = kingSquares[color.ordinal()];
+        return kingSquare >= 0 && isSquareAttacked(kingSquare, color.opposite());
     }
 
     /**
-     * Checks if the king of the given color is in checkmate.
-     * it simulates all the possible moves of the pieces of the given color
+     * Gets the version of the piece placement, which changes every time a piece is added, moved or removed.
      *
-     * @param color the color of the king to check
-     * @return true if the king is in checkmate, false otherwise
+     * @return the current version
      */
-    public boolean cannotMoveWithoutMate(PieceColor color) {
-        for (Cell from : cells.reverseKeySet()) {
-            Piece piece = from.getPiece();
-            if (piece != null && piece.getColor() == color) {
-                ArrayList<Cell> destinations = piece.getDecorator().getValidCells();
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the square of the king of the given color.
+     *
+     * @param color the color of the king
+     * @return the square index of the king, or -1 if there is no king of that color on the board
+     */
+    public int getKingSquare(PieceColor color) {
+        return kingSquares[color.ordinal()];
+    }
 
-                for (Cell to : destinations) {
-                    Piece captured = to.getPiece();
+    /**
+     * Checks if a square is attacked by a piece of the given color.
+     * Instead of generating the moves of every opponent piece, this looks outward from the square:
+     * knight, king and pawn attacks come from precomputed tables, and sliding rays stop at the first blocker.
+     *
+     * @param square the square index
+     * @param by     the color of the attackers
+     * @return true if at least one piece of that color attacks the square
+     */
+    public boolean isSquareAttacked(int square, PieceColor by) {
+        return isSquareAttacked(square, by, getOccupancy(), -1L);
+    }
 
-                    to.setPiece(piece);
-                    from.setPiece(null);
+    /**
+     * Checks if a square is attacked by a piece of the given color, on a hypothetical occupancy.
+     * Used to test a move without playing it.
+     *
+     * @param square    the square index
+     * @param by        the color of the attackers
+     * @param occupancy the occupied squares to use for sliding rays
+     * @param mask      the squares where attackers are still present (used to ignore captured pieces)
+     * @return true if at least one piece attacks the square
+     */
+    public boolean isSquareAttacked(int square, PieceColor by, long occupancy, long mask) {
+        int offset = by.ordinal() * 6;
+        if ((Bitboards.PAWN_ATTACKS[by.opposite().ordinal()][square] & pieceBitboards[offset + PieceType.PAWN.ordinal()] & mask) != 0) {
+            return true;
+        }
+        if ((Bitboards.KNIGHT_ATTACKS[square] & pieceBitboards[offset + PieceType.KNIGHT.ordinal()] & mask) != 0) {
+            return true;
+        }
+        if ((Bitboards.KING_ATTACKS[square] & pieceBitboards[offset + PieceType.KING.ordinal()] & mask) != 0) {
+            return true;
+        }
+        long queens = pieceBitboards[offset + PieceType.QUEEN.ordinal()];
+        long diagonal = (pieceBitboards[offset + PieceType.BISHOP.ordinal()] | queens) & mask;
+        if (diagonal != 0 && (Bitboards.bishopAttacks(square, occupancy) & diagonal) != 0) {
+            return true;
+        }
+        long straight = (pieceBitboards[offset + PieceType.ROOK.ordinal()] | queens) & mask;
+        return straight != 0 && (Bitboards.rookAttacks(square, occupancy) & straight) != 0;
+    }
 
-                    boolean inCheck = isCheck(color);
+    /**
+     * Gets the squares of the pieces of both colors attacking a square, on a hypothetical occupancy.
+     *
+     * @param square    the square index
+     * @param occupancy the occupied squares to use for sliding rays, pieces outside of it are ignored
+     * @return a bitboard of the attackers
+     */
+    public long getAttackers(int square, long occupancy) {
+        long attackers = Bitboards.PAWN_ATTACKS[PieceColor.BLACK.ordinal()][square] & pieceBitboards[PieceType.PAWN.ordinal()]
+                | Bitboards.PAWN_ATTACKS[PieceColor.WHITE.ordinal()][square] & pieceBitboards[6 + PieceType.PAWN.ordinal()]
+                | Bitboards.KNIGHT_ATTACKS[square] & (pieceBitboards[PieceType.KNIGHT.ordinal()] | pieceBitboards[6 + PieceType.KNIGHT.ordinal()])
+                | Bitboards.KING_ATTACKS[square] & (pieceBitboards[PieceType.KING.ordinal()] | pieceBitboards[6 + PieceType.KING.ordinal()])
+                | Bitboards.bishopAttacks(square, occupancy) & diagonalSliders()
+                | Bitboards.rookAttacks(square, occupancy) & straightSliders();
+        return attackers & occupancy;
+    }
 
-                    from.setPiece(piece);
-                    to.setPiece(captured);
+    private long diagonalSliders() {
+        return pieceBitboards[PieceType.BISHOP.ordinal()] | pieceBitboards[6 + PieceType.BISHOP.ordinal()]
+                | pieceBitboards[PieceType.QUEEN.ordinal()] | pieceBitboards[6 + PieceType.QUEEN.ordinal()];
+    }
 
-                    if (!inCheck) {
-                        return false;
-                    }
+    private long straightSliders() {
+        return pieceBitboards[PieceType.ROOK.ordinal()] | pieceBitboards[6 + PieceType.ROOK.ordinal()]
+                | pieceBitboards[PieceType.QUEEN.ordinal()] | pieceBitboards[6 + PieceType.QUEEN.ordinal()];
+    }
+
+    /**
+     * Static exchange evaluation: resolves the sequence of captures on the target square of a move, each side
+     * recapturing with its least valuable piece and free to stop when going on would lose material.
+     * The move is not played: the pieces which capture are taken out of the occupancy, which uncovers the sliders
+     * behind them (x-rays). Pins and checks are ignored.
+     *
+     * @param move the encoded move, a capture or not
+     * @return the material won by the side playing the move at the end of the exchange, in centipawns (negative if it loses material)
+     */
+    public int see(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        PieceColor side = squares[from].getPiece().getColor();
+        long occupancy = getOccupancy() & ~(1L << from);
+        int[] gains = exchangeGains;
+        if (Moves.isEnPassant(move)) {
+            occupancy &= ~(1L << (side == PieceColor.WHITE ? to + 8 : to - 8));
+            gains[0] = EXCHANGE_VALUES[PieceType.PAWN.ordinal()];
+        } else {
+            Piece victim = squares[to].getPiece();
+            gains[0] = victim == null ? 0 : EXCHANGE_VALUES[victim.getType().ordinal()];
+        }
+        // value of the piece standing on the target square, which the next capture takes
+        int standing = EXCHANGE_VALUES[squares[from].getPiece().getType().ordinal()];
+        PieceType promotion = Moves.promotion(move);
+        if (promotion != null) {
+            gains[0] += EXCHANGE_VALUES[promotion.ordinal()] - EXCHANGE_VALUES[PieceType.PAWN.ordinal()];
+            standing = EXCHANGE_VALUES[promotion.ordinal()];
+        }
+
+        long attackers = getAttackers(to, occupancy);
+        long diagonal = diagonalSliders();
+        long straight = straightSliders();
+        PieceColor color = side.opposite();
+        int depth = 0;
+        while (true) {
+            long own = attackers & colorBitboards[color.ordinal()];
+            if (own == 0) {
+                break;
+            }
+            PieceType type = null;
+            long attacker = 0;
+            for (PieceType candidate : EXCHANGE_ORDER) {
+                attacker = own & pieceBitboards[color.ordinal() * 6 + candidate.ordinal()];
+                if (attacker != 0) {
+                    type = candidate;
+                    break;
                 }
             }
+            // the king cannot take a defended piece
+            if (type == PieceType.KING && (attackers & colorBitboards[color.opposite().ordinal()]) != 0) {
+                break;
+            }
+            depth++;
+            gains[depth] = standing - gains[depth - 1];
+            standing = EXCHANGE_VALUES[type.ordinal()];
+            occupancy &= ~(attacker & -attacker);
+            // the sliders behind the piece which captured join the exchange
+            if (type == PieceType.PAWN || type == PieceType.BISHOP || type == PieceType.QUEEN) {
+                attackers |= Bitboards.bishopAttacks(to, occupancy) & diagonal;
+            }
+            if (type == PieceType.ROOK || type == PieceType.QUEEN) {
+                attackers |= Bitboards.rookAttacks(to, occupancy) & straight;
+            }
+            attackers &= occupancy;
+            color = color.opposite();
+        }
+        // each side only captures when it gains from it
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
         }
+        return gains[0];
+    }
 
-        return true;
+    /**
+     * Checks if the player of the given color has no legal move left (checkmate or stalemate).
+     *
+     * @param color the color of the player to check
+     * @return true if the player cannot move without leaving their king in check, false otherwise
+     */
+    public boolean cannotMoveWithoutMate(PieceColor color) {
+        return !moveGenerator.hasLegalMove(this, color);
     }
 
     /**
@@ -156,25 +510,493 @@ public class Board {
      * @return a list of valid cells for the piece to move to
      */
     public ArrayList<Cell> getValidCellsForBoard(Piece piece) {
-        PieceColor color = piece.getColor();
-        Cell from = piece.getCell();
-        ArrayList<Cell> validCells = new ArrayList<>();
-        for (Cell to : piece.getDecorator().getValidCells()) {
-            Piece captured = to.getPiece();
+        return moveGenerator.getValidCells(this, piece);
+    }
+
+    /**
+     * Gets all the legal moves of the given color.
+     * Pawn moves to the last row are expanded into one move per promotion piece.
+     *
+     * @param color the color of the player
+     * @return the list of legal moves
+     */
+    public ArrayList<Move> getLegalMoves(PieceColor color) {
+        MoveList list = new MoveList();
+        moveGenerator.generateLegalMoves(this, color, list);
+        ArrayList<Move> moves = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            moves.add(Moves.toMove(this, list.get(i)));
+        }
+        return moves;
+    }
+
+    /**
+     * Gets all the legal moves of the given color, encoded with {@link Moves}.
+     * The list is cleared first, and is meant to be reused so that generating moves does not allocate.
+     *
+     * @param color the color of the player
+     * @param moves the list to fill
+     */
+    public void generateLegalMoves(PieceColor color, MoveList moves) {
+        moves.clear();
+        moveGenerator.generateLegalMoves(this, color, moves);
+    }
+
+    /**
+     * Checks if a move is legal for the piece on its starting square.
+     * A move without promotion matches the promotions of a pawn, the piece being chosen later.
+     *
+     * @param move the encoded move
+     * @return true if the piece on the starting square can legally play the move
+     */
+    public boolean isLegalMove(int move) {
+        Piece piece = squares[Moves.from(move)].getPiece();
+        if (piece == null) {
+            return false;
+        }
+        generateLegalMoves(piece.getColor(), legalMoves);
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int legal = legalMoves.get(i);
+            if (Moves.sameSquares(legal, move) && (Moves.promotion(move) == null || Moves.promotion(move) == Moves.promotion(legal))) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            to.setPiece(piece);
-            from.setPiece(null);
+    /**
+     * Finds a legal move of the side to move.
+     *
+     * @param from      the square the piece moves from
+     * @param to        the square the piece moves to
+     * @param promotion the promotion piece, null if the move is not a promotion
+     * @return the encoded move with its flags, or {@link Moves#NONE} if there is no such legal move
+     */
+    public int findLegalMove(int from, int to, PieceType promotion) {
+        generateLegalMoves(sideToMove, legalMoves);
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int legal = legalMoves.get(i);
+            if (Moves.from(legal) == from && Moves.to(legal) == to && Moves.promotion(legal) == promotion) {
+                return legal;
+            }
+        }
+        return Moves.NONE;
+    }
 
-            boolean inCheck = isCheck(color);
+    /**
+     * Counts the leaf nodes of the legal move tree of the given depth, for the side to move.
+     * See <a href="https://www.chessprogramming.org/Perft">perft</a>.
+     *
+     * @param depth the depth of the tree
+     * @return the number of leaf nodes
+     */
+    public long perft(int depth) {
+        return perft(depth, newUndoStack(depth), newMoveListStack(depth));
+    }
 
-            from.setPiece(piece);
-            to.setPiece(captured);
+    private long perft(int depth, Undo[] undoStack, MoveList[] moveLists) {
+        if (depth <= 0) {
+            return 1;
+        }
+        MoveList moves = moveLists[depth - 1];
+        generateLegalMoves(sideToMove, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        Undo undo = undoStack[depth - 1];
+        for (int i = 0; i < moves.size(); i++) {
+            makeMove(moves.get(i), undo);
+            nodes += perft(depth - 1, undoStack, moveLists);
+            unmakeMove(undo);
+        }
+        return nodes;
+    }
 
-            if (!inCheck) {
-                validCells.add(to);
+    /**
+     * Same as {@link #perft(int)}, with the node count split by root move.
+     *
+     * @param depth the depth of the tree
+     * @return the number of leaf nodes for each root move (in long algebraic notation), in generation order,
+     * empty for a depth below 1
+     */
+    public LinkedHashMap<String, Long> divide(int depth) {
+        LinkedHashMap<String, Long> result = new LinkedHashMap<>();
+        if (depth < 1) {
+            return result;
+        }
+        Undo[] undoStack = newUndoStack(depth);
+        MoveList[] moveLists = newMoveListStack(depth);
+        MoveList moves = moveLists[depth - 1];
+        generateLegalMoves(sideToMove, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            makeMove(move, undoStack[depth - 1]);
+            result.put(Moves.toUCI(move), perft(depth - 1, undoStack, moveLists));
+            unmakeMove(undoStack[depth - 1]);
+        }
+        return result;
+    }
+
+    private static Undo[] newUndoStack(int depth) {
+        Undo[] undoStack = new Undo[Math.max(depth, 1)];
+        for (int i = 0; i < undoStack.length; i++) {
+            undoStack[i] = new Undo();
+        }
+        return undoStack;
+    }
+
+    private static MoveList[] newMoveListStack(int depth) {
+        MoveList[] moveLists = new MoveList[Math.max(depth, 1)];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+        return moveLists;
+    }
+
+    /**
+     * Gets the move between two squares, without promotion.
+     * Moves are cached, so calling this method does not allocate once the board is warm.
+     *
+     * @param from the square index the piece moves from
+     * @param to   the square index the piece moves to
+     * @return the move
+     */
+    public Move getMove(int from, int to) {
+        Move move = moveCache[(from << 6) | to];
+        if (move == null) {
+            move = new Move(positions[from], positions[to]);
+            moveCache[(from << 6) | to] = move;
+        }
+        return move;
+    }
+
+    /**
+     * Plays a move and returns the record needed to take it back.
+     *
+     * @param move the move to play (it must be legal)
+     * @return the undo record of the move
+     * @see #makeMove(Move, Undo)
+     */
+    public Undo makeMove(Move move) {
+        Undo undo = new Undo();
+        makeMove(move, undo);
+        return undo;
+    }
+
+    /**
+     * Plays a legal move with all its side effects (castling rook, en passant capture, promotion, moved flags,
+     * last move, counters and side to move), without any validation nor notification.
+     * The previous state is stored in the given undo record, to be restored by {@link #unmakeMove(Undo)}.
+     *
+     * @param move the move to play (it must be legal)
+     * @param undo the record to fill
+     */
+    public void makeMove(Move move, Undo undo) {
+        makeMove(Moves.fromMove(this, move), undo);
+    }
+
+    /**
+     * Plays a legal move encoded with {@link Moves}, see {@link #makeMove(Move, Undo)}.
+     *
+     * @param move the encoded move to play (it must be legal)
+     * @param undo the record to fill
+     */
+    public void makeMove(int move, Undo undo) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        Cell fromCell = squares[from];
+        Cell toCell = squares[to];
+        Piece piece = fromCell.getPiece();
+        int dx = (to & 7) - (from & 7);
+
+        undo.move = move;
+        undo.piece = piece;
+        undo.pieceMoved = piece.hasMoved();
+        undo.lastMove = lastMove;
+        undo.enPassantPossible = isEnPassantPossible;
+        undo.castlingRights = getCastlingRights();
+        undo.enPassantSquare = getEnPassantSquare();
+        undo.halfMoveClock = halfMoveClock;
+        undo.moveCounter = moveCounter;
+        undo.sideToMove = sideToMove;
+        undo.rook = null;
+
+        // en passant captures the pawn next to the starting cell
+        undo.capturedIndex = Moves.isEnPassant(move) ? (from & ~7) | (to & 7) : to;
+        undo.captured = squares[undo.capturedIndex].getPiece();
+        if (undo.capturedIndex != to) {
+            squares[undo.capturedIndex].setPiece(null);
+        }
+
+        fromCell.setPiece(null);
+        toCell.setPiece(piece);
+        piece.setMoved();
+
+        if (Moves.isCastling(move)) {
+            Cell rookCell = squares[dx > 0 ? from | 7 : from & ~7];
+            Piece rook = rookCell.getPiece();
+            undo.rook = rook;
+            undo.rookMoved = rook.hasMoved();
+            rookCell.setPiece(null);
+            squares[from + Integer.signum(dx)].setPiece(rook);
+            rook.setMoved();
+        }
+
+        PieceType promotion = Moves.promotion(move);
+        if (promotion != null) {
+            Piece promoted = undo.promoted;
+            if (promoted == null || promoted.getType() != promotion || promoted.getColor() != piece.getColor()) {
+                promoted = Piece.create(promotion, piece.getColor(), toCell);
+                promoted.setMoved();
+                undo.promoted = promoted;
             }
+            toCell.setPiece(promoted);
+        }
+
+        lastMove = getMove(from, to);
+        isEnPassantPossible = Moves.isDoublePush(move);
+        halfMoveClock = piece.getType() == PieceType.PAWN || undo.captured != null ? 0 : halfMoveClock + 1;
+        if (piece.getColor() == PieceColor.BLACK) {
+            moveCounter++;
+        }
+        sideToMove = piece.getColor().opposite();
+    }
+
+    /**
+     * Takes back a move played by {@link #makeMove(Move, Undo)}.
+     * Moves must be taken back in the reverse order they were played.
+     *
+     * @param undo the record filled when the move was played
+     */
+    public void unmakeMove(Undo undo) {
+        int from = Moves.from(undo.move);
+        int to = Moves.to(undo.move);
+        Piece piece = undo.piece;
+
+        if (undo.rook != null) {
+            int dx = (to & 7) - (from & 7);
+            squares[from + Integer.signum(dx)].setPiece(null);
+            squares[dx > 0 ? from | 7 : from & ~7].setPiece(undo.rook);
+            undo.rook.setMoved(undo.rookMoved);
+        }
+
+        squares[from].setPiece(piece);
+        squares[to].setPiece(null);
+        if (undo.captured != null) {
+            squares[undo.capturedIndex].setPiece(undo.captured);
         }
-        return validCells;
+        piece.setMoved(undo.pieceMoved);
+
+        lastMove = undo.lastMove;
+        isEnPassantPossible = undo.enPassantPossible;
+        halfMoveClock = undo.halfMoveClock;
+        moveCounter = undo.moveCounter;
+        sideToMove = undo.sideToMove;
+    }
+
+    /**
+     * Passes the turn without moving, as used by null-move pruning: the side to move changes and
+     * en passant is no longer possible. The previous state is stored in the given undo record.
+     *
+     * @param undo the record to fill, to be given to {@link #unmakeNullMove(Undo)}
+     */
+    public void makeNullMove(Undo undo) {
+        undo.move = Moves.NONE;
+        undo.lastMove = lastMove;
+        undo.enPassantPossible = isEnPassantPossible;
+        undo.halfMoveClock = halfMoveClock;
+        undo.sideToMove = sideToMove;
+        lastMove = null;
+        isEnPassantPossible = false;
+        halfMoveClock++;
+        sideToMove = sideToMove.opposite();
+    }
+
+    /**
+     * Takes back a null move played by {@link #makeNullMove(Undo)}.
+     *
+     * @param undo the record filled when the null move was played
+     */
+    public void unmakeNullMove(Undo undo) {
+        lastMove = undo.lastMove;
+        isEnPassantPossible = undo.enPassantPossible;
+        halfMoveClock = undo.halfMoveClock;
+        sideToMove = undo.sideToMove;
+    }
+
+    /**
+     * Gets the castling rights, computed from the moved flags of the kings and rooks on their initial squares.
+     *
+     * @return a bit mask of {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}
+     */
+    public int getCastlingRights() {
+        int rights = 0;
+        if (isUnmoved(60, PieceColor.WHITE, PieceType.KING)) {
+            if (isUnmoved(63, PieceColor.WHITE, PieceType.ROOK)) rights |= WHITE_KINGSIDE;
+            if (isUnmoved(56, PieceColor.WHITE, PieceType.ROOK)) rights |= WHITE_QUEENSIDE;
+        }
+        if (isUnmoved(4, PieceColor.BLACK, PieceType.KING)) {
+            if (isUnmoved(7, PieceColor.BLACK, PieceType.ROOK)) rights |= BLACK_KINGSIDE;
+            if (isUnmoved(0, PieceColor.BLACK, PieceType.ROOK)) rights |= BLACK_QUEENSIDE;
+        }
+        return rights;
+    }
+
+    private boolean isUnmoved(int index, PieceColor color, PieceType type) {
+        Piece piece = squares[index].getPiece();
+        return piece != null && piece.getType() == type && piece.getColor() == color && !piece.hasMoved();
+    }
+
+    /**
+     * Gets the square a pawn of the side to move could capture en passant to.
+     *
+     * @return the en passant target square index, or -1 if the last move was not a double pawn push
+     */
+    public int getEnPassantSquare() {
+        if (!isEnPassantPossible || lastMove == null) {
+            return -1;
+        }
+        return Position.toIndex(lastMove.to().getX(), (lastMove.from().getY() + lastMove.to().getY()) / 2);
+    }
+
+    /**
+     * Gets the 64-bit Zobrist hash of the position (pieces, castling rights, en passant file and side to move).
+     * The piece part is updated incrementally whenever a cell changes, so this method costs a few lookups.
+     * Two positions considered identical by the threefold repetition rule have the same hash.
+     *
+     * @return the hash of the position
+     */
+    public long hash() {
+        return pieceKey ^ Zobrist.stateKey(this);
+    }
+
+    /**
+     * Gets the Zobrist hash of the pawns alone, updated incrementally like {@link #hash()}.
+     * It only changes on pawn moves, captures of pawns and promotions, and is 0 when there are no pawns.
+     *
+     * @return the hash of the pawns
+     */
+    public long pawnHash() {
+        return pawnKey;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    /**
+     * Checks the piece placement of a FEN string before the board is touched: 8 ranks of 8 squares of known pieces,
+     * with one king of each color.
+     *
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    private static void checkBoardPart(String boardPart) {
+        String[] ranks = boardPart.split("/", -1);
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("Invalid board in FEN string, expected 8 ranks: " + boardPart);
+        }
+        for (String rank : ranks) {
+            int squares = 0;
+            for (char c : rank.toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    squares += c - '0';
+                } else if ("PNBRQKpnbrqk".indexOf(c) >= 0) {
+                    squares++;
+                } else {
+                    throw new IllegalArgumentException("Invalid piece character in FEN string: " + c);
+                }
+            }
+            if (squares != 8) {
+                throw new IllegalArgumentException("Invalid board in FEN string, expected 8 squares per rank: " + boardPart);
+            }
+        }
+        if (boardPart.chars().filter(c -> c == 'K').count() != 1 || boardPart.chars().filter(c -> c == 'k').count() != 1) {
+            throw new IllegalArgumentException("Invalid board in FEN string, expected one king of each color: " + boardPart);
+        }
+    }
+
+    /**
+     * Sets the board from a FEN string.
+     * see <a href="https://en.wikipedia.org/wiki/Forsyth%E2%80%93Edwards_Notation">here</a>
+     * Castling rights and the en passant square are translated into the moved flags of the pieces and the last move.
+     *
+     * @param fen the FEN string
+     * @throws IllegalArgumentException if the FEN string is malformed
+     */
+    public void loadFEN(String fen) {
+        String[] parts = fen.trim().split("\\s+");
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN string: " + fen);
+        }
+        String boardPart = parts[0];
+        String colorPart = parts[1];
+        String castlingPart = parts[2];
+        String enPassantPart = parts[3];
+
+        PieceColor color = switch (colorPart) {
+            case "w" -> PieceColor.WHITE;
+            case "b" -> PieceColor.BLACK;
+            default -> throw new IllegalArgumentException("Invalid color in FEN string: " + colorPart);
+        };
+        checkBoardPart(boardPart);
+
+        // Clear the board
+        for (Cell cell : squares) {
+            cell.setPiece(null);
+        }
+
+        // Set the pieces on the board from the FEN string
+        int row = 0;
+        for (String rowString : boardPart.split("/")) {
+            int col = 0;
+            for (char c : rowString.toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += Character.getNumericValue(c);
+                } else {
+                    Cell cell = getCell(col, row);
+                    if (cell == null) {
+                        throw new IllegalArgumentException("Invalid board in FEN string: " + boardPart);
+                    }
+                    cell.setPiece(Piece.fromFEN(c, cell));
+                    col++;
+                }
+            }
+            row++;
+        }
+
+        // Only pawns on their initial row and the king and rooks keeping a castling right have not moved
+        for (Cell cell : squares) {
+            Piece piece = cell.getPiece();
+            if (piece == null) {
+                continue;
+            }
+            int index = cell.getIndex();
+            boolean isWhite = piece.getColor() == PieceColor.WHITE;
+            boolean unmoved = switch (piece.getType()) {
+                case PAWN -> (index >> 3) == (isWhite ? 6 : 1);
+                case KING -> index == (isWhite ? 60 : 4) && (castlingPart.contains(isWhite ? "K" : "k") || castlingPart.contains(isWhite ? "Q" : "q"));
+                case ROOK -> (index == 63 && castlingPart.contains("K")) || (index == 56 && castlingPart.contains("Q"))
+                        || (index == 7 && castlingPart.contains("k")) || (index == 0 && castlingPart.contains("q"));
+                default -> false;
+            };
+            if (!unmoved) {
+                piece.setMoved();
+            }
+        }
+
+        // The en passant square is rebuilt as the double pawn push that led to it
+        isEnPassantPossible = !enPassantPart.equals("-");
+        lastMove = null;
+        if (isEnPassantPossible) {
+            Position middle = new Position(enPassantPart);
+            int direction = middle.getY() == 5 ? 1 : -1;
+            lastMove = new Move(new Position(middle.getX(), middle.getY() + direction), new Position(middle.getX(), middle.getY() - direction));
+        }
+
+        sideToMove = color;
+        halfMoveClock = parts.length > 4 ? Integer.parseInt(parts[4]) : 0;
+        moveCounter = parts.length > 5 ? Integer.parseInt(parts[5]) : 1;
     }
 
     /**
@@ -186,9 +1008,11 @@ public class Board {
      * @return the next cell in the given direction
      */
     public Cell getNextCell(Cell currentCell, Directions direction){
-        Position currentPosition = cells.getReverse(currentCell);
-        Position nextPosition = new Position(currentPosition.getX() + direction.dx, currentPosition.getY() + direction.dy);
-        return cells.get(nextPosition);
+        int index = currentCell.getIndex();
+        if (index < 0) {
+            return null;
+        }
+        return getCell((index & 7) + direction.dx, (index >> 3) + direction.dy);
     }
 
 
@@ -222,24 +1046,17 @@ public class Board {
      * @return the ID string of the board
      */
     public String getIdString() {
-        HashSet<Position> cellsSet = new HashSet<>(cells.keySet());
-        // SOrt the cell to always have the same order
-        TreeSet<Position> sortedCells = new TreeSet<>((pos1, pos2) -> {
-            if (pos1.getX() != pos2.getX()) {
-                return Integer.compare(pos1.getX(), pos2.getX());
-            }
-            return Integer.compare(pos1.getY(), pos2.getY());
-        });
-        sortedCells.addAll(cellsSet);
         StringBuilder idString = new StringBuilder();
-        for (Position position : sortedCells) {
-            Cell cell = cells.get(position);
-            Piece piece = cell.getPiece();
-            if (piece != null) {
-                // Piece has a custom unique hashCode for each piece
-                idString.append(piece.hashCode());
-            } else {
-                idString.append("X");
+        // Column by column, to always have the same order
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                Piece piece = squares[Position.toIndex(x, y)].getPiece();
+                if (piece != null) {
+                    // Piece has a custom unique hashCode for each piece
+                    idString.append(piece.hashCode());
+                } else {
+                    idString.append("X");
+                }
             }
         }
         return idString.toString();
@@ -256,10 +1073,11 @@ public class Board {
      */
     public ArrayList<Position> getPieceOriginFromMove(Position to, PieceColor pieceColor, PieceType pieceType) {
         ArrayList<Position> pieceOrigins = new ArrayList<>();
-        Cell toCell = cells.get(to);
-        for(Cell cell : cells.reverseKeySet()){
-            if(cell.getPiece().getColor() == pieceColor && cell.getPiece().getType() == pieceType && cell.getPiece().getDecorator().getValidCells().contains(toCell)){
-                pieceOrigins.add(cells.getReverse(cell));
+        Cell toCell = getCell(to);
+        for(Cell cell : squares){
+            Piece piece = cell.getPiece();
+            if(piece != null && piece.getColor() == pieceColor && piece.getType() == pieceType && piece.getDecorator().getValidCells().contains(toCell)){
+                pieceOrigins.add(positions[cell.getIndex()]);
             }
         }
         return pieceOrigins;
@@ -268,11 +1086,11 @@ public class Board {
     public Position findPieceByItsFinalPosition(RegularInstruction instruction) {
         ArrayList<Position> pieceOrigins = new ArrayList<>();
         Position to = instruction.getTo();
-        Cell toCell = cells.get(to);
-        for (Cell cell : cells.reverseKeySet()) {
+        Cell toCell = getCell(to);
+        for (Cell cell : squares) {
             Piece piece = cell.getPiece();
             if(piece != null && piece.getColor() == instruction.getPieceColor() && piece.getType() == instruction.getPieceType() && piece.getDecorator().getValidCells().contains(toCell)) {
-                pieceOrigins.add(cells.getReverse(cell));
+                pieceOrigins.add(positions[cell.getIndex()]);
             }
         }
         if(pieceOrigins.isEmpty()){
@@ -323,8 +1141,7 @@ public class Board {
         for (int i = 0; i < 8; i++) {
             int emptyCount = 0;
             for (int j = 0; j < 8; j++) {
-                Cell cell = cells.get(new Position(j, i));
-                Piece piece = cell.getPiece();
+                Piece piece = squares[Position.toIndex(j, i)].getPiece();
                 if (piece != null) {
                     if (emptyCount > 0) {
                         fen.append(emptyCount);
@@ -343,7 +1160,7 @@ public class Board {
             }
         }
         fen.append(" ").append(color == PieceColor.BLACK ? "b" : "w");
-        fen.append(" ").append(getCastlingRights());
+        fen.append(" ").append(getCastlingRightsFEN());
         fen.append(" ").append(isEnPassantPossible ? lastMove.getMiddlePosition().asPGN() : "-");
         return fen.toString();
     }
@@ -365,22 +1182,16 @@ public class Board {
      * Gets the current state of castling possibilities on the board.
      * @return a string representing the castling rights
      */
-    private String getCastlingRights() {
+    private String getCastlingRightsFEN() {
+        int rights = getCastlingRights();
+        if (rights == 0) {
+            return "-";
+        }
         StringBuilder castlingRights = new StringBuilder();
-        // LinkedHashMap keeps the order of insertion (see https://stackoverflow.com/questions/663374/java-ordered-map)
-        Map<Position, String> castlingMap = new LinkedHashMap<>(){
-            {
-                put(new Position(7, 7), "K");
-                put(new Position(0, 7), "Q");
-                put(new Position(7, 0), "k");
-                put(new Position(0, 0), "q");
-            }
-        };
-        for (Position position : castlingMap.keySet()) {
-            Cell cell = cells.get(position);
-            Piece piece = cell.getPiece();
-            if (piece != null && piece.getType() == PieceType.ROOK && !piece.hasMoved()) {
-                castlingRights.append(castlingMap.get(position));
+        String symbols = "KQkq";
+        for (int i = 0; i < symbols.length(); i++) {
+            if ((rights & (1 << i)) != 0) {
+                castlingRights.append(symbols.charAt(i));
             }
         }
         return castlingRights.toString();
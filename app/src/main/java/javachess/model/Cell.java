@@ -3,19 +3,28 @@ package javachess.model;
 /**
  * Class representing a cell on the chessboard.
  * It can either be empty or contain a piece.
+ * Cells owned by a board know their square index (0..63, see {@link Position#getIndex()}),
+ * detached cells (used as temporary holders for new pieces) have an index of -1.
  */
 public class Cell {
     private Piece piece;
     private final Board board;
+    private final int index;
 
     public Cell(Board board) {
+        this(board, -1);
+    }
+
+    public Cell(Board board, int index) {
         this.piece = null;
         this.board = board;
+        this.index = index;
     }
 
     public Cell(Piece piece, Board board) {
         this.piece = piece;
         this.board = board;
+        this.index = -1;
     }
 
     public Piece getPiece() {
@@ -26,11 +35,23 @@ public class Cell {
         return board;
     }
 
+    /**
+     * Gets the square index of the cell on its board.
+     * @return the index of the cell (0..63), or -1 if the cell does not belong to the board grid
+     */
+    public int getIndex() {
+        return index;
+    }
+
     public void setPiece(Piece piece) {
+        Piece previous = this.piece;
         this.piece = piece;
         if(piece != null){
             piece.setCell(this);
         }
+        if(index >= 0 && previous != piece){
+            board.onPieceChanged(index, previous, piece);
+        }
     }
 
     public boolean isEmpty() {
@@ -0,0 +1,61 @@
+package javachess.model;
+
+/**
+ * Chess clock of a game: the remaining time of each player, with an increment added after each move.
+ * Only the clock of the player to move runs. Times are in milliseconds.
+ */
+public class Clock {
+    private final long[] remaining = new long[2];
+    private final long increment;
+    private PieceColor running;
+    private long startedAt;
+
+    /**
+     * @param time      the initial time of each player
+     * @param increment the time added to a player after each of their moves
+     */
+    public Clock(long time, long increment) {
+        remaining[0] = time;
+        remaining[1] = time;
+        this.increment = increment;
+    }
+
+    /**
+     * Starts the clock of a player.
+     *
+     * @param color the player to move
+     */
+    public synchronized void start(PieceColor color) {
+        running = color;
+        startedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Stops the running clock once its player moved, and adds the increment.
+     */
+    public synchronized void stop() {
+        if (running == null) {
+            return;
+        }
+        remaining[running.ordinal()] += increment - (System.currentTimeMillis() - startedAt);
+        running = null;
+    }
+
+    /**
+     * Gets the remaining time of a player, counting the time spent on the current move.
+     *
+     * @param color the player
+     * @return the remaining time, negative if the player ran out of time
+     */
+    public synchronized long getRemaining(PieceColor color) {
+        long time = remaining[color.ordinal()];
+        if (color == running) {
+            time -= System.currentTimeMillis() - startedAt;
+        }
+        return time;
+    }
+
+    public long getIncrement() {
+        return increment;
+    }
+}
@@ -1,6 +1,13 @@
 package javachess.model;
 
+import javachess.engine.Bench;
+import javachess.engine.BotEngine;
+import javachess.engine.OpeningBookBuilder;
+import javachess.engine.SearchLimits;
+import javachess.engine.TablebaseGenerator;
+import javachess.engine.Uci;
 import javachess.events.*;
+import javachess.movegen.Perft;
 import javachess.parser.ConfigParser;
 import javachess.pieces.Pawn;
 import javachess.player.*;
@@ -10,7 +17,9 @@ import javachess.view.ChessGameMenu;
 import javachess.view.ConsoleChessDisplay;
 
 import javax.swing.*;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Observable;
 import java.util.Scanner;
@@ -26,8 +35,9 @@ public class Game extends Observable {
     private boolean gameDone = false;
     protected int actualPlayer = 0;
     public Piece promoteTo = null;
-    private final HashMap<String, Integer> history = new HashMap<>();
+    private final HashMap<Long, Integer> history = new HashMap<>();
     private int fiftyMoveRuleCounter = 0;
+    private Clock clock;
     public final ConfigParser configParser;
     public final LanguageService languageService;
 
@@ -48,6 +58,15 @@ public class Game extends Observable {
         this(new Board(), withBot, depth);
     }
 
+    /**
+     * Constructor for the Game class.
+     * @param withBot True if the game should be played against a bot, false otherwise.
+     * @param botLimits The depth or time the bot may use for each move (a clock set on the game takes precedence).
+     */
+    public Game(boolean withBot, SearchLimits botLimits) {
+        this(new Board(), withBot, botLimits);
+    }
+
     /**
      * Constructor for the Game class.
      * Initializes the board, players, and language service.
@@ -63,19 +82,50 @@ public class Game extends Observable {
      * @param withBot True if the game should be played against a bot, false otherwise.
      */
     public Game(Board board, boolean withBot, int depth) {
+        this(board, withBot, SearchLimits.depth(depth));
+    }
+
+    /**
+     * Constructor for the Game class.
+     * @param board The board to be used in the game.
+     * @param withBot True if the game should be played against a bot, false otherwise.
+     * @param botLimits The depth or time the bot may use for each move.
+     */
+    public Game(Board board, boolean withBot, SearchLimits botLimits) {
         this.configParser = new ConfigParser();
         this.board = board;
+        board.setMoveGenerator(configParser.getMoveGenerator());
         players = new ArrayList<>();
         languageService = new LanguageService();
         languageService.setLanguage(configParser.getLanguage());
         if(withBot){
-            addPlayerAndBot(depth);
+            addPlayerAndBot(botLimits);
         } else {
             addTwoPlayers();
         }
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("perft")) {
+            Perft.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("bench")) {
+            Bench.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("book")) {
+            OpeningBookBuilder.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("tablebase")) {
+            TablebaseGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("uci")) {
+            Uci.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         System.out.println("Choose display mode: 1 for console, 2 for GUI");
         Scanner sc = new Scanner(System.in);
         int choice = sc.nextInt();
@@ -109,9 +159,26 @@ public class Game extends Observable {
     /**
      * Shortcut method to add a player and a bot to the game.
      */
-    private void addPlayerAndBot(int botDepth){
+    private void addPlayerAndBot(SearchLimits botLimits){
         players.add(new HumanPlayer(this, PieceColor.WHITE));
-        players.add(new BotPlayer(this, PieceColor.BLACK, botDepth));
+        players.add(new BotPlayer(this, PieceColor.BLACK, botLimits, BotEngine.fromConfig(configParser)));
+    }
+
+    /**
+     * Get the clock of the game.
+     * @return The clock, or null if the game is not timed.
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Set the clock of the game, which the bot uses for its time budget.
+     * Running out of time does not end the game.
+     * @param clock The clock, or null for an untimed game.
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
     }
 
     /**
@@ -156,7 +223,7 @@ public class Game extends Observable {
                 notifyAll(new CheckEvent());
             }
             // handle positionHistory
-            int getPositionHistoryNumber = getPositionHistoryNumber(playerColor);
+            int getPositionHistoryNumber = getPositionHistoryNumber();
             if (getPositionHistoryNumber > 2) {
                 notifyAll(new SoundEvent("game-end"));
                 notifyAll(new DrawEvent(languageService.getMessage(Message.THREEFOLD_REPETITION)));
@@ -171,22 +238,43 @@ public class Game extends Observable {
                 gameDone = true;
                 break;
             }
+            if (clock != null) {
+                clock.start(playerColor);
+            }
             boolean successMove;
             do {
                 Move move = currentPlayer.getMove();
                 successMove = setMove(move, false);
             } while (!successMove);
+            if (clock != null) {
+                clock.stop();
+            }
             actualPlayer++;
         }
+        endGame();
+    }
+
+    /**
+     * Abandons the game, for example when its window is closed: the players are told that it is over.
+     */
+    public void abandon() {
+        gameDone = true;
+        endGame();
+    }
+
+    private void endGame() {
+        for (Player player : players) {
+            player.gameOver();
+        }
     }
 
     /**
      * Get the number of times the current position has been played.
-     * @param color The color of the player.
+     * Positions are keyed on the board hash, which includes the side to move.
      * @return The number of times the current position has been played.
      */
-    private int getPositionHistoryNumber(PieceColor color) {
-        return history.compute(board.getSimplifiedFEN(color), (key, value) -> value == null ? 1 : value + 1);
+    private int getPositionHistoryNumber() {
+        return history.merge(board.hash(), 1, Integer::sum);
     }
 
     private void incrementFiftyMoveRuleCounter() {
@@ -211,8 +299,8 @@ public class Game extends Observable {
     public boolean setMove(Move move, boolean castling) {
         boolean soundPlayed = false;
         Position from = move.from(), to = move.to();
-        Cell fromCell = board.getCells().get(from);
-        Cell toCell = board.getCells().get(to);
+        Cell fromCell = board.getCell(from);
+        Cell toCell = board.getCell(to);
         Piece pieceFrom = fromCell.getPiece();
         Piece pieceTo = toCell.getPiece();
 
@@ -228,8 +316,8 @@ public class Game extends Observable {
             return false;
         }
 
-        // check if the move is valid for the piece (check if the decorator is valid)
-        if (!board.getValidCellsForBoard(fromCell.getPiece()).contains(toCell) && !castling) {
+        // check if the move is legal for the piece (the rook move of a castling is played by the game itself)
+        if (!castling && !board.isLegalMove(Moves.fromMove(board, move))) {
             System.err.println("Invalid move: The destination cell is not valid for the selected piece.");
             notifyAll(new SoundEvent("illegal"));
             return false;
@@ -259,7 +347,7 @@ public class Game extends Observable {
 
             Position rookFrom = new Position(to.getX() > from.getX() ? 7 : 0, from.getY());
             Position rookTo = new Position(to.getX() + (to.getX() > from.getX() ? -1 : 1), from.getY());
-            Piece rook = board.getCells().get(rookFrom).getPiece();
+            Piece rook = board.getCell(rookFrom).getPiece();
             if (rook != null && rook.getType() == PieceType.ROOK && rook.getColor() == pieceFrom.getColor()) {
                 setMove(new Move(rookFrom, rookTo), true);
             }
@@ -273,7 +361,7 @@ public class Game extends Observable {
             enPassant = true;
 
             Position enPassantPosition = new Position(to.getX(), from.getY());
-            Cell enPassantCell = board.getCells().get(enPassantPosition);
+            Cell enPassantCell = board.getCell(enPassantPosition);
 
             if (enPassantCell != null && enPassantCell.getPiece() instanceof Pawn && lastMove.getMiddlePosition().equals(to)) {
                 Piece enPassantPiece = enPassantCell.getPiece();
@@ -299,7 +387,7 @@ public class Game extends Observable {
                     }
                 }
             }
-            Cell pawnCell = board.getCells().get(to);
+            Cell pawnCell = board.getCell(to);
             pawnCell.setPiece(promoteTo);
             promoteTo.setCell(pawnCell);
         }
@@ -347,60 +435,18 @@ public class Game extends Observable {
      * @param fen The FEN string to be set.
      */
     public void fromFEN(String fen) {
-        String[] parts = fen.split(" ");
-        String boardPart = parts[0];
-        String colorPart = parts[1];
-        String castlingPart = parts[2];
-        String enPassantPart = parts[3];
-        String halfMovePart = parts[4];
-        String fullMovePart = parts[5];
-
-        // Clear the initial pieces set up in the constructor
-        BiMap<Position, Cell> cells = board.getCells();
-        for (Cell cell : cells.reverseKeySet()) {
-            cell.setPiece(null);
-        }
-
-        // Set the pieces on the board from the FEN string
-        int row = 0;
-        for (String rowString : boardPart.split("/")) {
-            int col = 0;
-            for (char c : rowString.toCharArray()) {
-                if (Character.isDigit(c)) {
-                    col += Character.getNumericValue(c);
-                } else {
-                    Piece piece = Piece.fromFEN(c, new Cell(this.board));
-                    cells.get(new Position(col, row)).setPiece(piece);
-                    col++;
-                }
-            }
-            row++;
-        }
-
-        // Set the current player
-        if( colorPart.equals("b")) {
-            actualPlayer = 1;
-        } else if (colorPart.equals("w")) {
-            actualPlayer = 0;
-        } else {
-            System.err.println("Invalid color in FEN string: " + colorPart);
+        try {
+            board.loadFEN(fen);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
             return;
         }
 
-        // Set castling rights
-        for (char c : castlingPart.toCharArray()) {
-            switch (c) {
-                case 'K' -> cells.get(new Position(7, 7)).getPiece().setMoved();
-                case 'Q' -> cells.get(new Position(0, 7)).getPiece().setMoved();
-                case 'k' -> cells.get(new Position(7, 0)).getPiece().setMoved();
-                case 'q' -> cells.get(new Position(0, 0)).getPiece().setMoved();
-            }
-        }
-
-        // Set en passant possibility
-        board.isEnPassantPossible = !enPassantPart.equals("-");
+        // Set the current player
+        actualPlayer = board.getSideToMove() == PieceColor.WHITE ? 0 : 1;
 
-        // Set move counters
-        board.moveCounter = Integer.parseInt(fullMovePart);
+        // Set the fifty-move rule counter
+        String[] parts = fen.trim().split("\\s+");
+        fiftyMoveRuleCounter = parts.length > 4 ? Integer.parseInt(parts[4]) : 0;
     }
 }
@@ -4,22 +4,45 @@ package javachess.model;
  * Class representing a move in the chess game.
  * @param from the starting position of the move
  * @param to the ending position of the move
+ * @param promotion the type of the piece a pawn is promoted to, or null if the move is not a promotion
  */
-public record Move(Position from, Position to) {
+public record Move(Position from, Position to, PieceType promotion) {
+
+    public Move(Position from, Position to) {
+        this(from, to, null);
+    }
 
     /**
      * Gets the mean position of a move (used to quickly detect if a pawn just moved two squares).
-     * @return
+     * @return the position in the middle of the move
      */
     public Position getMiddlePosition() {
         return new Position((from.getX() + to.getX()) / 2, (from.getY() + to.getY()) / 2);
     }
 
+    /**
+     * Converts the move to the long algebraic notation used by engines (e.g., "e2e4", "e7e8q").
+     * @return the move as a string
+     */
+    public String asUCI() {
+        String move = from.asPGN() + to.asPGN();
+        if (promotion == null) {
+            return move;
+        }
+        return move + switch (promotion) {
+            case ROOK -> 'r';
+            case KNIGHT -> 'n';
+            case BISHOP -> 'b';
+            default -> 'q';
+        };
+    }
+
     @Override
     public String toString() {
         return "Move{" +
                 "from=" + from +
                 ", to=" + to +
+                (promotion != null ? ", promotion=" + promotion : "") +
                 '}';
     }
 }
@@ -0,0 +1,60 @@
+package javachess.model;
+
+import java.util.Arrays;
+
+/**
+ * List of moves encoded with {@link Moves}, backed by a primitive array.
+ * A list is meant to be reused (typically one per search ply): {@link #clear()} keeps the array, so filling it again
+ * does not allocate.
+ */
+public final class MoveList {
+    // enough for any legal chess position (the known maximum is 218)
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Swaps two moves of the list, used by move ordering.
+     */
+    public void swap(int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+}
@@ -0,0 +1,217 @@
+package javachess.model;
+
+/**
+ * Compact encoding of a move in an {@code int}, used by the move generators and the search so that
+ * generating and playing moves does not allocate.
+ * <p>
+ * Bits 0-5 hold the square the piece moves from, bits 6-11 the square it moves to (see {@link Position#getIndex()}),
+ * bits 12-14 the promotion piece ({@link PieceType#ordinal()} + 1, 0 without promotion) and the upper bits the flags.
+ * The value {@link #NONE} never stands for a real move.
+ */
+public final class Moves {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int CASTLING = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private Moves() {
+    }
+
+    /**
+     * Encodes a move.
+     *
+     * @param from      the square index the piece moves from
+     * @param to        the square index the piece moves to
+     * @param promotion the promotion piece, null if none
+     * @param flags     a combination of {@link #CAPTURE}, {@link #CASTLING}, {@link #EN_PASSANT} and {@link #DOUBLE_PUSH}
+     * @return the encoded move
+     */
+    public static int encode(int from, int to, PieceType promotion, int flags) {
+        return from | (to << 6) | (promotion == null ? 0 : (promotion.ordinal() + 1) << 12) | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * Gets the promotion piece of a move.
+     * @return the promotion piece type, or null if the move is not a promotion
+     */
+    public static PieceType promotion(int move) {
+        int promotion = (move >>> 12) & 7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * Checks if two moves go from and to the same squares, whatever their promotion and flags.
+     */
+    public static boolean sameSquares(int move, int other) {
+        return (move & 0xFFF) == (other & 0xFFF);
+    }
+
+    /**
+     * Encodes all the moves of a piece to the target squares into the list, expanding the pawn moves
+     * to the last row into one move per promotion piece.
+     *
+     * @param list    the list to add the moves to
+     * @param board   the board, before the moves are played
+     * @param from    the square of the piece
+     * @param targets a bitboard of the target squares
+     */
+    public static void addAll(MoveList list, Board board, int from, long targets) {
+        Piece piece = board.getCell(from).getPiece();
+        PieceType type = piece.getType();
+        boolean promotes = type == PieceType.PAWN && (from >> 3) == (piece.getColor() == PieceColor.WHITE ? 1 : 6);
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = flags(board, from, to, type);
+            if (promotes) {
+                for (PieceType promotion : Board.PROMOTIONS) {
+                    list.add(encode(from, to, promotion, flags));
+                }
+            } else {
+                list.add(encode(from, to, null, flags));
+            }
+        }
+    }
+
+    /**
+     * Computes the flags of a move from the board it is played on.
+     */
+    private static int flags(Board board, int from, int to, PieceType type) {
+        int flags = 0;
+        if (!board.getCell(to).isEmpty()) {
+            flags |= CAPTURE;
+        }
+        int distance = Math.abs(to - from);
+        if (type == PieceType.KING && distance == 2) {
+            flags |= CASTLING;
+        } else if (type == PieceType.PAWN) {
+            if (distance == 16) {
+                flags |= DOUBLE_PUSH;
+            } else if ((from & 7) != (to & 7) && board.getCell(to).isEmpty()) {
+                flags |= EN_PASSANT | CAPTURE;
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * Converts a {@link Move} to its encoded form.
+     *
+     * @param board the board the move is played on, used to compute the flags
+     * @param move  the move
+     * @return the encoded move
+     */
+    public static int fromMove(Board board, Move move) {
+        int from = move.from().getIndex();
+        int to = move.to().getIndex();
+        Piece piece = board.getCell(from).getPiece();
+        int flags = piece == null ? 0 : flags(board, from, to, piece.getType());
+        return encode(from, to, move.promotion(), flags);
+    }
+
+    /**
+     * Converts an encoded move to a {@link Move}.
+     * Moves without promotion come from the cache of the board and do not allocate.
+     *
+     * @param board the board
+     * @param move  the encoded move
+     * @return the move
+     */
+    public static Move toMove(Board board, int move) {
+        PieceType promotion = promotion(move);
+        if (promotion == null) {
+            return board.getMove(from(move), to(move));
+        }
+        return new Move(board.getPosition(from(move)), board.getPosition(to(move)), promotion);
+    }
+
+    /**
+     * Parses a move in long algebraic notation (e.g. "e2e4", "e7e8q") for the side to move of the board.
+     *
+     * @param board the board the move is played on
+     * @param uci   the move
+     * @return the encoded move, or {@link #NONE} if the text is not a legal move
+     */
+    public static int fromUCI(Board board, String uci) {
+        if (uci.length() < 4 || uci.length() > 5) {
+            return NONE;
+        }
+        int from = parseSquare(uci.charAt(0), uci.charAt(1));
+        int to = parseSquare(uci.charAt(2), uci.charAt(3));
+        if (from < 0 || to < 0) {
+            return NONE;
+        }
+        PieceType promotion = null;
+        if (uci.length() == 5) {
+            promotion = switch (uci.charAt(4)) {
+                case 'q' -> PieceType.QUEEN;
+                case 'r' -> PieceType.ROOK;
+                case 'b' -> PieceType.BISHOP;
+                case 'n' -> PieceType.KNIGHT;
+                default -> null;
+            };
+            if (promotion == null) {
+                return NONE;
+            }
+        }
+        return board.findLegalMove(from, to, promotion);
+    }
+
+    private static int parseSquare(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return ('8' - rank) * 8 + (file - 'a');
+    }
+
+    /**
+     * Gets the move in long algebraic notation, as used by UCI (e.g. "e2e4", "e7e8q").
+     */
+    public static String toUCI(int move) {
+        StringBuilder uci = new StringBuilder(5);
+        appendSquare(uci, from(move));
+        appendSquare(uci, to(move));
+        PieceType promotion = promotion(move);
+        if (promotion != null) {
+            uci.append(switch (promotion) {
+                case ROOK -> 'r';
+                case KNIGHT -> 'n';
+                case BISHOP -> 'b';
+                default -> 'q';
+            });
+        }
+        return uci.toString();
+    }
+
+    private static void appendSquare(StringBuilder builder, int square) {
+        builder.append((char) ('a' + (square & 7))).append((char) ('8' - (square >> 3)));
+    }
+}
@@ -35,6 +35,10 @@ public abstract class Piece {
         this.moved = true;
     }
 
+    void setMoved(boolean moved) {
+        this.moved = moved;
+    }
+
     public Cell getCell() {
         return cell;
     }
@@ -135,6 +139,24 @@ public abstract class Piece {
         return color == PieceColor.WHITE ? fen : Character.toLowerCase(fen);
     }
 
+    /**
+     * Creates a piece of the given type.
+     * @param type The type of the piece.
+     * @param color The color of the piece.
+     * @param cell The cell the piece is created on.
+     * @return The new piece.
+     */
+    public static Piece create(PieceType type, PieceColor color, Cell cell) {
+        return switch (type) {
+            case PAWN -> new Pawn(color, cell);
+            case ROOK -> new Rook(color, cell);
+            case KNIGHT -> new Knight(color, cell);
+            case BISHOP -> new Bishop(color, cell);
+            case QUEEN -> new Queen(color, cell);
+            case KING -> new King(color, cell);
+        };
+    }
+
     static Piece fromFEN(char c, Cell cell) {
         PieceColor color = Character.isUpperCase(c) ? PieceColor.WHITE : PieceColor.BLACK;
         char pieceChar = Character.toUpperCase(c);
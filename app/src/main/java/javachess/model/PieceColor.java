@@ -24,5 +24,13 @@ public enum PieceColor {
             ls.setLanguage(new ConfigParser().getLanguage());
             return ls.getMessage(Message.BLACK);
         }
+    };
+
+    /**
+     * Gets the color of the opponent.
+     * @return the other color
+     */
+    public PieceColor opposite() {
+        return this == WHITE ? BLACK : WHITE;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+package javachess.model;
+
+/**
+ * Material and piece-square values of the pieces, for the middlegame and for the endgame, kept up to date
+ * by the {@link Board} as pieces move (see {@link Board#getMiddlegameScore()}).
+ * <p>
+ * The tables are written from the point of view of white, rank 8 first, so they use the board indexing directly
+ * for white pieces and are mirrored vertically for black ones. The scores of black pieces are negated, so that
+ * the score of a position is the sum of the scores of its pieces.
+ */
+public final class PieceSquareTables {
+    /**
+     * Middlegame value of each piece type in centipawns, indexed by {@link PieceType#ordinal()}.
+     */
+    public static final int[] MIDDLEGAME_VALUES = {100, 500, 320, 330, 900, 0};
+    /**
+     * Endgame value of each piece type in centipawns, indexed by {@link PieceType#ordinal()}.
+     */
+    public static final int[] ENDGAME_VALUES = {120, 530, 300, 320, 950, 0};
+    /**
+     * Weight of each piece type in the game phase, indexed by {@link PieceType#ordinal()}:
+     * the phase goes from {@link #MAX_PHASE} with all the pieces to 0 with only kings and pawns.
+     */
+    public static final int[] PHASE_WEIGHTS = {0, 2, 1, 1, 4, 0};
+    public static final int MAX_PHASE = 24;
+
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] ROOK_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] ROOK_ENDGAME = {
+            5, 5, 5, 5, 5, 5, 5, 5,
+            10, 10, 10, 10, 10, 10, 10, 10,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    // the king comes to the center once the queens are gone
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    /**
+     * Scores of the pieces, material included, indexed by {@code color.ordinal() * 6 + type.ordinal()} then by square.
+     */
+    static final int[][] MIDDLEGAME = new int[12][64];
+    static final int[][] ENDGAME = new int[12][64];
+    static final int[] PHASE = new int[12];
+
+    static {
+        // indexed by PieceType.ordinal()
+        int[][] middlegame = {PAWN_MIDDLEGAME, ROOK_MIDDLEGAME, KNIGHT_TABLE, BISHOP_TABLE, QUEEN_TABLE, KING_MIDDLEGAME};
+        int[][] endgame = {PAWN_ENDGAME, ROOK_ENDGAME, KNIGHT_TABLE, BISHOP_TABLE, QUEEN_TABLE, KING_ENDGAME};
+        for (int type = 0; type < 6; type++) {
+            for (int square = 0; square < 64; square++) {
+                MIDDLEGAME[type][square] = MIDDLEGAME_VALUES[type] + middlegame[type][square];
+                ENDGAME[type][square] = ENDGAME_VALUES[type] + endgame[type][square];
+                MIDDLEGAME[6 + type][square ^ 56] = -MIDDLEGAME[type][square];
+                ENDGAME[6 + type][square ^ 56] = -ENDGAME[type][square];
+            }
+            PHASE[type] = PHASE_WEIGHTS[type];
+            PHASE[6 + type] = PHASE_WEIGHTS[type];
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    /**
+     * Computes the middlegame score, endgame score and phase of a board from scratch
+     * (the board maintains them incrementally).
+     *
+     * @param board the board
+     * @return the middlegame score, the endgame score (positive when white is better) and the phase
+     */
+    static int[] compute(Board board) {
+        int[] scores = new int[3];
+        for (PieceColor color : PieceColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                int piece = color.ordinal() * 6 + type.ordinal();
+                for (long pieces = board.getBitboard(color, type); pieces != 0; pieces &= pieces - 1) {
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    scores[0] += MIDDLEGAME[piece][square];
+                    scores[1] += ENDGAME[piece][square];
+                    scores[2] += PHASE[piece];
+                }
+            }
+        }
+        return scores;
+    }
+}
@@ -65,6 +65,34 @@ public class Position {
         return y;
     }
 
+    /**
+     * Gets the square index of the position (0 is a8, 7 is h8, 63 is h1).
+     * @return the index of the position, or -1 if the position is outside the board
+     */
+    public int getIndex() {
+        return isOnBoard(x, y) ? toIndex(x, y) : -1;
+    }
+
+    /**
+     * Converts coordinates to a square index, without bounds checking.
+     * @param x the column (0 to 7)
+     * @param y the row (0 to 7, 0 being the top of the board)
+     * @return the square index
+     */
+    public static int toIndex(int x, int y) {
+        return (y << 3) | x;
+    }
+
+    /**
+     * Checks if the given coordinates are inside the board.
+     * @param x the column
+     * @param y the row
+     * @return true if both coordinates are between 0 and 7
+     */
+    public static boolean isOnBoard(int x, int y) {
+        return ((x | y) & ~7) == 0;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Position position) {
@@ -0,0 +1,57 @@
+package javachess.model;
+
+/**
+ * Record of the state a move changed on the board, filled by {@link Board#makeMove(int, Undo)}
+ * and consumed by {@link Board#unmakeMove(Undo)}.
+ * Instances can be reused from one move to the next (one per search ply), so that walking a tree does not allocate:
+ * the promoted piece is kept and reused when the next promotion has the same type and color.
+ */
+public final class Undo {
+    int move;
+    Piece piece;
+    boolean pieceMoved;
+    Piece captured;
+    int capturedIndex;
+    Piece rook;
+    boolean rookMoved;
+    Piece promoted;
+    Move lastMove;
+    boolean enPassantPossible;
+    int castlingRights;
+    int enPassantSquare;
+    int halfMoveClock;
+    int moveCounter;
+    PieceColor sideToMove;
+
+    /**
+     * Gets the move played, encoded with {@link Moves}.
+     * @return the encoded move
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * Gets the piece captured by the move.
+     * @return the captured piece, or null if the move was not a capture
+     */
+    public Piece getCaptured() {
+        return captured;
+    }
+
+    /**
+     * Gets the castling rights before the move (see {@link Board#getCastlingRights()}).
+     * @return the castling rights bit mask
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Gets the en passant target square before the move.
+     * @return the square index, or -1 if no en passant capture was possible
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+}
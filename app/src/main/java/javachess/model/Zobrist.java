@@ -0,0 +1,120 @@
+package javachess.model;
+
+import javachess.movegen.Bitboards;
+
+/**
+ * Random keys used to hash board positions.
+ * See <a href="https://www.chessprogramming.org/Zobrist_Hashing">Zobrist hashing</a>: the hash of a position is the
+ * XOR of the keys of its pieces on their squares, of its castling rights, of the en passant file and of the side to move.
+ * The keys are generated from a fixed seed, so hashes are stable from one run to the next.
+ */
+public final class Zobrist {
+    /**
+     * Keys of the pieces, indexed by {@code color.ordinal() * 6 + type.ordinal()} then by square.
+     */
+    static final long[][] PIECES = new long[12][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT = new long[8];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (long[] keys : PIECES) {
+            for (int square = 0; square < 64; square++) {
+                seed = next(seed);
+                keys[square] = mix(seed);
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            seed = next(seed);
+            CASTLING[i] = mix(seed);
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            seed = next(seed);
+            EN_PASSANT[i] = mix(seed);
+        }
+        seed = next(seed);
+        BLACK_TO_MOVE = mix(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a piece on a square.
+     *
+     * @param piece  the piece
+     * @param square the square index
+     * @return the key to XOR in or out of the hash
+     */
+    static long pieceKey(Piece piece, int square) {
+        return PIECES[piece.getColor().ordinal() * 6 + piece.getType().ordinal()][square];
+    }
+
+    /**
+     * Gets the part of the hash that does not depend on the pieces: castling rights, en passant file and side to move.
+     * The en passant file only counts when a pawn of the side to move can actually capture.
+     *
+     * @param board the board
+     * @return the state key of the board
+     */
+    static long stateKey(Board board) {
+        long key = CASTLING[board.getCastlingRights()];
+        PieceColor side = board.getSideToMove();
+        int enPassant = board.getEnPassantSquare();
+        if (enPassant >= 0 && (Bitboards.PAWN_ATTACKS[side.opposite().ordinal()][enPassant] & board.getBitboard(side, PieceType.PAWN)) != 0) {
+            key ^= EN_PASSANT[enPassant & 7];
+        }
+        if (side == PieceColor.BLACK) {
+            key ^= BLACK_TO_MOVE;
+        }
+        return key;
+    }
+
+    /**
+     * Computes the hash of a board from scratch (the board maintains it incrementally, see {@link Board#hash()}).
+     *
+     * @param board the board
+     * @return the hash of the position
+     */
+    public static long compute(Board board) {
+        long key = 0L;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = board.getCell(square).getPiece();
+            if (piece != null) {
+                key ^= pieceKey(piece, square);
+            }
+        }
+        return key ^ stateKey(board);
+    }
+
+    /**
+     * Computes the pawn hash of a board from scratch (the board maintains it incrementally, see {@link Board#pawnHash()}).
+     *
+     * @param board the board
+     * @return the hash of the pawns of the position
+     */
+    public static long computePawnKey(Board board) {
+        long key = 0L;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = board.getCell(square).getPiece();
+            if (piece != null && piece.getType() == PieceType.PAWN) {
+                key ^= pieceKey(piece, square);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * SplitMix64 generator (see <a href="https://prng.di.unimi.it/splitmix64.c">here</a>).
+     */
+    private static long next(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,277 @@
+package javachess.movegen;
+
+import javachess.model.*;
+
+import java.util.ArrayList;
+
+/**
+ * Move generator working on the bitboards maintained by the {@link Board}.
+ * Pseudo-legal targets come from the precomputed {@link Bitboards} tables and are filtered with the checkers
+ * and the pinned pieces of the side, computed once per piece placement: no move is played to test it.
+ */
+public class BitboardMoveGenerator implements MoveGenerator {
+    private static final PieceType[] TYPES = PieceType.values();
+
+    // Per color: board version the masks below were computed for, -1 when none
+    private final long[] cachedVersions = {-1, -1};
+    private Board cachedBoard;
+    // Per color: squares of the opponent pieces giving check
+    private final long[] checkers = new long[2];
+    // Per color: squares a non-king move must land on to answer the check (all squares when not in check)
+    private final long[] checkMasks = new long[2];
+    // Per color: own pieces pinned against the king
+    private final long[] pinned = new long[2];
+    // Per color and square: the line a pinned piece can move along (between the king and the pinner, pinner included)
+    private final long[][] pinRays = new long[2][64];
+
+    @Override
+    public ArrayList<Cell> getValidCells(Board board, Piece piece) {
+        ArrayList<Cell> validCells = new ArrayList<>();
+        int from = piece.getCell().getIndex();
+        if (from < 0) {
+            return validCells;
+        }
+        long targets = legalTargets(board, from, piece.getType(), piece.getColor());
+        while (targets != 0) {
+            validCells.add(board.getCell(Long.numberOfTrailingZeros(targets)));
+            targets &= targets - 1;
+        }
+        return validCells;
+    }
+
+    @Override
+    public void generateLegalMoves(Board board, PieceColor color, MoveList moves) {
+        for (PieceType type : TYPES) {
+            long pieces = board.getBitboard(color, type);
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long targets = legalTargets(board, from, type, color);
+                if (targets != 0) {
+                    Moves.addAll(moves, board, from, targets);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean hasLegalMove(Board board, PieceColor color) {
+        for (PieceType type : TYPES) {
+            long pieces = board.getBitboard(color, type);
+            while (pieces != 0) {
+                if (legalTargets(board, Long.numberOfTrailingZeros(pieces), type, color) != 0) {
+                    return true;
+                }
+                pieces &= pieces - 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the squares a piece can legally move to.
+     *
+     * @param board the board
+     * @param from  the square of the piece
+     * @param type  the type of the piece
+     * @param color the color of the piece
+     * @return a bitboard of the legal target squares
+     */
+    public long legalTargets(Board board, int from, PieceType type, PieceColor color) {
+        long targets = pseudoLegalTargets(board, from, type, color);
+        int kingSquare = board.getKingSquare(color);
+        if (kingSquare < 0 || targets == 0) {
+            return targets;
+        }
+        if (type == PieceType.KING) {
+            // the king itself must not shadow the sliders attacking the squares behind it
+            long occupancy = board.getOccupancy() & ~(1L << from);
+            long legal = 0L;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (!board.isSquareAttacked(to, color.opposite(), occupancy, ~(1L << to))) {
+                    legal |= 1L << to;
+                }
+            }
+            return legal;
+        }
+
+        int side = color.ordinal();
+        computeMasks(board, color, kingSquare);
+        if (Long.bitCount(checkers[side]) > 1) {
+            return 0L;
+        }
+        long enPassantTarget = 0L;
+        if (type == PieceType.PAWN) {
+            int enPassant = enPassantSquare(board);
+            if (enPassant >= 0 && (targets & (1L << enPassant)) != 0) {
+                targets &= ~(1L << enPassant);
+                // removing two pawns from the same row can uncover the king, so this capture is checked on its own
+                int captureSquare = (from & ~7) | (enPassant & 7);
+                if (isSafe(board, color, from, enPassant, captureSquare, kingSquare)) {
+                    enPassantTarget = 1L << enPassant;
+                }
+            }
+        }
+        targets &= checkMasks[side];
+        if ((pinned[side] & (1L << from)) != 0) {
+            targets &= pinRays[side][from];
+        }
+        return targets | enPassantTarget;
+    }
+
+    /**
+     * Computes the checkers, the check mask and the pinned pieces of the given color,
+     * unless they are already known for the current piece placement of the board.
+     */
+    private void computeMasks(Board board, PieceColor color, int kingSquare) {
+        int side = color.ordinal();
+        if (cachedBoard == board && cachedVersions[side] == board.getVersion()) {
+            return;
+        }
+        if (cachedBoard != board) {
+            cachedBoard = board;
+            cachedVersions[color.opposite().ordinal()] = -1;
+        }
+        cachedVersions[side] = board.getVersion();
+
+        PieceColor opponent = color.opposite();
+        long occupancy = board.getOccupancy();
+        long own = board.getColorBitboard(color);
+        long queens = board.getBitboard(opponent, PieceType.QUEEN);
+        long checking = (Bitboards.KNIGHT_ATTACKS[kingSquare] & board.getBitboard(opponent, PieceType.KNIGHT))
+                | (Bitboards.PAWN_ATTACKS[side][kingSquare] & board.getBitboard(opponent, PieceType.PAWN));
+        long pins = 0L;
+        // sliders seen from the king through the opponent pieces only: nothing between them is a check,
+        // a single own piece between them is pinned
+        long opponentOccupancy = board.getColorBitboard(opponent);
+        long snipers = (Bitboards.rookAttacks(kingSquare, opponentOccupancy) & (board.getBitboard(opponent, PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(kingSquare, opponentOccupancy) & (board.getBitboard(opponent, PieceType.BISHOP) | queens));
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long between = Bitboards.between(kingSquare, sniper);
+            long blockers = between & occupancy;
+            if (blockers == 0) {
+                checking |= 1L << sniper;
+            } else if ((blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+                pins |= blockers;
+                pinRays[side][Long.numberOfTrailingZeros(blockers)] = between | (1L << sniper);
+            }
+        }
+        checkers[side] = checking;
+        pinned[side] = pins;
+        if (checking == 0) {
+            checkMasks[side] = -1L;
+        } else {
+            int checker = Long.numberOfTrailingZeros(checking);
+            checkMasks[side] = checking | Bitboards.between(kingSquare, checker);
+        }
+    }
+
+    /**
+     * Gets the squares a piece can move to, without checking if its king is left in check
+     * (castling is only generated when the king does not cross an attacked square).
+     */
+    private long pseudoLegalTargets(Board board, int from, PieceType type, PieceColor color) {
+        long own = board.getColorBitboard(color);
+        long occupancy = board.getOccupancy();
+        return switch (type) {
+            case KNIGHT -> Bitboards.KNIGHT_ATTACKS[from] & ~own;
+            case BISHOP -> Bitboards.bishopAttacks(from, occupancy) & ~own;
+            case ROOK -> Bitboards.rookAttacks(from, occupancy) & ~own;
+            case QUEEN -> Bitboards.queenAttacks(from, occupancy) & ~own;
+            case KING -> (Bitboards.KING_ATTACKS[from] & ~own) | castlingTargets(board, from, color, occupancy);
+            case PAWN -> pawnTargets(board, from, color, occupancy);
+        };
+    }
+
+    private long pawnTargets(Board board, int from, PieceColor color, long occupancy) {
+        boolean isWhite = color == PieceColor.WHITE;
+        long targets = Bitboards.PAWN_ATTACKS[color.ordinal()][from] & board.getColorBitboard(color.opposite());
+        int enPassant = enPassantSquare(board);
+        if (enPassant >= 0 && (Bitboards.PAWN_ATTACKS[color.ordinal()][from] & (1L << enPassant)) != 0) {
+            targets |= 1L << enPassant;
+        }
+        int forward = isWhite ? from - 8 : from + 8;
+        if (forward >= 0 && forward < 64 && (occupancy & (1L << forward)) == 0) {
+            targets |= 1L << forward;
+            int startRow = isWhite ? 6 : 1;
+            int doubleForward = isWhite ? from - 16 : from + 16;
+            if ((from >> 3) == startRow && (occupancy & (1L << doubleForward)) == 0) {
+                targets |= 1L << doubleForward;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Gets the castling targets of an unmoved king: the first piece met on each side of the row must be
+     * an unmoved rook of the same color, and the king must be neither in check nor crossing an attacked square.
+     */
+    private long castlingTargets(Board board, int from, PieceColor color, long occupancy) {
+        Piece king = board.getCell(from).getPiece();
+        if (king == null || king.hasMoved()) {
+            return 0L;
+        }
+        PieceColor opponent = color.opposite();
+        long targets = 0L;
+        boolean inCheck = false;
+        boolean checkComputed = false;
+        long rookRays = Bitboards.rookAttacks(from, occupancy) & board.getBitboard(color, PieceType.ROOK);
+        int row = from >> 3;
+        for (int direction = -1; direction <= 1; direction += 2) {
+            int x = (from & 7) + direction;
+            while (x >= 0 && x < 8 && (occupancy & (1L << (row * 8 + x))) == 0) {
+                x += direction;
+            }
+            if (x < 0 || x > 7 || (rookRays & (1L << (row * 8 + x))) == 0 || Math.abs(x - (from & 7)) < 3) {
+                continue;
+            }
+            Piece rook = board.getCell(row * 8 + x).getPiece();
+            if (rook.hasMoved()) {
+                continue;
+            }
+            if (!checkComputed) {
+                inCheck = board.isSquareAttacked(from, opponent, occupancy, -1L);
+                checkComputed = true;
+            }
+            if (inCheck || board.isSquareAttacked(from + direction, opponent, occupancy, -1L)) {
+                continue;
+            }
+            targets |= 1L << (from + 2 * direction);
+        }
+        return targets;
+    }
+
+    /**
+     * Gets the square a pawn can capture en passant to, based on the last move of the board.
+     *
+     * @param board the board
+     * @return the en passant target square, or -1 if the last move was not a double pawn push
+     */
+    static int enPassantSquare(Board board) {
+        Move lastMove = board.getLastMove();
+        if (lastMove == null || Math.abs(lastMove.from().getY() - lastMove.to().getY()) != 2) {
+            return -1;
+        }
+        int to = lastMove.to().getIndex();
+        Piece pawn = board.getCell(to).getPiece();
+        if (pawn == null || pawn.getType() != PieceType.PAWN) {
+            return -1;
+        }
+        int target = Position.toIndex(lastMove.to().getX(), (lastMove.from().getY() + lastMove.to().getY()) / 2);
+        return (board.getOccupancy() & (1L << target)) == 0 ? target : -1;
+    }
+
+    /**
+     * Checks if the king is safe once the piece moved, by looking for attackers on the resulting occupancy.
+     * Only needed for en passant captures, every other move is filtered with the check and pin masks.
+     */
+    private boolean isSafe(Board board, PieceColor color, int from, int to, int captureSquare, int kingSquare) {
+        long captured = (1L << to) | (1L << captureSquare);
+        long occupancy = (board.getOccupancy() & ~(1L << from) & ~captured) | (1L << to);
+        return !board.isSquareAttacked(kingSquare, color.opposite(), occupancy, ~captured);
+    }
+}
@@ -0,0 +1,228 @@
+package javachess.movegen;
+
+import javachess.model.PieceColor;
+
+/**
+ * Precomputed attack tables for bitboard move generation.
+ * Squares use the board indexing ({@code index = y * 8 + x}, 0 is a8 and 63 is h1), bit n of a bitboard stands for square n.
+ * Sliding attacks use "fancy" magic bitboards: each square has its own mask, magic factor, shift and offset
+ * in a shared attack table. The magic factors are searched once when the class is loaded, with a fixed seed.
+ */
+public final class Bitboards {
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    /**
+     * Squares attacked by a pawn, indexed by the color of the pawn ({@link PieceColor#ordinal()}) then by square.
+     */
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+    // Squares strictly between two squares on the same row, column or diagonal, 0 otherwise
+    private static final long[][] BETWEEN = new long[64][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+    private static final int[][] KING_DIRECTIONS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}, {-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE = new long[102400];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE = new long[5248];
+
+    static {
+        int[][] knightSteps = {{-2, 1}, {-2, -1}, {2, 1}, {2, -1}, {-1, 2}, {-1, -2}, {1, 2}, {1, -2}};
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = steps(square, knightSteps);
+            KING_ATTACKS[square] = steps(square, KING_DIRECTIONS);
+            // white pawns go up the board (towards y = 0), black pawns go down
+            PAWN_ATTACKS[PieceColor.WHITE.ordinal()][square] = steps(square, new int[][]{{-1, -1}, {1, -1}});
+            PAWN_ATTACKS[PieceColor.BLACK.ordinal()][square] = steps(square, new int[][]{{-1, 1}, {1, 1}});
+        }
+        for (int from = 0; from < 64; from++) {
+            for (int[] direction : KING_DIRECTIONS) {
+                long ray = 0L;
+                int x = (from & 7) + direction[0];
+                int y = (from >> 3) + direction[1];
+                while (x >= 0 && x < 8 && y >= 0 && y < 8) {
+                    BETWEEN[from][y * 8 + x] = ray;
+                    ray |= 1L << (y * 8 + x);
+                    x += direction[0];
+                    y += direction[1];
+                }
+            }
+        }
+        long seed = 0x5DEECE66DL;
+        int rookOffset = 0;
+        int bishopOffset = 0;
+        for (int square = 0; square < 64; square++) {
+            seed = initSlider(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS, ROOK_TABLE, rookOffset, seed);
+            rookOffset += 1 << (64 - ROOK_SHIFTS[square]);
+            seed = initSlider(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS, BISHOP_TABLE, bishopOffset, seed);
+            bishopOffset += 1 << (64 - BISHOP_SHIFTS[square]);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * Gets the squares attacked by a rook, stopping at (and including) the first blocker in each direction.
+     *
+     * @param square    the square of the rook
+     * @param occupancy the occupied squares
+     * @return the attacked squares
+     */
+    public static long rookAttacks(int square, long occupancy) {
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Gets the squares attacked by a bishop, stopping at (and including) the first blocker in each direction.
+     *
+     * @param square    the square of the bishop
+     * @param occupancy the occupied squares
+     * @return the attacked squares
+     */
+    public static long bishopAttacks(int square, long occupancy) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Gets the squares attacked by a queen.
+     *
+     * @param square    the square of the queen
+     * @param occupancy the occupied squares
+     * @return the attacked squares
+     */
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * Gets the squares strictly between two squares.
+     *
+     * @param from the first square
+     * @param to   the second square
+     * @return the squares between them if they share a row, a column or a diagonal, 0 otherwise
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Builds the bitboard of the squares reachable in one step from the square.
+     */
+    private static long steps(int square, int[][] steps) {
+        int x = square & 7;
+        int y = square >> 3;
+        long result = 0L;
+        for (int[] step : steps) {
+            int nx = x + step[0];
+            int ny = y + step[1];
+            if (nx >= 0 && nx < 8 && ny >= 0 && ny < 8) {
+                result |= 1L << (ny * 8 + nx);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the attacks of a slider by walking each ray until a blocker.
+     * With {@code mask} set, the last square of each ray is left out (it never changes the attack set),
+     * which gives the relevant occupancy mask of the square.
+     */
+    private static long slidingAttacks(int square, long occupancy, int[][] directions, boolean mask) {
+        long result = 0L;
+        for (int[] direction : directions) {
+            int x = (square & 7) + direction[0];
+            int y = (square >> 3) + direction[1];
+            while (x >= 0 && x < 8 && y >= 0 && y < 8) {
+                int nx = x + direction[0];
+                int ny = y + direction[1];
+                if (mask && (nx < 0 || nx > 7 || ny < 0 || ny > 7)) {
+                    break;
+                }
+                long bit = 1L << (y * 8 + x);
+                result |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                x = nx;
+                y = ny;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds a magic factor for the square and fills its part of the attack table.
+     *
+     * @return the updated random seed
+     */
+    private static long initSlider(int square, int[][] directions, long[] masks, long[] magics, int[] shifts,
+                                   int[] offsets, long[] table, int offset, long seed) {
+        long mask = slidingAttacks(square, 0L, directions, true);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        // enumerate every subset of the mask (Carry-Rippler trick)
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = slidingAttacks(square, subset, directions, false);
+            subset = (subset - mask) & mask;
+        }
+
+        int[] epoch = new int[size];
+        long[] used = new long[size];
+        int attempt = 0;
+        while (true) {
+            seed = nextRandom(seed);
+            long magic = seed;
+            seed = nextRandom(seed);
+            magic &= seed;
+            seed = nextRandom(seed);
+            magic &= seed;
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+            attempt++;
+            boolean found = true;
+            for (int i = 0; i < size && found; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    used[index] = attacks[i];
+                } else if (used[index] != attacks[i]) {
+                    found = false;
+                }
+            }
+            if (found) {
+                masks[square] = mask;
+                magics[square] = magic;
+                shifts[square] = 64 - bits;
+                offsets[square] = offset;
+                for (int i = 0; i < size; i++) {
+                    table[offset + (int) ((occupancies[i] * magic) >>> (64 - bits))] = attacks[i];
+                }
+                return seed;
+            }
+        }
+    }
+
+    /**
+     * xorshift64* step, good enough to find sparse magic factors quickly.
+     */
+    private static long nextRandom(long seed) {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 2685821657736338717L;
+    }
+}
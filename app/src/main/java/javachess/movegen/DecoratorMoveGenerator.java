@@ -0,0 +1,70 @@
+package javachess.movegen;
+
+import javachess.model.*;
+
+import java.util.ArrayList;
+
+/**
+ * Move generator built on the piece decorators.
+ * Pseudo-legal moves come from {@link Piece#getDecorator()}, and each of them is played on the board
+ * with {@link Board#makeMove(Move, Undo)} to check that it does not leave the king in check.
+ * Checks themselves are detected by {@link Board#isCheck(PieceColor)}.
+ */
+public class DecoratorMoveGenerator implements MoveGenerator {
+    private final Undo undo = new Undo();
+
+    @Override
+    public boolean hasLegalMove(Board board, PieceColor color) {
+        for (int index = 0; index < 64; index++) {
+            Cell from = board.getCell(index);
+            Piece piece = from.getPiece();
+            if (piece != null && piece.getColor() == color) {
+                for (Cell to : piece.getDecorator().getValidCells()) {
+                    if (isLegal(board, piece, from, to)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public ArrayList<Cell> getValidCells(Board board, Piece piece) {
+        Cell from = piece.getCell();
+        ArrayList<Cell> validCells = new ArrayList<>();
+        for (Cell to : piece.getDecorator().getValidCells()) {
+            if (isLegal(board, piece, from, to)) {
+                validCells.add(to);
+            }
+        }
+        return validCells;
+    }
+
+    /**
+     * Simulates a pseudo-legal move and checks that it does not leave the king in check.
+     * Castling also requires the king not to be in check nor to cross an attacked cell.
+     */
+    private boolean isLegal(Board board, Piece piece, Cell from, Cell to) {
+        int fromIndex = from.getIndex();
+        int toIndex = to.getIndex();
+        int dx = (toIndex & 7) - (fromIndex & 7);
+
+        if (piece.getType() == PieceType.KING && Math.abs(dx) == 2) {
+            if (board.isCheck(piece.getColor()) || !isSafe(board, piece, fromIndex, fromIndex + dx / 2)) {
+                return false;
+            }
+        }
+        return isSafe(board, piece, fromIndex, toIndex);
+    }
+
+    /**
+     * Plays the move on the board, checks if the king of the piece is attacked, then takes the move back.
+     */
+    private boolean isSafe(Board board, Piece piece, int from, int to) {
+        board.makeMove(board.getMove(from, to), undo);
+        boolean inCheck = board.isCheck(piece.getColor());
+        board.unmakeMove(undo);
+        return !inCheck;
+    }
+}
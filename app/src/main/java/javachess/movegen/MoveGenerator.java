@@ -0,0 +1,66 @@
+package javachess.movegen;
+
+import javachess.model.*;
+
+import java.util.ArrayList;
+
+/**
+ * Strategy used by a {@link Board} to compute legal moves and mates.
+ * Checks are detected by the board itself (see {@link Board#isSquareAttacked(int, PieceColor)}).
+ * Every implementation must return the same legal move sets, they only differ in speed.
+ */
+public interface MoveGenerator {
+    /**
+     * Gets all the cells the piece can legally move to (excluding the cells that would leave its king in check).
+     *
+     * @param board the board the piece is on
+     * @param piece the piece to move
+     * @return a list of valid cells for the piece to move to
+     */
+    ArrayList<Cell> getValidCells(Board board, Piece piece);
+
+    /**
+     * Adds all the legal moves of the given color to the list, encoded with {@link Moves}.
+     * The default implementation goes through {@link #getValidCells(Board, Piece)}, generators working on
+     * bitboards should override it to avoid allocating.
+     *
+     * @param board the board
+     * @param color the color of the player
+     * @param moves the list to add the moves to
+     */
+    default void generateLegalMoves(Board board, PieceColor color, MoveList moves) {
+        for (int from = 0; from < 64; from++) {
+            Piece piece = board.getCell(from).getPiece();
+            if (piece == null || piece.getColor() != color) {
+                continue;
+            }
+            long targets = 0L;
+            for (Cell cell : getValidCells(board, piece)) {
+                targets |= 1L << cell.getIndex();
+            }
+            Moves.addAll(moves, board, from, targets);
+        }
+    }
+
+    /**
+     * Checks if the player of the given color has at least one legal move.
+     *
+     * @param board the board to check
+     * @param color the color of the player
+     * @return true if the player can move without leaving their king in check
+     */
+    boolean hasLegalMove(Board board, PieceColor color);
+
+    /**
+     * Gets a move generator by its configuration name ("decorator" or "bitboard").
+     *
+     * @param name the name of the generator, case-insensitive
+     * @return the corresponding generator, the bitboard one if the name is unknown
+     */
+    static MoveGenerator fromName(String name) {
+        return switch (name.toLowerCase()) {
+            case "decorator" -> new DecoratorMoveGenerator();
+            default -> new BitboardMoveGenerator();
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package javachess.movegen;
+
+import javachess.model.Board;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Command line perft runner, used to check the move generators and measure their speed.
+ * <p>
+ * Usage: {@code perft [--divide] [--generator=decorator|bitboard] <depth> [fen | -]}.
+ * Without FEN the initial position is used, with {@code -} the FENs are read from the standard input (one per line).
+ */
+public class Perft {
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String USAGE = "Usage: perft [--divide] [--generator=decorator|bitboard] <depth> [fen | -]";
+
+    public static void main(String[] args) throws IOException {
+        boolean divide = false;
+        String generator = "bitboard";
+        ArrayList<String> rest = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--divide")) {
+                divide = true;
+            } else if (arg.startsWith("--generator=")) {
+                generator = arg.substring("--generator=".length());
+            } else {
+                rest.add(arg);
+            }
+        }
+        if (rest.isEmpty()) {
+            System.out.println(USAGE);
+            return;
+        }
+        int depth = 0;
+        try {
+            depth = Integer.parseInt(rest.getFirst());
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        if (depth < 1) {
+            System.err.println("Invalid depth \"" + rest.getFirst() + "\": expected a number of at least 1");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        ArrayList<String> fens = new ArrayList<>();
+        if (rest.size() == 1) {
+            fens.add(START_FEN);
+        } else if (rest.get(1).equals("-")) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    fens.add(line.trim());
+                }
+            }
+        } else {
+            fens.add(String.join(" ", rest.subList(1, rest.size())));
+        }
+
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (String fen : fens) {
+            Board board = new Board();
+            try {
+                board.loadFEN(fen);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid FEN \"" + fen + "\": " + e.getMessage());
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+            board.setMoveGenerator(MoveGenerator.fromName(generator));
+
+            long start = System.nanoTime();
+            long nodes;
+            if (divide) {
+                Map<String, Long> counts = board.divide(depth);
+                counts.forEach((move, count) -> System.out.println(move + ": " + count));
+                nodes = counts.values().stream().mapToLong(Long::longValue).sum();
+            } else {
+                nodes = board.perft(depth);
+            }
+            long time = System.nanoTime() - start;
+            totalNodes += nodes;
+            totalTime += time;
+            System.out.println(fen);
+            System.out.println("  perft(" + depth + ") = " + nodes + " in " + time / 1_000_000 + " ms (" + nodesPerSecond(nodes, time) + " nodes/s)");
+        }
+        if (fens.size() > 1) {
+            System.out.println("Total: " + totalNodes + " nodes in " + totalTime / 1_000_000 + " ms (" + nodesPerSecond(totalNodes, totalTime) + " nodes/s)");
+        }
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+}
@@ -1,5 +1,6 @@
 package javachess.parser;
 
+import javachess.movegen.MoveGenerator;
 import javachess.translation.Language;
 
 import java.io.*;
@@ -67,6 +68,23 @@ public class ConfigParser {
         return configMap.getOrDefault(key, defaultValue);
     }
 
+    /**
+     * Gets an integer value from the configuration file, the default one if it is not a number.
+     *
+     * @param key          the key of the value
+     * @param defaultValue the value used when the key is missing or invalid
+     * @param min          the smallest value allowed, lower values being raised to it
+     */
+    private int getInt(String key, int defaultValue, int min) {
+        String value = getValue(key, Integer.toString(defaultValue));
+        try {
+            return Math.max(min, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + key + " \"" + value + "\", using " + defaultValue + ".");
+            return defaultValue;
+        }
+    }
+
     /**
      * Sets a value in the configuration file.
      */
@@ -82,4 +100,113 @@ public class ConfigParser {
             default -> Language.ENGLISH;
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the move generator selected in the configuration (CHESS_MOVE_GENERATOR, "bitboard" by default or "decorator").
+     */
+    public MoveGenerator getMoveGenerator() {
+        return MoveGenerator.fromName(getValue("CHESS_MOVE_GENERATOR", "bitboard"));
+    }
+
+    /**
+     * Gets the memory budget of the transposition table of the local engine, in megabytes (CHESS_HASH_SIZE, 16 by default).
+     */
+    public int getHashSize() {
+        return getInt("CHESS_HASH_SIZE", 16, 1);
+    }
+
+    /**
+     * Gets the number of search threads of the local engine (CHESS_THREADS, 1 by default).
+     */
+    public int getThreads() {
+        return getInt("CHESS_THREADS", 1, 1);
+    }
+
+    /**
+     * Gets the path of the executable of the external UCI engine (CHESS_UCI_ENGINE, "stockfish" by default).
+     */
+    public String getUciEnginePath() {
+        return getValue("CHESS_UCI_ENGINE", "stockfish");
+    }
+
+    /**
+     * Gets the maximum number of external UCI engine processes shared by the games (CHESS_UCI_POOL_SIZE, 2 by default).
+     */
+    public int getUciPoolSize() {
+        return getInt("CHESS_UCI_POOL_SIZE", 2, 1);
+    }
+
+    /**
+     * Gets the file of the cache of the best moves found by the bot (CHESS_BOT_CACHE, "bestmoves.cache" by default).
+     *
+     * @return the path of the file, or null if the cache is disabled ("none")
+     */
+    public String getBotCacheFile() {
+        String file = getValue("CHESS_BOT_CACHE", "bestmoves.cache");
+        return file.isEmpty() || file.equalsIgnoreCase("none") ? null : file;
+    }
+
+    /**
+     * Gets the size of the file of the bot move cache, in megabytes (CHESS_BOT_CACHE_SIZE, 4 by default).
+     */
+    public int getBotCacheSize() {
+        return getInt("CHESS_BOT_CACHE_SIZE", 4, 1);
+    }
+
+    /**
+     * Gets the number of positions of the bot move cache kept in memory (CHESS_BOT_CACHE_ENTRIES, 10000 by default).
+     */
+    public int getBotCacheEntries() {
+        return getInt("CHESS_BOT_CACHE_ENTRIES", 10000, 1);
+    }
+
+    /**
+     * Gets the maximum number of requests per second sent to the online engine (CHESS_ONLINE_RATE, 2 by default).
+     */
+    public double getOnlineRate() {
+        try {
+            double rate = Double.parseDouble(getValue("CHESS_ONLINE_RATE", "2"));
+            if (rate > 0) {
+                return rate;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        System.err.println("Invalid CHESS_ONLINE_RATE, using two requests per second.");
+        return 2;
+    }
+
+    /**
+     * Gets the maximum number of requests waiting for the rate limit of the online engine (CHESS_ONLINE_QUEUE, 16 by default).
+     * The requests which do not fit are answered by the local engine.
+     */
+    public int getOnlineQueueSize() {
+        return getInt("CHESS_ONLINE_QUEUE", 16, 0);
+    }
+
+    /**
+     * Gets the file of the opening book played by the bot (CHESS_BOOK, none by default).
+     *
+     * @return the path of the book, or null if there is none
+     */
+    public String getOpeningBookFile() {
+        String file = getValue("CHESS_BOOK", "");
+        return file.isEmpty() || file.equalsIgnoreCase("none") ? null : file;
+    }
+
+    /**
+     * Gets the directory of the endgame tablebases probed by the local engine (CHESS_TABLEBASES, none by default).
+     *
+     * @return the path of the directory, or null if there is none
+     */
+    public String getTablebaseDirectory() {
+        String directory = getValue("CHESS_TABLEBASES", "");
+        return directory.isEmpty() || directory.equalsIgnoreCase("none") ? null : directory;
+    }
+
+    /**
+     * Checks if the local engine searches on the time of the opponent, on the reply it expects (CHESS_PONDER, true by default).
+     */
+    public boolean getPonder() {
+        return !getValue("CHESS_PONDER", "true").equalsIgnoreCase("false");
+    }
+}
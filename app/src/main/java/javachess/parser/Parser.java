@@ -7,7 +7,6 @@ import javachess.model.Position;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Scanner;
 
@@ -117,16 +116,12 @@ public class Parser {
         String[] moves = unparsedMoves.replaceAll("\\{.*?}", "") // Remove comments
                                       .replaceAll("\\n", " ") // Remove new lines
                                       .split("[\\s.]+"); // Split by whitespace and dots (trimming it also)
-        System.out.println(Arrays.toString(moves));
         ArrayList<Instruction> instructions = new ArrayList<>();
-        System.out.println("Length of moves: " + moves.length);
-        for (int i = 0; i < moves.length; i+=3) {
-            System.out.println("Turn number " + moves[i]);
+        for (int i = 0; i + 1 < moves.length; i+=3) { // a result after the move of black is alone in its turn
             String[] bothMoves = i + 2 >= moves.length ? new String[]{moves[i + 1]} : new String[]{moves[i + 1], moves[i + 2]};
             for(int j = 0; j < bothMoves.length; j++) {
                 String move = bothMoves[j];
                 if (move.equals("1-0") || move.equals("0-1") || move.equals("1/2-1/2")) {
-                    System.out.println("End of the game");
                     break; // End of the game
                 }
                 Instruction instruction = parseMove(move, j == 0 ? PieceColor.WHITE : PieceColor.BLACK);
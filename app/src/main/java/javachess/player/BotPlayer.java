@@ -1,93 +1,72 @@
 package javachess.player;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-
+import javachess.engine.BotEngine;
+import javachess.engine.SearchLimits;
 import javachess.model.*;
 import javachess.pieces.Bishop;
 import javachess.pieces.Knight;
 import javachess.pieces.Queen;
 import javachess.pieces.Rook;
-import org.json.JSONObject;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Player whose moves are chosen by a {@link BotEngine}, the one selected in the configuration by default.
+ */
 public class BotPlayer implements Player {
     private final Game game;
     private final PieceColor color;
-    private int depth;
+    private final SearchLimits limits;
     private String promoteTo = null;
+    private final BotEngine engine;
 
     /**
-     * Base URL for the Stockfish API.event.getColor())
+     * Constructor for BotPlayer, using the engine selected in the configuration of the game.
+     * @param game The game instance.
+     * @param color The color of the player.
+     * @param depth The depth the engine searches to.
      */
-    private static final String BASE_URL = "https://stockfish.online/api/s/v2.php";
+    public BotPlayer(Game game, PieceColor color, int depth) {
+        this(game, color, SearchLimits.depth(depth), BotEngine.fromConfig(game.configParser));
+    }
 
     /**
      * Constructor for BotPlayer.
      * @param game The game instance.
      * @param color The color of the player.
+     * @param limits The depth or time the engine may use for each move, replaced by the game clock if there is one.
+     * @param engine The engine choosing the moves.
      */
-    public BotPlayer(Game game, PieceColor color, int depth) {
+    public BotPlayer(Game game, PieceColor color, SearchLimits limits, BotEngine engine) {
         this.game = game;
         this.color = color;
-        this.depth = depth < 16 ? depth : 15; // Ensure depth is less than 16
+        this.limits = limits;
+        this.engine = engine;
     }
 
     /**
-     * Fetches the best move from Stockfish API.
+     * Fetches the best move from the engine.
      * @param fen The FEN string to analyze.
-     * @param depth The depth for engine to go to (must be less than 16).
+     * @param depth The depth for engine to go to.
      * @return The best move as a String, or null if not found.
-     * @throws Exception in case of an HTTP or parsing error.
+     * @throws Exception in case of an engine error.
      */
     public String getBestMove(String fen, int depth) throws Exception {
-        if (depth >= 16) {
-            throw new IllegalArgumentException("Depth must be less than 16.");
-        }
-        String urlString = BASE_URL + "?fen=" + java.net.URLEncoder.encode(fen, StandardCharsets.UTF_8)
-                + "&depth=" + depth;
-        URL url = new URL(urlString);
-
-        JSONObject jsonObject = requestAPI(url);
-        String bestMove = jsonObject.optString("bestmove", null);
-        return bestMove.split(" ")[1];
+        return engine.getBestMove(fen, depth);
     }
 
-    public static boolean testConnection() {
-        try {
-            URL url = new URL(BASE_URL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            int responseCode = conn.getResponseCode();
-            return responseCode == 200;
-        } catch (IOException e) {
-            return false;
-        }
-    }
-
-    private static JSONObject requestAPI(URL url) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-
-        int status = conn.getResponseCode();
-        if (status != 200) {
-            throw new RuntimeException("HTTP GET Request Failed with Error code: " + status);
-        }
-
-        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        String inputLine;
-        StringBuilder responseContent = new StringBuilder();
-        while ((inputLine = in.readLine()) != null) {
-            responseContent.append(inputLine);
+    /**
+     * Gets the limits of the search of the next move: the time left on the clock of the game if it has one,
+     * the limits of the player otherwise.
+     */
+    private SearchLimits getLimits() {
+        Clock clock = game.getClock();
+        if (clock == null) {
+            return limits;
         }
-        in.close();
-        conn.disconnect();
-
-        JSONObject jsonObject = new JSONObject(responseContent.toString());
-        return jsonObject;
+        return SearchLimits.clock(clock.getRemaining(PieceColor.WHITE), clock.getRemaining(PieceColor.BLACK),
+                clock.getIncrement(), clock.getIncrement());
     }
 
     // Example usage:
@@ -120,17 +99,33 @@ public class BotPlayer implements Player {
 
     @Override
     public Move getMove() {
-        String bestMoveString;
         try {
-            bestMoveString = getBestMove(game.getFEN(), depth);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        if (bestMoveString == null) {
-            throw new RuntimeException("No best move found.");
+            return getMoveAsync().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
         }
-        game.move = parseMove(bestMoveString);
-        return game.getMove();
+    }
+
+    /**
+     * Asks the engine for the next move without blocking the game thread.
+     * @return A future completed with the move, which is also set as the move of the game.
+     */
+    public CompletableFuture<Move> getMoveAsync() {
+        return engine.getBestMoveAsync(game.getFEN(), getLimits()).thenApply(bestMoveString -> {
+            if (bestMoveString == null) {
+                throw new RuntimeException("No best move found.");
+            }
+            game.move = parseMove(bestMoveString);
+            return game.getMove();
+        });
+    }
+
+    /**
+     * Stops the engine from searching on the time of the opponent, the game being over.
+     */
+    @Override
+    public void gameOver() {
+        engine.stopPondering();
     }
 
     public Piece getPromoteTo(Cell pawnCell) {
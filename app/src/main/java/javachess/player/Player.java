@@ -12,4 +12,10 @@ public interface Player {
     PieceColor getColor();
 
     Move getMove();
+
+    /**
+     * Called once the game is over, so that the player can release what it uses to play (a bot stops its engine).
+     */
+    default void gameOver() {
+    }
 }
@@ -1,10 +1,11 @@
 package javachess.view;
 
+import javachess.engine.BotEngine;
+import javachess.engine.SearchLimits;
 import javachess.model.*;
 import javachess.parser.ConfigParser;
 import javachess.parser.Instruction;
 import javachess.parser.Parser;
-import javachess.player.BotPlayer;
 import javachess.translation.LanguageService;
 import javachess.translation.Message;
 
@@ -22,6 +23,8 @@ import java.awt.event.MouseEvent;
  */
 public class ChessGameMenu extends JFrame {
     private final LanguageService languageService = new LanguageService();
+    // Thinking time of the computer for each move, in milliseconds, by difficulty
+    private static final long[] MOVE_TIMES = {100, 1000, 3000};
 
 
     public ChessGameMenu() {
@@ -63,7 +66,7 @@ public class ChessGameMenu extends JFrame {
             }
         }));
         mainPanel.add(Box.createRigidArea(new Dimension(0, 15)));
-        if(BotPlayer.testConnection()){
+        if(BotEngine.isAvailable(new ConfigParser())){
             mainPanel.add(createStyledButton(languageService.getMessage(Message.PLAY_VS_COMPUTER), new AbstractAction() {
                 @Override
                 public void actionPerformed(ActionEvent e) {
@@ -180,13 +183,13 @@ public class ChessGameMenu extends JFrame {
             }
         }
 
-        int depth = difficulty * 6 + 1; // Set depth based on difficulty
-        System.out.println("Selected difficulty: " + difficulties[difficulty] + " (depth: " + depth + ")");
+        long moveTime = MOVE_TIMES[difficulty]; // Set the thinking time based on difficulty
+        System.out.println("Selected difficulty: " + difficulties[difficulty] + " (move time: " + moveTime + " ms)");
 
         // Avoid blocking the current thread, (while loop)
         new Thread(() -> {
             this.dispose();
-            Game game = new Game(true, depth);
+            Game game = new Game(true, SearchLimits.moveTime(moveTime));
             new GUIChessDisplay(game);
             game.playGame();
         }).start();
@@ -33,16 +33,14 @@ public class ConsoleChessDisplay implements Observer, EventVisitor {
      */
     public void displayBoard() {
         clearConsole();
-        BiMap<Position, Cell> cells = this.game.getBoard().getCells();
+        Board board = this.game.getBoard();
         StringBuilder sb = new StringBuilder();
         sb.append("   a  b  c  d  e  f  g  h \n");
         for(int i = 0; i < 8; i++) {
             sb.append(8 - i).append(" ");
             for (int j = 0; j < 8; j++) {
                 sb.append((i+j) % 2 == 0 ? Colors.LIGHT_GRAY_BACKGROUND : Colors.DARK_GRAY_BACKGROUND);
-                Position position = new Position(j, i);
-                Cell cell = cells.get(position);
-                Piece piece = cell.getPiece();
+                Piece piece = board.getCell(j, i).getPiece();
                 if (piece != null) {
                     sb.append(" ")
                             .append(piece.getColor() == PieceColor.WHITE ? Colors.WHITE : Colors.BLACK)
@@ -140,7 +138,7 @@ public class ConsoleChessDisplay implements Observer, EventVisitor {
         Scanner scanner = new Scanner(System.in);
         int choice = scanner.nextInt();
         Position piecePosition = event.getFrom();
-        Cell pawnCell = game.getBoard().getCells().get(piecePosition);
+        Cell pawnCell = game.getBoard().getCell(piecePosition);
         Piece pawn = pawnCell.getPiece();
 
         game.promoteTo = switch (choice) {
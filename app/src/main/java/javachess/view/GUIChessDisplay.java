@@ -5,6 +5,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.*;
 
 import javachess.audio.AudioPlayer;
@@ -33,6 +35,12 @@ public class GUIChessDisplay extends JFrame implements Observer, EventVisitor {
     public GUIChessDisplay(Game game) {
         super("Java Chess");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                game.abandon();
+            }
+        });
         setIconImage(Toolkit.getDefaultToolkit().getImage(GUIChessDisplay.class.getResource("/classic/wK.png")));
         setPreferredSize(new Dimension(800, 800));
 
@@ -69,7 +77,7 @@ public class GUIChessDisplay extends JFrame implements Observer, EventVisitor {
                     @Override
                     public void mouseClicked(MouseEvent e) {
                         if(game.getCurrentPlayer() instanceof HumanPlayer humanPlayer) {
-                            Piece piece = game.getBoard().getCells().get(new Position(ii, jj)).getPiece();
+                            Piece piece = game.getBoard().getCell(ii, jj).getPiece();
                             if(mouseClick == null){
                                 // check if first click was on a piece of another colour
                                 if (piece != null) {
@@ -138,12 +146,12 @@ public class GUIChessDisplay extends JFrame implements Observer, EventVisitor {
      * @param jj y coordinate of the piece
      */
     private void colorAvailableCells(Game game, int ii, int jj) {
-        Piece piece = game.getBoard().getCells().get(new Position(ii, jj)).getPiece();
+        Piece piece = game.getBoard().getCell(ii, jj).getPiece();
         if (piece != null && piece.getColor() == game.getCurrentPlayer().getColor()) {
             ArrayList<Cell> validCells = game.getBoard().getValidCellsForBoard(piece);
             for (Cell cell : validCells) {
-                Position pos = game.getBoard().getCells().getReverse(cell);
-                if(game.getBoard().getCells().get(pos).getPiece() != null){
+                Position pos = game.getBoard().getPosition(cell);
+                if(cell.getPiece() != null){
                     tabJL[pos.getX()][pos.getY()].setDrawCircle(true, Color.RED);
                 } else {
                     tabJL[pos.getX()][pos.getY()].setDrawCircle(true, Color.GRAY);
@@ -154,8 +162,10 @@ public class GUIChessDisplay extends JFrame implements Observer, EventVisitor {
     }
 
     private void clearRingsFromBoard(Game game) {
-        for (Position p : game.getBoard().getCells().keySet()) {
-            tabJL[p.getX()][p.getY()].setDrawCircle(false);
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                tabJL[i][j].setDrawCircle(false);
+            }
         }
     }
 
@@ -183,10 +193,10 @@ public class GUIChessDisplay extends JFrame implements Observer, EventVisitor {
      * This method is called whenever there is a change in the game state.
      */
     public void updateBoard() {
-        BiMap<Position, Cell> cells = this.game.getBoard().getCells();
+        Board board = this.game.getBoard();
         for (int i = 0; i < 8; i++) {
             for (int j = 0; j < 8; j++) {
-                Piece piece = cells.get(new Position(i, j)).getPiece();
+                Piece piece = board.getCell(i, j).getPiece();
                 tabJL[i][j].setBackground((i + j) % 2 == 0 ? Color.WHITE : Color.BLACK);
                 if(piece != null){
                     tabJL[i][j].setIcon(pieceIcons.get(piece));
@@ -208,7 +218,7 @@ public class GUIChessDisplay extends JFrame implements Observer, EventVisitor {
     public void visit(CheckEvent event) {
         for (int i = 0; i < 8; i++) {
             for (int j = 0; j < 8; j++) {
-                Piece piece = game.getBoard().getCells().get(new Position(i, j)).getPiece();
+                Piece piece = game.getBoard().getCell(i, j).getPiece();
                 if (piece != null && piece.getType() == PieceType.KING && piece.getColor() == game.getCurrentPlayer().getColor()) {
                     tabJL[i][j].setBackground(Color.RED);
                 }
@@ -230,7 +240,7 @@ public class GUIChessDisplay extends JFrame implements Observer, EventVisitor {
     @Override
     public void visit(PromotionEvent event) {
         Position piecePosition = event.getFrom();
-        Cell pawnCell = game.getBoard().getCells().get(piecePosition);
+        Cell pawnCell = game.getBoard().getCell(piecePosition);
         Piece pawn = pawnCell.getPiece();
         // we instance a new thread to avoid blocking the main thread
         new Thread(() -> {
@@ -0,0 +1,63 @@
+package javachess.engine;
+
+import javachess.model.Game;
+import javachess.model.Moves;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyzerTest {
+
+    @Test void streamsTheBestLinesOfEachIteration() throws Exception {
+        Game game = new Game();
+        game.fromFEN("rnb1kbnr/pppp1ppp/8/3q4/8/2N5/PPPP1PPP/R1BQKBNR w KQkq - 0 1");
+        Analyzer analyzer = new Analyzer(1, 1);
+        List<SearchInfo> infos = Collections.synchronizedList(new ArrayList<>());
+        try {
+            List<SearchInfo> lines = analyzer.analyze(game, 3, SearchLimits.depth(4), infos::add).get(30, TimeUnit.SECONDS);
+            assertEquals(3, lines.size());
+            assertEquals(4 * 3, infos.size());
+            assertEquals("c3d5", Moves.toUCI(lines.get(0).pv()[0]));
+            HashSet<Integer> firstMoves = new HashSet<>();
+            for (int i = 0; i < lines.size(); i++) {
+                SearchInfo line = lines.get(i);
+                assertEquals(4, line.depth());
+                assertEquals(i + 1, line.multiPv());
+                assertTrue(firstMoves.add(line.pv()[0]));
+                if (i > 0) {
+                    assertTrue(line.score() <= lines.get(i - 1).score());
+                }
+            }
+        } finally {
+            analyzer.shutdown();
+        }
+    }
+
+    @Test void analysisIsCancellable() throws Exception {
+        Game game = new Game();
+        Analyzer analyzer = new Analyzer(1, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            var future = analyzer.analyze(game, 2, new SearchLimits(), info -> started.countDown());
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertFalse(future.isDone());
+            long start = System.nanoTime();
+            future.cancel(true);
+            assertThrows(CancellationException.class, future::join);
+            // a new analysis stops the previous one, which has already stopped
+            List<SearchInfo> lines = analyzer.analyze(game, 1, SearchLimits.depth(2), info -> { }).get(30, TimeUnit.SECONDS);
+            assertEquals(1, lines.size());
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        } finally {
+            analyzer.shutdown();
+        }
+    }
+}
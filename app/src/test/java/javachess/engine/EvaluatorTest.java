@@ -0,0 +1,74 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTest {
+    private final Evaluator evaluator = new Evaluator();
+
+    private int evaluate(String fen) {
+        Board board = new Board();
+        board.loadFEN(fen);
+        return evaluator.evaluate(board);
+    }
+
+    /**
+     * Mirrors a position vertically and swaps the colors.
+     */
+    private static String mirror(String fen) {
+        String[] parts = fen.split(" ");
+        String[] ranks = parts[0].split("/");
+        StringBuilder board = new StringBuilder();
+        for (int i = ranks.length - 1; i >= 0; i--) {
+            board.append(swapCase(ranks[i])).append(i > 0 ? "/" : "");
+        }
+        String enPassant = parts[3].equals("-") ? "-" : parts[3].charAt(0) + String.valueOf(9 - (parts[3].charAt(1) - '0'));
+        return board + " " + (parts[1].equals("w") ? "b" : "w") + " " + swapCase(parts[2]) + " " + enPassant + " 0 1";
+    }
+
+    private static String swapCase(String text) {
+        StringBuilder swapped = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            swapped.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+        }
+        return swapped.toString();
+    }
+
+    @Test void evaluationIsSymmetric() {
+        String[] positions = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R b KQ - 0 1",
+        };
+        assertEquals(0, evaluate("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+        for (String fen : positions) {
+            assertEquals(evaluate(fen), evaluate(mirror(fen)), fen);
+        }
+    }
+
+    @Test void passedPawnsCountMoreInTheEndgame() {
+        // the same extra pawn, passed or not
+        int passed = evaluate("4k3/8/8/3P4/8/8/8/4K3 w - - 0 1");
+        int blocked = evaluate("4k3/3p4/8/3P4/8/8/3P4/4K3 w - - 0 1");
+        assertTrue(passed > blocked);
+        // a material advantage is an advantage for the side to move, and a disadvantage for the other one
+        assertTrue(evaluate("4k3/8/8/8/8/8/8/3QK3 w - - 0 1") > 800);
+        assertTrue(evaluate("4k3/8/8/8/8/8/8/3QK3 b - - 0 1") < -800);
+    }
+
+    @Test void pawnTermsAreCached() {
+        PawnTable pawnTable = new PawnTable(1024);
+        Evaluator cached = new Evaluator(pawnTable);
+        Board board = new Board();
+        board.loadFEN("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R b KQ - 0 1");
+        int score = cached.evaluate(board);
+        assertEquals(0, pawnTable.getHits());
+        // same pawns, same result from the table
+        assertEquals(score, cached.evaluate(board));
+        assertEquals(1, pawnTable.getHits());
+        assertEquals(score, evaluator.evaluate(board));
+        assertEquals(0.5, pawnTable.getHitRate());
+    }
+}
@@ -0,0 +1,98 @@
+package javachess.engine;
+
+import javachess.model.Game;
+import javachess.model.Move;
+import javachess.model.PieceColor;
+import javachess.player.BotPlayer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveCacheTest {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test void deeperResultsAnswerShallowerRequests() {
+        MoveCache cache = new MoveCache(10);
+        cache.put(START, 8, "e2e4");
+        assertEquals("e2e4", cache.get(START, 5));
+        assertNull(cache.get(START, 9));
+        // a shallower result does not replace a deeper one
+        cache.put(START, 4, "d2d4");
+        assertEquals("e2e4", cache.get(START, 1));
+        assertEquals(2, cache.getMemoryHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test void moveClocksAreIgnored() {
+        MoveCache cache = new MoveCache(10);
+        cache.put(START, 3, "e2e4");
+        assertEquals("e2e4", cache.get(START.replace(" 0 1", " 4 12"), 3));
+    }
+
+    @Test void leastRecentlyUsedPositionsLeaveTheMemory() {
+        MoveCache cache = new MoveCache(2);
+        cache.put("8/8/8/8/8/8/8/K6k w - - 0 1", 1, "a1a2");
+        cache.put("8/8/8/8/8/8/8/K6k b - - 0 1", 1, "h1h2");
+        cache.get("8/8/8/8/8/8/8/K6k w - - 0 1", 1);
+        cache.put(START, 1, "e2e4");
+        assertNotNull(cache.get("8/8/8/8/8/8/8/K6k w - - 0 1", 1));
+        assertNull(cache.get("8/8/8/8/8/8/8/K6k b - - 0 1", 1));
+    }
+
+    @Test void diskTierSurvivesReopening() throws Exception {
+        Path file = Files.createTempFile("moves", ".cache");
+        try {
+            MoveCache cache = new MoveCache(file, 1, 10);
+            cache.put(START, 6, "e2e4");
+            cache.put("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", 2, "a7a8q");
+            cache.close();
+
+            MoveCache reopened = new MoveCache(file, 1, 10);
+            assertEquals("e2e4", reopened.get(START, 6));
+            assertEquals("a7a8q", reopened.get("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", 1));
+            assertEquals(2, reopened.getDiskHits());
+            // found again in memory
+            assertEquals("e2e4", reopened.get(START, 6));
+            assertEquals(1, reopened.getMemoryHits());
+            reopened.close();
+
+            // another size resets the file
+            MoveCache resized = new MoveCache(file, 2, 10);
+            assertNull(resized.get(START, 1));
+            resized.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test void cachingEngineSearchesOnlyOnMisses() throws Exception {
+        int[] searches = {0};
+        BotEngine engine = (fen, limits) -> {
+            searches[0]++;
+            return "e2e4";
+        };
+        CachingEngine caching = new CachingEngine(engine, new MoveCache(10));
+        assertEquals("e2e4", caching.getBestMove(START, 6));
+        assertEquals("e2e4", caching.getBestMove(START, 4));
+        assertEquals(1, searches[0]);
+        // timed searches are not cached when the engine does not tell the depth it completed
+        caching.getBestMove(START, SearchLimits.moveTime(100));
+        assertEquals(2, searches[0]);
+        assertEquals(0.5, caching.getCache().getHitRate());
+    }
+
+    @Test void timedSearchesOfTheBotAreCachedByCompletedDepth() {
+        LocalEngine local = new LocalEngine(1, 1);
+        CachingEngine caching = new CachingEngine(local, new MoveCache(10));
+        BotPlayer player = new BotPlayer(new Game(), PieceColor.WHITE, SearchLimits.moveTime(100), caching);
+        Move first = player.getMove();
+        assertTrue(local.getCompletedDepth() > 0);
+        // the same position is answered from the cache, as deep as the engine went in the time
+        Move second = player.getMove();
+        assertEquals(first, second);
+        assertEquals(1, caching.getCache().getMemoryHits());
+    }
+}
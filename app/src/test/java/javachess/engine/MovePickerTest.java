@@ -0,0 +1,71 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.MoveList;
+import javachess.model.Moves;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovePickerTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static ArrayList<String> pick(Board board, String hashMove, String killer, String countermove, int[] history) {
+        MoveList moves = new MoveList();
+        board.generateLegalMoves(board.getSideToMove(), moves);
+        int count = moves.size();
+        MovePicker picker = new MovePicker();
+        picker.init(board, moves, hashMove == null ? Moves.NONE : Moves.fromUCI(board, hashMove),
+                killer == null ? Moves.NONE : Moves.fromUCI(board, killer), Moves.NONE,
+                countermove == null ? Moves.NONE : Moves.fromUCI(board, countermove), history);
+        ArrayList<String> picked = new ArrayList<>();
+        int move;
+        while ((move = picker.next()) != Moves.NONE) {
+            picked.add(Moves.toUCI(move) + " " + picker.getStage());
+        }
+        assertEquals(count, picked.size());
+        assertEquals(count, new HashSet<>(picked).size());
+        return picked;
+    }
+
+    @Test void picksEveryMoveOnceStageByStage() {
+        Board board = new Board();
+        board.loadFEN(KIWIPETE);
+        int[] history = new int[64 * 64];
+        history[Moves.fromUCI(board, "a2a3") & 0xFFF] = 500;
+        ArrayList<String> picked = pick(board, "e2a6", "g2g3", "b2b3", history);
+        assertEquals("e2a6 HASH_MOVE", picked.get(0));
+        // a pawn takes a pawn first, the queen takes the knight defended by the bishop and the queen last
+        assertEquals("d5e6 GOOD_CAPTURES", picked.get(1));
+        assertTrue(picked.contains("g2h3 GOOD_CAPTURES"));
+        assertTrue(picked.indexOf("f3f6 BAD_CAPTURES") > picked.indexOf("a2a3 QUIETS"));
+        int killer = picked.indexOf("g2g3 KILLERS");
+        assertTrue(killer > 0);
+        assertEquals("b2b3 COUNTERMOVE", picked.get(killer + 1));
+        assertEquals("a2a3 QUIETS", picked.get(killer + 2));
+
+        board.loadFEN("8/1P5k/8/8/8/8/8/K7 w - - 0 1");
+        picked = pick(board, null, null, null, history);
+        assertEquals("b7b8q GOOD_CAPTURES", picked.get(0));
+        assertEquals("b7b8n BAD_CAPTURES", picked.get(picked.size() - 1));
+        assertTrue(picked.get(picked.size() - 4).endsWith("QUIETS"));
+    }
+
+    @Test void searchCountsCutoffsByStage() {
+        Board board = new Board();
+        board.loadFEN(KIWIPETE);
+        Search search = new Search(board);
+        search.search(5);
+        MoveOrdering ordering = search.getMoveOrdering();
+        long total = 0;
+        for (MovePicker.Stage stage : MovePicker.Stage.values()) {
+            total += ordering.getCutoffs(stage);
+        }
+        assertEquals(ordering.getCutoffs(), total);
+        assertTrue(ordering.getCutoffs(MovePicker.Stage.HASH_MOVE) > 0);
+        assertTrue(ordering.getFirstMoveCutoffRate() > 0.5, "first move cutoffs " + ordering.getFirstMoveCutoffRate());
+    }
+}
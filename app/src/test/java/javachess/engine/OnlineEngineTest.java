@@ -0,0 +1,104 @@
+package javachess.engine;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the online engine against a local stub of the Stockfish API.
+ */
+class OnlineEngineTest {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String ANSWER = "{\"success\":true,\"bestmove\":\"bestmove e2e4 ponder e7e5\"}";
+
+    private HttpServer server;
+    // statuses of the next responses, 200 once empty; a status of 0 makes the server hang
+    private final Deque<Integer> statuses = new ArrayDeque<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile String lastQuery;
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @BeforeEach void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api", exchange -> {
+            requests.incrementAndGet();
+            lastQuery = exchange.getRequestURI().getRawQuery();
+            Integer status;
+            synchronized (statuses) {
+                status = statuses.poll();
+            }
+            if (status != null && status == 0) {
+                try {
+                    released.await();
+                } catch (InterruptedException ignored) {
+                }
+                status = 200;
+            }
+            byte[] body = (status == null || status == 200 ? ANSWER : "{}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status == null ? 200 : status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach void stopServer() {
+        released.countDown();
+        server.stop(0);
+    }
+
+    private OnlineEngine engine(int maxRetries) {
+        return engine(maxRetries, Duration.ofSeconds(5));
+    }
+
+    private OnlineEngine engine(int maxRetries, Duration timeout) {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/api");
+        return new OnlineEngine(uri, timeout, maxRetries, Duration.ofMillis(10));
+    }
+
+    @Test void answersAsynchronously() throws Exception {
+        CompletableFuture<String> move = engine(0).getBestMoveAsync(START, SearchLimits.depth(20));
+        assertEquals("e2e4", move.get());
+        // the depth is capped to what the API accepts
+        assertTrue(lastQuery.endsWith("depth=" + OnlineEngine.MAX_DEPTH));
+    }
+
+    @Test void retriesServerErrors() throws Exception {
+        statuses.add(503);
+        statuses.add(429);
+        assertEquals("e2e4", engine(2).getBestMove(START, 5));
+        assertEquals(3, requests.get());
+    }
+
+    @Test void clientErrorsAreNotRetried() {
+        statuses.add(400);
+        assertThrows(IOException.class, () -> engine(2).getBestMove(START, 5));
+        assertEquals(1, requests.get());
+    }
+
+    @Test void slowAnswersTimeOut() throws Exception {
+        // warms the client up, so that its first connection does not count in the timeout
+        engine(0).getBestMove(START, 5);
+        statuses.add(0);
+        assertThrows(IOException.class, () -> engine(0, Duration.ofMillis(300)).getBestMove(START, 5));
+        // retried after the timeout
+        statuses.add(0);
+        assertEquals("e2e4", engine(1, Duration.ofMillis(300)).getBestMove(START, 5));
+    }
+}
@@ -0,0 +1,108 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.Moves;
+import javachess.model.Undo;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTest {
+    private static final String PGN = """
+            [Event "First"]
+            [Result "1-0"]
+
+            1.e4 e5 2.Nf3 Nc6 3.Bc4 Bc5 4.O-O Nf6 1-0
+
+            [Event "Second"]
+            [Result "1/2-1/2"]
+
+            1.e4 e5 2.Nf3 Nf6 1/2-1/2
+
+            [Event "Third"]
+            [Result "0-1"]
+
+            1.d4 d5 2.c4 e6 0-1
+            """;
+
+    private static OpeningBook build(Path file) throws Exception {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        builder.addPgn(PGN);
+        assertEquals(3, builder.getGames());
+        builder.write(file);
+        return new OpeningBook(file);
+    }
+
+    private static Board play(String... moves) {
+        Board board = new Board();
+        for (String move : moves) {
+            board.makeMove(Moves.fromUCI(board, move), new Undo());
+        }
+        return board;
+    }
+
+    @Test void movesAreWeightedByResult() throws Exception {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            OpeningBook book = build(file);
+            List<OpeningBook.BookMove> moves = book.getMoves(new Board());
+            // e4 won once and drew once, d4 lost
+            assertEquals(1, moves.size());
+            assertEquals("e2e4", Moves.toUCI(moves.getFirst().move()));
+            assertEquals(3, moves.getFirst().weight());
+
+            Board afterNf3 = play("e2e4", "e7e5", "g1f3");
+            List<OpeningBook.BookMove> replies = book.getMoves(afterNf3);
+            assertEquals(1, replies.size());
+            // only the draw counts for black
+            assertEquals("g8f6", Moves.toUCI(replies.getFirst().move()));
+            assertEquals(Moves.NONE, book.pickMove(play("a2a3"), new Random()));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test void castlingIsStoredAsTheKingTakingItsRook() throws Exception {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            OpeningBook book = build(file);
+            Board board = play("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5");
+            int castling = book.pickMove(board, new Random());
+            assertTrue(Moves.isCastling(castling));
+            assertEquals("e1g1", Moves.toUCI(castling));
+            // e1 -> h1, ranks counted from the first one
+            assertEquals(7 | 4 << 6, OpeningBook.toBookMove(castling));
+
+            BookEngine engine = new BookEngine((fen, limits) -> "a2a3", book);
+            assertEquals("e1g1", engine.getBestMove(board.getFEN(0, board.getSideToMove()), 5));
+            assertEquals("a2a3", engine.getBestMove("4k3/8/8/8/8/8/8/4K3 w - - 0 1", 5));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test void foreignBooksAreRejected() throws Exception {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            // the entry of the starting position in a Polyglot book: e2e4, weight 1
+            ByteBuffer polyglot = ByteBuffer.allocate(OpeningBook.ENTRY_BYTES);
+            polyglot.putLong(0x463B96181691FC9CL).putShort((short) OpeningBook.toBookMove(Moves.fromUCI(new Board(), "e2e4"))).putShort((short) 1);
+            Files.write(file, polyglot.array());
+            assertThrows(IOException.class, () -> new OpeningBook(file));
+            Files.write(file, new byte[0]);
+            assertThrows(IOException.class, () -> new OpeningBook(file));
+
+            OpeningBook book = build(file);
+            assertEquals(Files.size(file) / OpeningBook.ENTRY_BYTES - 1, book.size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.Game;
+import javachess.model.Moves;
+import javachess.model.PieceColor;
+import javachess.model.Undo;
+import javachess.movegen.Perft;
+import javachess.player.BotPlayer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTest {
+
+    private static String bestMove(String fen, int depth) {
+        Board board = new Board();
+        board.loadFEN(fen);
+        int move = new Search(board).search(depth);
+        // the search must leave the board as it found it
+        assertEquals(fen, board.getFEN(board.getHalfMoveClock(), board.getSideToMove()));
+        return move == Moves.NONE ? null : Moves.toUCI(move);
+    }
+
+    @Test void findsBackRankMate() {
+        assertEquals("a1a8", bestMove("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1", 3));
+    }
+
+    @Test void takesHangingQueen() {
+        assertEquals("c3d5", bestMove("rnb1kbnr/pppp1ppp/8/3q4/8/2N5/PPPP1PPP/R1BQKBNR w KQkq - 0 1", 4));
+    }
+
+    @Test void findsMateInTwo() {
+        // 1. Kf7 Kh7 2. Rh1#
+        Board board = new Board();
+        board.loadFEN("7k/8/5K2/8/8/8/8/6R1 w - - 0 1");
+        Search search = new Search(board);
+        search.search(5);
+        assertEquals(Search.MATE - 3, search.getBestScore());
+    }
+
+    @Test void noMoveWhenMated() {
+        assertNull(bestMove("R5k1/5ppp/8/8/8/8/5PPP/6K1 b - - 1 1", 3));
+    }
+
+    @Test void repetitionsOfTheGameAreDraws() {
+        // black is lost, unless its king goes back to a position already played in the game
+        String fen = "7k/8/8/8/3Q4/8/8/K3R3 b - - 10 40";
+        Board board = new Board();
+        board.loadFEN(fen);
+        board.makeMove(Moves.fromUCI(board, "h8g8"), new Undo());
+        long repeated = board.hash();
+        board.loadFEN(fen);
+        Search search = new Search(board);
+        search.search(3);
+        assertTrue(search.getBestScore() < -500);
+
+        search.setHistory(new long[]{repeated, 1, 2});
+        assertEquals("h8g8", Moves.toUCI(search.search(3)));
+        assertEquals(0, search.getBestScore());
+    }
+
+    @Test void parallelSearchAgreesOnForcedMoves() {
+        ParallelSearch search = new ParallelSearch(3, new TranspositionTable(1));
+        try {
+            assertEquals("a1a8", Moves.toUCI(search.search("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1", 4)));
+            MoveOrdering ordering = search.getMoveOrdering();
+            assertEquals("c3d5", Moves.toUCI(search.search("rnb1kbnr/pppp1ppp/8/3q4/8/2N5/PPPP1PPP/R1BQKBNR w KQkq - 0 1", 5)));
+            assertTrue(search.getNodes() > 0);
+            // the history of the threads is kept from one search to the next
+            assertSame(ordering, search.getMoveOrdering());
+        } finally {
+            search.shutdown();
+        }
+    }
+
+    @Test void moveTimeBoundsTheSearch() {
+        Board board = new Board();
+        board.loadFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Search search = new Search(board);
+        long start = System.nanoTime();
+        int move = search.search(SearchLimits.moveTime(200));
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        assertNotEquals(Moves.NONE, move);
+        assertTrue(search.getCompletedDepth() >= 1);
+        assertTrue(elapsed < 1000, "searched for " + elapsed + " ms");
+    }
+
+    @Test void clockLimitsDependOnTheSideToMove() {
+        SearchLimits limits = SearchLimits.clock(60_000, 3_000, 1_000, 0);
+        assertTrue(limits.isTimed());
+        assertEquals(60_000 / 30 + 750, limits.getSoftLimit(PieceColor.WHITE));
+        assertEquals(100, limits.getSoftLimit(PieceColor.BLACK));
+        assertTrue(limits.getHardLimit(PieceColor.BLACK) >= limits.getSoftLimit(PieceColor.BLACK));
+        assertTrue(limits.getHardLimit(PieceColor.BLACK) < 3_000);
+        assertFalse(SearchLimits.depth(5).isTimed());
+        assertEquals(Long.MAX_VALUE, SearchLimits.depth(5).getHardLimit(PieceColor.WHITE));
+    }
+
+    @Test void sideOutOfTimeGetsAMinimalBudget() {
+        SearchLimits limits = SearchLimits.clock(-500, 0, 0, 0);
+        assertEquals(1, limits.getSoftLimit(PieceColor.WHITE));
+        assertEquals(1, limits.getHardLimit(PieceColor.WHITE));
+        assertEquals(1, limits.getHardLimit(PieceColor.BLACK));
+        assertEquals("go wtime 0 btime 0", limits.toGoCommand());
+
+        SearchLimits blackOnly = new SearchLimits();
+        blackOnly.setBlackTime(0);
+        assertTrue(blackOnly.isTimed());
+        assertEquals(1, blackOnly.getHardLimit(PieceColor.BLACK));
+        assertEquals(Long.MAX_VALUE, blackOnly.getHardLimit(PieceColor.WHITE));
+    }
+
+    @Test void localEngineAnswersInUciNotation() throws Exception {
+        assertEquals("a1a8", new LocalEngine().getBestMove("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1", 3));
+    }
+
+    @Test void ponderHitsContinueTheSearch() throws Exception {
+        LocalEngine engine = new LocalEngine(1, 1);
+        engine.setPondering(true);
+        try {
+            String fen = "rnb1kbnr/pppp1ppp/8/3q4/8/2N5/PPPP1PPP/R1BQKBNR w KQkq - 0 1";
+            String move = engine.getBestMove(fen, 4);
+            assertEquals("c3d5", move);
+            String reply = engine.getPonderMove();
+            assertNotNull(reply);
+
+            Board board = new Board();
+            board.loadFEN(fen);
+            board.makeMove(Moves.fromUCI(board, move), new Undo());
+            board.makeMove(Moves.fromUCI(board, reply), new Undo());
+            String next = board.getFEN(board.getHalfMoveClock(), board.getSideToMove());
+            String answer = engine.getBestMove(next, 4);
+            assertNotEquals(Moves.NONE, Moves.fromUCI(board, answer));
+            assertEquals(1, engine.getPonderHits());
+
+            // the opponent played another move: the ponder search is discarded
+            assertEquals("a1a8", engine.getBestMove("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1", 3));
+            assertEquals(1, engine.getPonderMisses());
+        } finally {
+            engine.setPondering(false);
+        }
+        assertNull(engine.getPonderMove());
+    }
+
+    @Test void cacheHitsStopPondering() throws Exception {
+        LocalEngine engine = new LocalEngine(1, 1);
+        engine.setPondering(true);
+        CachingEngine caching = new CachingEngine(engine, new MoveCache(10));
+        try {
+            caching.getBestMove(Perft.START_FEN, 3);
+            assertNotNull(engine.getPonderMove());
+            caching.getBestMove(Perft.START_FEN, 3);
+            assertEquals(1, caching.getCache().getMemoryHits());
+            assertNull(engine.getPonderMove());
+        } finally {
+            engine.setPondering(false);
+        }
+    }
+
+    @Test void gameOverStopsPondering() {
+        LocalEngine engine = new LocalEngine(1, 1);
+        engine.setPondering(true);
+        BotPlayer player = new BotPlayer(new Game(), PieceColor.WHITE, SearchLimits.depth(3), new CachingEngine(engine, new MoveCache(10)));
+        try {
+            assertNotNull(player.getMove());
+            assertNotNull(engine.getPonderMove());
+            player.gameOver();
+            assertNull(engine.getPonderMove());
+        } finally {
+            engine.setPondering(false);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.Moves;
+import javachess.model.Undo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+    @TempDir
+    static Path directory;
+    // generated once for all the tests: KPvK needs the 3-piece tablebases of its promotions
+    private static Tablebases tablebases;
+
+    private static synchronized Tablebases tablebases() {
+        if (tablebases == null) {
+            try {
+                TablebaseGenerator generator = new TablebaseGenerator(directory);
+                generator.generate("KPvK");
+                tablebases = Tablebases.open(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return tablebases;
+    }
+
+    private static Tablebase.Result probe(String fen) {
+        Board board = new Board();
+        board.loadFEN(fen);
+        return tablebases().probe(board);
+    }
+
+    @Test void longestMatesAreKnownOnes() {
+        assertEquals(5, tablebases().size());
+        int[] longest = new int[2];
+        for (String name : new String[]{"KQvK", "KRvK"}) {
+            Tablebase table = tablebases().get(name);
+            int max = 0;
+            for (int index = 0; index < table.getPositions(); index++) {
+                Tablebase.Result result = table.get(index);
+                if (result != null && result.outcome() == Tablebase.Outcome.WIN) {
+                    max = Math.max(max, result.plies());
+                }
+            }
+            longest[name.equals("KQvK") ? 0 : 1] = max;
+        }
+        // mate in 10 moves with a queen, 16 with a rook
+        assertEquals(19, longest[0]);
+        assertEquals(31, longest[1]);
+    }
+
+    @Test void symmetricPositionsAreStoredOnce() {
+        // the white king on 10 squares without pawns, on 32 with pawns, the black king on the squares it can reach
+        assertEquals(2 * 564 * 64, tablebases().get("KQvK").getPositions());
+        assertEquals(2 * 1806 * 64, tablebases().get("KPvK").getPositions());
+        // the same positions mirrored and rotated
+        assertEquals(probe("k7/8/1K6/8/8/8/7Q/8 w - - 0 1"), probe("7k/8/6K1/8/8/8/Q7/8 w - - 0 1"));
+        assertEquals(probe("k7/8/1K6/8/8/8/7Q/8 w - - 0 1"), probe("8/Q7/8/8/8/6K1/8/7k w - - 0 1"));
+        assertEquals(probe("8/8/8/2K5/8/8/2k1Q3/8 b - - 0 1"), probe("8/3Q1k2/8/8/5K2/8/8/8 b - - 0 1"));
+        assertEquals(probe("8/8/8/2K5/8/8/2k1Q3/8 b - - 0 1"), probe("8/8/8/1Q6/8/1k2K3/8/8 b - - 0 1"));
+        assertEquals(probe("8/8/4k3/8/4K3/4P3/8/8 b - - 0 1"), probe("8/8/3k4/8/3K4/3P4/8/8 b - - 0 1"));
+    }
+
+    @Test void probesBothColors() {
+        assertEquals(new Tablebase.Result(Tablebase.Outcome.WIN, 1), probe("k7/8/1K6/8/8/8/7Q/8 w - - 0 1"));
+        assertEquals(new Tablebase.Result(Tablebase.Outcome.LOSS, 0), probe("k6Q/8/1K6/8/8/8/8/8 b - - 0 1"));
+        // the same positions with the colors swapped
+        assertEquals(new Tablebase.Result(Tablebase.Outcome.WIN, 1), probe("8/7q/8/8/8/1k6/8/K7 b - - 0 1"));
+        assertEquals(new Tablebase.Result(Tablebase.Outcome.LOSS, 0), probe("8/8/8/8/8/1k6/8/K6q w - - 0 1"));
+        // stalemate
+        assertEquals(Tablebase.Outcome.DRAW, probe("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1").outcome());
+        // more pieces than in the tablebases
+        assertNull(probe("k7/8/1K6/8/8/8/8/6RQ w - - 0 1"));
+    }
+
+    @Test void pawnEndingsAreWonOrDrawn() {
+        // a rook pawn with the defending king in the corner
+        assertEquals(Tablebase.Outcome.DRAW, probe("k7/8/8/8/8/8/P7/K7 w - - 0 1").outcome());
+        // the pawn promotes before the king comes back
+        Tablebase.Result win = probe("8/4P3/8/8/8/8/k7/4K3 w - - 0 1");
+        assertEquals(Tablebase.Outcome.WIN, win.outcome());
+        // the king on the sixth rank in front of its pawn wins whoever is to move (results for the side to move)
+        assertEquals(Tablebase.Outcome.WIN, probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1").outcome());
+        assertEquals(Tablebase.Outcome.LOSS, probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1").outcome());
+        // lower, it only wins with the opposition
+        assertEquals(Tablebase.Outcome.DRAW, probe("8/8/4k3/8/4K3/4P3/8/8 w - - 0 1").outcome());
+        assertEquals(Tablebase.Outcome.LOSS, probe("8/8/4k3/8/4K3/4P3/8/8 b - - 0 1").outcome());
+    }
+
+    @Test void searchPlaysTheShortestMate() {
+        Board board = new Board();
+        board.loadFEN("8/8/8/4k3/8/8/8/R3K3 w Q - 0 1");
+        assertNull(tablebases().probe(board), "castling rights are not in the tablebases");
+        board.loadFEN("8/8/8/4k3/8/8/8/R5K1 w - - 0 1");
+        Tablebase.Result expected = tablebases().probe(board);
+        assertEquals(Tablebase.Outcome.WIN, expected.outcome());
+
+        Search search = new Search(board);
+        search.setTablebases(tablebases());
+        int move = search.search(4);
+        assertEquals(Search.MATE - expected.plies(), search.getBestScore());
+        board.makeMove(move, new Undo());
+        assertEquals(new Tablebase.Result(Tablebase.Outcome.LOSS, expected.plies() - 1), tablebases().probe(board),
+                "after " + Moves.toUCI(move));
+    }
+}
@@ -0,0 +1,81 @@
+package javachess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottledEngineTest {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String E4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+    private static final String D4 = "rnbqkbnr/pppppppp/8/8/3P4/8/PPP1PPPP/RNBQKBNR b KQkq - 0 1";
+
+    /**
+     * Engine whose answers are given by the test.
+     */
+    private static class PendingEngine implements BotEngine {
+        final List<CompletableFuture<String>> requests = new ArrayList<>();
+
+        @Override
+        public String getBestMove(String fen, SearchLimits limits) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized CompletableFuture<String> getBestMoveAsync(String fen, SearchLimits limits) {
+            CompletableFuture<String> request = new CompletableFuture<>();
+            requests.add(request);
+            return request;
+        }
+
+        synchronized int count() {
+            return requests.size();
+        }
+    }
+
+    @Test void identicalRequestsAreMerged() throws Exception {
+        PendingEngine remote = new PendingEngine();
+        ThrottledEngine engine = new ThrottledEngine(remote, new PendingEngine(), 100, 10, 10);
+        CompletableFuture<String> first = engine.getBestMoveAsync(START, SearchLimits.depth(5));
+        // the move clocks do not matter
+        CompletableFuture<String> second = engine.getBestMoveAsync(START.replace(" 0 1", " 2 5"), SearchLimits.depth(5));
+        CompletableFuture<String> deeper = engine.getBestMoveAsync(START, SearchLimits.depth(6));
+        assertEquals(2, remote.count());
+        assertEquals(1, engine.getCoalesced());
+
+        remote.requests.get(0).complete("e2e4");
+        assertEquals("e2e4", first.get());
+        assertEquals("e2e4", second.get());
+        assertFalse(deeper.isDone());
+
+        // once answered, the position is asked again
+        engine.getBestMoveAsync(START, SearchLimits.depth(5));
+        assertEquals(3, remote.count());
+    }
+
+    @Test void requestsOverTheRateWaitOrFallBack() throws Exception {
+        PendingEngine remote = new PendingEngine();
+        PendingEngine local = new PendingEngine();
+        ThrottledEngine engine = new ThrottledEngine(remote, local, 20, 1, 1);
+        engine.getBestMoveAsync(START, SearchLimits.depth(5));
+        engine.getBestMoveAsync(E4, SearchLimits.depth(5));
+        CompletableFuture<String> third = engine.getBestMoveAsync(D4, SearchLimits.depth(5));
+        assertEquals(1, remote.count());
+        assertEquals(1, engine.getQueued());
+        assertEquals(1, engine.getFallbacks());
+        local.requests.get(0).complete("d7d5");
+        assertEquals("d7d5", third.get(1, TimeUnit.SECONDS));
+
+        // the queued request is sent when the bucket has a token again
+        long deadline = System.currentTimeMillis() + 1000;
+        while (remote.count() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, remote.count());
+        assertEquals(2, engine.getSent());
+    }
+}
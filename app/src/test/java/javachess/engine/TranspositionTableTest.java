@@ -0,0 +1,50 @@
+package javachess.engine;
+
+import javachess.model.Moves;
+import javachess.model.PieceType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    @Test void sizeIsAPowerOfTwoWithinBudget() {
+        TranspositionTable table = new TranspositionTable(3);
+        assertEquals(Integer.highestOneBit(table.capacity()), table.capacity());
+        assertTrue(table.capacity() * 16L <= 3 * 1024 * 1024);
+    }
+
+    @Test void entriesKeepTheirPackedFields() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Moves.encode(12, 4, PieceType.QUEEN, Moves.CAPTURE);
+        table.store(0x1234_5678_9ABCL, move, -29990, 17, TranspositionTable.UPPER_BOUND);
+        long entry = table.probe(0x1234_5678_9ABCL);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-29990, TranspositionTable.score(entry));
+        assertEquals(17, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.UPPER_BOUND, TranspositionTable.bound(entry));
+        assertEquals(0L, table.probe(0x42L));
+        assertEquals(0.5, table.getHitRate());
+    }
+
+    @Test void deepEntriesSurviveShallowOnesOfTheSameSearch() {
+        TranspositionTable table = new TranspositionTable(1);
+        long bucketStride = table.capacity() / 2;
+        long deep = 5;
+        long shallow = deep + bucketStride;
+        long other = deep + 2 * bucketStride;
+        table.store(deep, Moves.NONE, 10, 8, TranspositionTable.EXACT);
+        table.store(shallow, Moves.NONE, 20, 2, TranspositionTable.EXACT);
+        table.store(other, Moves.NONE, 30, 1, TranspositionTable.EXACT);
+        // the deep entry stays, the always-replace slot holds the last one
+        assertEquals(8, TranspositionTable.depth(table.probe(deep)));
+        assertEquals(0L, table.probe(shallow));
+        assertEquals(30, TranspositionTable.score(table.probe(other)));
+
+        // once the search is over, the old deep entry can be replaced
+        table.newSearch();
+        table.store(shallow, Moves.NONE, 20, 2, TranspositionTable.EXACT);
+        assertEquals(0L, table.probe(deep));
+        assertEquals(20, TranspositionTable.score(table.probe(shallow)));
+    }
+}
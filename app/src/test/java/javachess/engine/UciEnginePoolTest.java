@@ -0,0 +1,58 @@
+package javachess.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UciEnginePoolTest {
+    private static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1";
+
+    private UciEnginePool pool;
+
+    @BeforeEach void startPool() {
+        // the engine of this project, run as an external process
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        pool = new UciEnginePool(List.of(java, "-cp", System.getProperty("java.class.path"), Uci.class.getName()), 1);
+    }
+
+    @AfterEach void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test void gamesShareTheEngines() throws Exception {
+        BotEngine first = pool.newGame();
+        BotEngine second = pool.newGame();
+        assertEquals("a1a8", first.getBestMove(BACK_RANK_MATE, 3));
+        assertEquals("a1a8", second.getBestMove(BACK_RANK_MATE, 3));
+        assertEquals(1, pool.getEngineCount());
+        assertEquals(2, pool.getLeases());
+    }
+
+    @Test void engineIsToldAboutNewGames() throws Exception {
+        Object game = new Object();
+        UciProcess engine = pool.lease(game);
+        assertFalse(engine.switchTo(game));
+        pool.release(engine);
+
+        Object other = new Object();
+        UciProcess same = pool.lease(other);
+        assertSame(engine, same);
+        assertFalse(same.switchTo(other));
+        assertTrue(same.switchTo(game));
+        pool.release(same);
+    }
+
+    @Test void deadEngineIsRestarted() throws Exception {
+        UciProcess engine = pool.lease(null);
+        engine.kill();
+        pool.release(engine);
+        assertEquals("a1a8", pool.getBestMove(null, BACK_RANK_MATE, SearchLimits.depth(3)));
+        assertEquals(1, pool.getRestarts());
+        assertEquals(1, pool.getEngineCount());
+    }
+}
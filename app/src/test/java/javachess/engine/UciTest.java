@@ -0,0 +1,81 @@
+package javachess.engine;
+
+import javachess.model.Board;
+import javachess.model.Moves;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UciTest {
+
+    private static String run(String... commands) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Uci uci = new Uci(new PrintStream(output, true));
+        boolean searching = false;
+        for (String command : commands) {
+            uci.handle(command);
+            searching |= command.startsWith("go");
+        }
+        // the search runs on its own thread and quit() would stop it: wait for its answer first
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (searching && !output.toString().contains("bestmove") && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        uci.handle("isready");
+        uci.quit();
+        return output.toString();
+    }
+
+    @Test void answersHandshake() {
+        String output = run("uci");
+        assertTrue(output.contains("id name"));
+        assertTrue(output.indexOf("uciok") < output.indexOf("readyok"));
+    }
+
+    @Test void playsMovesAndSearches() {
+        String output = run("position startpos moves e2e4 e7e5", "go depth 3");
+        assertTrue(output.contains("info depth 3 "));
+        assertTrue(output.contains(" pv "));
+        assertTrue(output.contains("bestmove "));
+    }
+
+    @Test void reportsMate() {
+        String output = run("position fen 6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1", "go depth 3");
+        assertTrue(output.contains("score mate 1"));
+        assertTrue(output.contains("bestmove a1a8"));
+    }
+
+    @Test void stopsInfiniteSearch() throws InterruptedException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Uci uci = new Uci(new PrintStream(output, true));
+        uci.handle("position startpos");
+        uci.handle("go infinite");
+        Thread.sleep(200);
+        uci.handle("stop");
+        assertTrue(output.toString().contains("bestmove "));
+        uci.quit();
+    }
+
+    @Test void stopRightAfterGoIsNotLost() {
+        for (int i = 0; i < 20; i++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            Uci uci = new Uci(new PrintStream(output, true));
+            uci.handle("position startpos");
+            uci.handle("go infinite");
+            uci.handle("stop");
+            String text = output.toString();
+            assertTrue(text.contains("bestmove "));
+            String move = text.substring(text.indexOf("bestmove ") + "bestmove ".length()).strip().split("\\s+")[0];
+            assertNotEquals(Moves.NONE, Moves.fromUCI(new Board(), move), move);
+            uci.quit();
+        }
+    }
+}
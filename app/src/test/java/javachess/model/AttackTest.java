@@ -0,0 +1,68 @@
+package javachess.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttackTest {
+
+    @Test void kingSquaresFollowMakeAndUnmake() {
+        Board board = new Board();
+        board.loadFEN(PerftTest.START);
+        assertEquals(new Position("e1").getIndex(), board.getKingSquare(PieceColor.WHITE));
+        assertEquals(new Position("e8").getIndex(), board.getKingSquare(PieceColor.BLACK));
+
+        board.loadFEN("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        Undo undo = board.makeMove(new Move(new Position("e1"), new Position("g1")));
+        assertEquals(new Position("g1").getIndex(), board.getKingSquare(PieceColor.WHITE));
+        board.unmakeMove(undo);
+        assertEquals(new Position("e1").getIndex(), board.getKingSquare(PieceColor.WHITE));
+    }
+
+    @Test void squareAttackedBySlidersStopsAtBlockers() {
+        Board board = new Board();
+        board.loadFEN("4k3/8/8/8/1b6/8/3P4/4K3 w - - 0 1");
+        assertTrue(board.isSquareAttacked(new Position("c3").getIndex(), PieceColor.BLACK));
+        assertTrue(board.isSquareAttacked(new Position("d2").getIndex(), PieceColor.BLACK));
+        // the bishop ray stops at the d2 pawn
+        assertFalse(board.isCheck(PieceColor.WHITE));
+
+        board.loadFEN("4k3/8/8/8/1b6/8/8/4K3 w - - 0 1");
+        assertTrue(board.isCheck(PieceColor.WHITE));
+        assertFalse(board.isCheck(PieceColor.BLACK));
+    }
+
+    @Test void checkMatchesMoveScanOverRandomGames() {
+        Random random = new Random(7);
+        for (int game = 0; game < 20; game++) {
+            Board board = new Board();
+            board.loadFEN(PerftTest.KIWIPETE);
+            for (int ply = 0; ply < 80; ply++) {
+                PieceColor side = board.getSideToMove();
+                assertEquals(isAttackedByScan(board, board.getKingSquare(side), side.opposite()), board.isCheck(side));
+                ArrayList<Move> moves = board.getLegalMoves(side);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                board.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    /**
+     * Reference check detection: looks for the square in the moves of every opponent piece.
+     */
+    private static boolean isAttackedByScan(Board board, int square, PieceColor by) {
+        for (int i = 0; i < 64; i++) {
+            Piece piece = board.getCell(i).getPiece();
+            if (piece != null && piece.getColor() == by && piece.getDecorator() != null
+                    && piece.getDecorator().getValidCells().contains(board.getCell(square))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
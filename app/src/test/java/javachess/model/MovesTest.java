@@ -0,0 +1,40 @@
+package javachess.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovesTest {
+
+    @Test void encodingKeepsSquaresPromotionAndFlags() {
+        int move = Moves.encode(new Position("b7").getIndex(), new Position("a8").getIndex(), PieceType.KNIGHT, Moves.CAPTURE);
+        assertEquals(new Position("b7").getIndex(), Moves.from(move));
+        assertEquals(new Position("a8").getIndex(), Moves.to(move));
+        assertEquals(PieceType.KNIGHT, Moves.promotion(move));
+        assertTrue(Moves.isCapture(move));
+        assertFalse(Moves.isEnPassant(move));
+        assertEquals("b7a8n", Moves.toUCI(move));
+    }
+
+    @Test void flagsAreComputedFromTheBoard() {
+        Board board = new Board();
+        board.loadFEN("r3k2r/8/8/3pP3/8/8/4P3/R3K2R w KQkq d6 0 1");
+        assertTrue(Moves.isEnPassant(Moves.fromMove(board, new Move(new Position("e5"), new Position("d6")))));
+        assertTrue(Moves.isCastling(Moves.fromMove(board, new Move(new Position("e1"), new Position("c1")))));
+        assertTrue(Moves.isDoublePush(Moves.fromMove(board, new Move(new Position("e2"), new Position("e4")))));
+        assertTrue(Moves.isCapture(Moves.fromMove(board, new Move(new Position("a1"), new Position("a8")))));
+    }
+
+    @Test void conversionRoundTripsEveryLegalMove() {
+        Board board = new Board();
+        board.loadFEN(PerftTest.POSITION_4);
+        MoveList moves = new MoveList();
+        board.generateLegalMoves(board.getSideToMove(), moves);
+        assertEquals(6, moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            assertEquals(move, Moves.fromMove(board, Moves.toMove(board, move)));
+            assertTrue(board.isLegalMove(move));
+        }
+    }
+}
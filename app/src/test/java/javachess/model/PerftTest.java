@@ -0,0 +1,89 @@
+package javachess.model;
+
+import javachess.movegen.BitboardMoveGenerator;
+import javachess.movegen.DecoratorMoveGenerator;
+import javachess.movegen.MoveGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Perft regression suite, on the standard positions of <a href="https://www.chessprogramming.org/Perft_Results">chessprogramming.org</a>.
+ */
+class PerftTest {
+    static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    static final String POSITION_6 = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    private static Board board(String fen, MoveGenerator generator) {
+        Board board = new Board();
+        board.loadFEN(fen);
+        board.setMoveGenerator(generator);
+        return board;
+    }
+
+    private static void assertPerft(String fen, long... expected) {
+        Board board = board(fen, new BitboardMoveGenerator());
+        for (int depth = 1; depth <= expected.length; depth++) {
+            assertEquals(expected[depth - 1], board.perft(depth), "perft(" + depth + ") of " + fen);
+        }
+        // the board must be left untouched
+        assertEquals(fen.substring(0, fen.lastIndexOf(' ', fen.lastIndexOf(' ') - 1)), board.getSimplifiedFEN(board.getSideToMove()));
+    }
+
+    @Test void startPosition() {
+        assertPerft(START, 20, 400, 8902, 197281);
+    }
+
+    @Test void kiwipete() {
+        assertPerft(KIWIPETE, 48, 2039, 97862);
+    }
+
+    @Test void position3() {
+        assertPerft(POSITION_3, 14, 191, 2812, 43238);
+    }
+
+    @Test void position4() {
+        assertPerft(POSITION_4, 6, 264, 9467);
+    }
+
+    @Test void position5() {
+        assertPerft(POSITION_5, 44, 1486, 62379);
+    }
+
+    @Test void position6() {
+        assertPerft(POSITION_6, 46, 2079, 89890);
+    }
+
+    @Test void enPassantUncoveringTheKingIsIllegal() {
+        // after b5xc6 the rook on h5 would see the king on a5
+        Board board = board("8/8/8/KPp4r/8/8/8/7k w - c6 0 2", new BitboardMoveGenerator());
+        assertFalse(board.divide(1).containsKey("b5c6"));
+        assertPerft("8/8/8/KPp4r/8/8/8/7k w - c6 0 2", 4);
+    }
+
+    @Test void pinnedPiecesOnlyMoveAlongThePin() {
+        // the e2 rook may only move on the e-file, the d2 knight not at all
+        Board board = board("4r1k1/8/8/b7/8/8/3NR3/4K3 w - - 0 1", new BitboardMoveGenerator());
+        Piece rook = board.getCell(new Position("e2").getIndex()).getPiece();
+        assertTrue(board.getValidCellsForBoard(rook).stream().allMatch(cell -> board.getPosition(cell).getX() == 4));
+        assertEquals(6, board.getValidCellsForBoard(rook).size());
+        assertTrue(board.getValidCellsForBoard(board.getCell(new Position("d2").getIndex()).getPiece()).isEmpty());
+    }
+
+    @Test void decoratorGeneratorMatchesBitboardGenerator() {
+        for (String fen : new String[]{START, KIWIPETE, POSITION_3, POSITION_4, POSITION_5, POSITION_6,
+                "4r1k1/8/8/b7/8/8/3NR3/4K3 w - - 0 1", "8/8/8/KPp4r/8/8/8/7k w - c6 0 2"}) {
+            assertEquals(board(fen, new BitboardMoveGenerator()).divide(2), board(fen, new DecoratorMoveGenerator()).divide(2), fen);
+        }
+    }
+
+    @Test void divideSumsToPerft() {
+        Board board = board(KIWIPETE, new BitboardMoveGenerator());
+        assertEquals(board.perft(2), board.divide(2).values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(board.divide(0).isEmpty());
+    }
+}
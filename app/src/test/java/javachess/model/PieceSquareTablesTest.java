@@ -0,0 +1,42 @@
+package javachess.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PieceSquareTablesTest {
+
+    @Test void incrementalScoresMatchFullComputation() {
+        Board board = new Board();
+        board.loadFEN(PerftTest.KIWIPETE);
+        Random random = new Random(7);
+        ArrayList<Undo> undos = new ArrayList<>();
+        ArrayList<int[]> scores = new ArrayList<>();
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 200; ply++) {
+            board.generateLegalMoves(board.getSideToMove(), moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            scores.add(new int[]{board.getMiddlegameScore(), board.getEndgameScore(), board.getPhase()});
+            Undo undo = new Undo();
+            board.makeMove(moves.get(random.nextInt(moves.size())), undo);
+            undos.add(undo);
+            assertArrayEquals(PieceSquareTables.compute(board), new int[]{board.getMiddlegameScore(), board.getEndgameScore(), board.getPhase()});
+        }
+        for (int i = undos.size() - 1; i >= 0; i--) {
+            board.unmakeMove(undos.get(i));
+            assertArrayEquals(scores.get(i), new int[]{board.getMiddlegameScore(), board.getEndgameScore(), board.getPhase()});
+        }
+    }
+
+    @Test void startPositionIsBalanced() {
+        Board board = new Board();
+        assertEquals(0, board.getMiddlegameScore());
+        assertEquals(0, board.getEndgameScore());
+        assertEquals(PieceSquareTables.MAX_PHASE, board.getPhase());
+    }
+}
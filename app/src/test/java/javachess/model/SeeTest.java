@@ -0,0 +1,45 @@
+package javachess.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeeTest {
+
+    private static int see(String fen, String uci) {
+        Board board = new Board();
+        board.loadFEN(fen);
+        int move = Moves.fromUCI(board, uci);
+        assertNotEquals(Moves.NONE, move, uci);
+        int score = board.see(move);
+        // the move is not played
+        assertEquals(fen, board.getFEN(board.getHalfMoveClock(), board.getSideToMove()));
+        return score;
+    }
+
+    @Test void capturesAndQuietMoves() {
+        assertEquals(100, see("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5"));
+        // the pawn is defended by the knight
+        assertEquals(100 - 500, see("1k1r4/1ppn3p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5"));
+        // a quiet move to a square attacked by a pawn loses the piece
+        assertEquals(-320, see("4k3/8/8/8/3p4/8/8/1N2K3 w - - 0 1", "b1c3"));
+        assertEquals(0, see("4k3/8/8/8/3p4/8/8/1N2K3 w - - 0 1", "b1a3"));
+    }
+
+    @Test void xRaysJoinTheExchange() {
+        // the rook behind the rook doubles the attack on the defended pawn
+        assertEquals(100, see("4k3/4r3/8/4p3/8/8/4R3/4R1K1 w - - 0 1", "e2e5"));
+        assertEquals(100 - 500, see("4k3/4r3/8/4p3/8/8/4R3/6K1 w - - 0 1", "e2e5"));
+        // Nxe5 Nxe5 and white stops, the queens behind the rook and the bishop do not change it
+        assertEquals(100 - 320, see("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5"));
+    }
+
+    @Test void promotionsAndEnPassant() {
+        assertEquals(800, see("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1", "b7b8q"));
+        // the new queen is taken by the rook
+        assertEquals(-100, see("r3k3/1P6/8/8/8/8/8/4K3 w - - 0 1", "b7b8q"));
+        assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+        // the king cannot recapture a defended piece
+        assertEquals(100, see("8/8/8/8/8/4k3/3p4/3RK3 w - - 0 1", "d1d2"));
+    }
+}
@@ -0,0 +1,80 @@
+package javachess.model;
+
+import javachess.movegen.BitboardMoveGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZobristTest {
+
+    private static Board board(String fen) {
+        Board board = new Board();
+        board.loadFEN(fen);
+        board.setMoveGenerator(new BitboardMoveGenerator());
+        return board;
+    }
+
+    private static void play(Board board, String... moves) {
+        for (String uci : moves) {
+            board.makeMove(new Move(new Position(uci.substring(0, 2)), new Position(uci.substring(2, 4))));
+        }
+    }
+
+    @Test void incrementalHashMatchesFullComputation() {
+        Board board = board(PerftTest.KIWIPETE);
+        Random random = new Random(42);
+        ArrayList<Undo> undos = new ArrayList<>();
+        ArrayList<Long> hashes = new ArrayList<>();
+        for (int ply = 0; ply < 200; ply++) {
+            ArrayList<Move> moves = board.getLegalMoves(board.getSideToMove());
+            if (moves.isEmpty()) {
+                break;
+            }
+            hashes.add(board.hash());
+            undos.add(board.makeMove(moves.get(random.nextInt(moves.size()))));
+            assertEquals(Zobrist.compute(board), board.hash());
+        }
+        // taking the moves back restores every hash
+        for (int i = undos.size() - 1; i >= 0; i--) {
+            board.unmakeMove(undos.get(i));
+            assertEquals((long) hashes.get(i), board.hash());
+        }
+    }
+
+    @Test void pawnHashOnlyFollowsPawns() {
+        Board board = board(PerftTest.START);
+        long start = board.pawnHash();
+        assertEquals(Zobrist.computePawnKey(board), start);
+        play(board, "g1f3", "g8f6");
+        assertEquals(start, board.pawnHash());
+        play(board, "e2e4");
+        assertNotEquals(start, board.pawnHash());
+        assertEquals(Zobrist.computePawnKey(board), board.pawnHash());
+        assertEquals(0L, board("4k3/8/8/8/8/8/8/4K2R w K - 0 1").pawnHash());
+    }
+
+    @Test void transpositionsHaveTheSameHash() {
+        Board start = board(PerftTest.START);
+        Board board = board(PerftTest.START);
+        play(board, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertEquals(start.hash(), board.hash());
+
+        Board first = board(PerftTest.START);
+        play(first, "e2e4", "e7e5", "g1f3");
+        Board second = board(PerftTest.START);
+        play(second, "g1f3", "e7e5", "e2e4");
+        // en passant is not possible after e2e4 in the second line, so the hashes match
+        assertEquals(first.hash(), second.hash());
+    }
+
+    @Test void stateIsPartOfTheHash() {
+        assertNotEquals(board("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1").hash(), board("r3k2r/8/8/8/8/8/8/R3K2R w Kkq - 0 1").hash());
+        assertNotEquals(board("4k3/8/8/8/8/8/8/4K3 w - - 0 1").hash(), board("4k3/8/8/8/8/8/8/4K3 b - - 0 1").hash());
+        // the en passant square only matters when a capture is possible
+        assertNotEquals(board("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1").hash(), board("4k3/8/8/3pP3/8/8/8/4K3 w - - 0 1").hash());
+        assertEquals(board("4k3/8/8/3p4/8/8/8/4K3 w - d6 0 1").hash(), board("4k3/8/8/3p4/8/8/8/4K3 w - - 0 1").hash());
+    }
+}